@@ -0,0 +1,170 @@
+package edu.java.lab2;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Кассы, одновременно продающие одни и те же места: ни одно место не
+ * продается дважды, и число успешных продаж совпадает с числом проданных мест,
+ * в том числе когда репозиторий в это время меняет зал сеанса и строки билетов.
+ */
+class BookingServiceConcurrencyTest {
+    private static final int TERMINALS = 16;
+    private static final int ATTEMPTS = 20_000;
+    private static final String KEY = "Матрица 18:00";
+
+    @Test
+    void seatIsNeverSoldTwice() throws Exception {
+        SeatMap map = new SeatMap(HallLayout.forHall("Зал 3"));
+        BookingService service = new BookingService(key -> map);
+        AtomicIntegerArray sales = new AtomicIntegerArray(map.getLayout().getCapacity());
+
+        race(map.getLayout(), (random, seat) -> {
+            boolean sold = random.nextBoolean()
+                    ? service.sell(KEY, map.getLayout().seatLabel(seat))
+                    : service.reserve(KEY, map.getLayout().seatLabel(seat)) && service.confirmSale(KEY, map.getLayout().seatLabel(seat));
+            if (sold) sales.incrementAndGet(seat);
+        }, () -> {});
+
+        assertSoldOnce(map, sales);
+    }
+
+    @Test
+    void hallChangeDoesNotLoseOrRepeatSales() throws Exception {
+        CinemaRepository repository = new CinemaRepository();
+        repository.addFilm(new Film("Матрица", "Вачовски", "1999", "Фантастика", "136 мин"));
+        repository.addSession(new Session("Матрица", "15.12.2025", "18:00", "Зал 1", "350 руб"));
+        BookingService service = new BookingService(repository::getSeatMap);
+        // Места, которые есть и в "Зал 1", и в "Зал 2": при смене схемы переносятся по обозначению
+        HallLayout common = new HallLayout("", 10, 14);
+        AtomicIntegerArray sales = new AtomicIntegerArray(common.getCapacity());
+
+        String[] halls = {"Зал 2", "Зал 1"};
+        int[] flips = {0};
+        race(common, (random, seat) -> {
+            if (service.sell(KEY, common.seatLabel(seat))) sales.incrementAndGet(seat);
+        }, () -> repository.updateSession(0, new Session("Матрица", "15.12.2025", "18:00", halls[flips[0]++ % 2], "350 руб")));
+
+        assertTrue(flips[0] > 0, "зал сеанса не менялся во время продаж");
+        SeatMap map = repository.getSeatMap(KEY);
+        int soldSeats = 0;
+        for (int seat = 0; seat < common.getCapacity(); seat++) {
+            assertTrue(sales.get(seat) <= 1, "место " + common.seatLabel(seat) + " продано " + sales.get(seat) + " раз");
+            boolean sold = map.getState(common.seatLabel(seat)) == SeatMap.SOLD;
+            assertEquals(sales.get(seat) == 1, sold, "место " + common.seatLabel(seat));
+            if (sold) soldSeats++;
+        }
+        assertEquals(soldSeats, map.getSoldCount());
+    }
+
+    @Test
+    void staleTicketRowDoesNotOverwriteTerminalSale() {
+        CinemaRepository repository = new CinemaRepository();
+        repository.addSession(new Session("Матрица", "15.12.2025", "18:00", "Зал 1", "350 руб"));
+        repository.addTicket(new Ticket(KEY, "A1", Ticket.STATUS_FREE, "-"));
+        BookingService service = new BookingService(repository::getSeatMap);
+
+        // Продажа кассы, которую таблица билетов еще не увидела
+        assertTrue(service.sell(KEY, "A1"));
+        repository.updateTicket(0, new Ticket(KEY, "A1", Ticket.STATUS_RESERVED, "12:00"));
+        assertEquals(SeatMap.SOLD, repository.getSeatMap(KEY).getState("A1"));
+        repository.removeTicket(0);
+        assertEquals(SeatMap.SOLD, repository.getSeatMap(KEY).getState("A1"));
+        assertFalse(service.sell(KEY, "A1"));
+    }
+
+    @Test
+    void loadedSeatsCannotBeSoldAgain() {
+        CinemaRepository repository = new CinemaRepository();
+        // Загрузка файла или восстановление журнала: все данные одним replaceAll
+        repository.replaceAll(List.of(new Film("Матрица", "Вачовски", "1999", "Фантастика", "136 мин")),
+                List.of(new Session("Матрица", "15.12.2025", "18:00", "Зал 1", "350 руб")),
+                List.of(new Ticket(KEY, "A1", Ticket.STATUS_SOLD, "12:00"),
+                        new Ticket(KEY, "A2", Ticket.STATUS_RESERVED, "12:05")));
+        BookingService service = new BookingService(repository::getSeatMap);
+
+        assertEquals(SeatMap.SOLD, repository.getSeatMap(KEY).getState("A1"));
+        assertEquals(SeatMap.RESERVED, repository.getSeatMap(KEY).getState("A2"));
+        assertFalse(service.sell(KEY, "A1"));
+        assertFalse(service.reserve(KEY, "A1"));
+        assertFalse(service.sell(KEY, "A2"));
+        assertFalse(service.reserve(KEY, "A2"));
+        assertEquals(1, repository.getSeatMap(KEY).getSoldCount());
+    }
+
+    @Test
+    void sessionAddedAfterTicketsMarksTheirSeats() {
+        CinemaRepository repository = new CinemaRepository();
+        repository.addTicket(new Ticket(KEY, "A1", Ticket.STATUS_SOLD, "12:00"));
+        repository.addSession(new Session("Матрица", "15.12.2025", "18:00", "Зал 1", "350 руб"));
+        BookingService service = new BookingService(repository::getSeatMap);
+
+        assertEquals(SeatMap.SOLD, repository.getSeatMap(KEY).getState("A1"));
+        assertFalse(service.sell(KEY, "A1"));
+    }
+
+    @Test
+    void deferredSyncKeepsLatestSeatState() {
+        CinemaRepository repository = new CinemaRepository();
+        repository.addSession(new Session("Матрица", "15.12.2025", "18:00", "Зал 1", "350 руб"));
+        repository.addTicket(new Ticket(KEY, "A1", Ticket.STATUS_FREE, "-"));
+        BookingService service = new BookingService(repository::getSeatMap);
+        List<Runnable> deferred = new ArrayList<>();
+        service.addListener((key, seat, oldState, newState, time) -> deferred.add(() -> repository.syncSeat(key, seat, newState, time)));
+
+        assertTrue(service.reserve(KEY, "A1"));
+        assertTrue(service.confirmSale(KEY, "A1"));
+        // События доходят до EDT позже: бронь уже выкуплена и не должна вернуться в таблицу
+        deferred.get(0).run();
+        assertEquals(Ticket.STATUS_FREE, repository.getTicket(0).getStatus());
+        deferred.get(1).run();
+        assertEquals(Ticket.STATUS_SOLD, repository.getTicket(0).getStatus());
+    }
+
+    private interface Attempt {
+        void run(ThreadLocalRandom random, int seat);
+    }
+
+    // Кассы пробуют случайные места, пока вызывающий поток (как EDT) выполняет between
+    private static void race(HallLayout layout, Attempt attempt, Runnable between) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(TERMINALS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> terminals = new ArrayList<>();
+        for (int t = 0; t < TERMINALS; t++) {
+            terminals.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS; i++) attempt.run(random, random.nextInt(layout.getCapacity()));
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            while (!done.get()) {
+                between.run();
+                done.set(terminals.stream().allMatch(Future::isDone));
+            }
+            for (Future<?> f : terminals) f.get(1, TimeUnit.MINUTES);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void assertSoldOnce(SeatMap map, AtomicIntegerArray sales) {
+        int soldSeats = 0, successes = 0;
+        for (int seat = 0; seat < sales.length(); seat++) {
+            assertTrue(sales.get(seat) <= 1, "место " + map.getLayout().seatLabel(seat) + " продано " + sales.get(seat) + " раз");
+            successes += sales.get(seat);
+            if (map.getState(seat) == SeatMap.SOLD) soldSeats++;
+        }
+        assertEquals(soldSeats, successes, "успешных продаж должно быть столько же, сколько проданных мест");
+        assertEquals(soldSeats, map.getSoldCount());
+    }
+}
@@ -0,0 +1,137 @@
+package edu.java.lab2;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Снятие просроченных броней: бронь из файла и бронь кассы возвращают место
+ * в FREE, а строка билета, счетчики и выручка обновляются. Повторная бронь и
+ * выкуп до срока старой записью очереди не снимаются.
+ */
+class ReservationExpiryTest {
+    private static final String KEY = "Матрица 18:00";
+    private static final long WAIT_MILLIS = 5_000;
+
+    private final CinemaRepository repository = new CinemaRepository();
+    private final BookingService service = new BookingService(repository::getSeatMap);
+    // События касс, которые приложение передает в таблицу через invokeLater; здесь их применяет тест
+    private final BlockingQueue<Runnable> syncs = new LinkedBlockingQueue<>();
+    private ReservationExpiry expiry;
+
+    ReservationExpiryTest() {
+        repository.replaceAll(List.of(new Film("Матрица", "Вачовски", "1999", "Фантастика", "136 мин")),
+                List.of(new Session("Матрица", "15.12.2025", "18:00", "Зал 1", "350 руб")),
+                List.of(new Ticket(KEY, "A1", Ticket.STATUS_RESERVED, "12:00")));
+        service.addListener((key, seat, oldState, newState, time) -> syncs.add(() -> repository.syncSeat(key, seat, newState, time)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (expiry != null) expiry.shutdown();
+    }
+
+    @Test
+    void loadedReservationExpires() throws Exception {
+        expiry = new ReservationExpiry(service, 50, TimeUnit.MILLISECONDS);
+        // Как holdLoadedReservations после загрузки
+        assertTrue(service.isManaged(KEY, "A1"));
+        expiry.hold(KEY, "A1");
+        assertEquals(RevenueEngine.parsePriceKopecks("350 руб"), repository.getRevenue().getReservedRevenue());
+        expiry.start();
+
+        applyNextSync();
+        assertEquals(SeatMap.FREE, repository.getSeatMap(KEY).getState("A1"));
+        assertEquals(Ticket.STATUS_FREE, repository.getTicket(0).getStatus());
+        assertEquals(0, repository.countTickets(Ticket.STATUS_RESERVED));
+        assertEquals(0, repository.getRevenue().getReservedRevenue());
+        assertEquals(0, expiry.getPendingCount());
+        assertTrue(repository.verifyTicketCounters().isEmpty());
+        assertTrue(repository.verifyRevenue());
+    }
+
+    @Test
+    void terminalReservationExpires() throws Exception {
+        expiry = new ReservationExpiry(service, 50, TimeUnit.MILLISECONDS);
+        expiry.start();
+        assertTrue(service.reserve(KEY, "B1"));
+        applyNextSync();
+        assertEquals(Ticket.STATUS_RESERVED, repository.getTicket(1).getStatus());
+
+        applyNextSync();
+        assertEquals(SeatMap.FREE, repository.getSeatMap(KEY).getState("B1"));
+        assertEquals(Ticket.STATUS_FREE, repository.getTicket(1).getStatus());
+        assertEquals(1, repository.countTickets(Ticket.STATUS_RESERVED));
+        assertTrue(service.reserve(KEY, "B1"));
+    }
+
+    @Test
+    void reReserveBeforeExpiryKeepsNewHold() throws Exception {
+        expiry = new ReservationExpiry(service, 1, TimeUnit.SECONDS);
+        expiry.start();
+        assertTrue(service.reserve(KEY, "B1"));
+        assertTrue(service.cancelReservation(KEY, "B1"));
+        Thread.sleep(500);
+        assertTrue(service.reserve(KEY, "B1"));
+
+        // Срок первой брони прошел, второй - еще нет
+        Thread.sleep(700);
+        assertEquals(SeatMap.RESERVED, repository.getSeatMap(KEY).getState("B1"));
+        assertEquals(1, expiry.getPendingCount());
+        awaitState("B1", SeatMap.FREE);
+    }
+
+    @Test
+    void saleBeforeExpiryIsKept() throws Exception {
+        expiry = new ReservationExpiry(service, 50, TimeUnit.MILLISECONDS);
+        expiry.hold(KEY, "A1");
+        assertTrue(service.confirmSale(KEY, "A1"));
+        assertEquals(0, expiry.getPendingCount());
+        expiry.start();
+
+        Thread.sleep(300);
+        assertEquals(SeatMap.SOLD, repository.getSeatMap(KEY).getState("A1"));
+        applyNextSync();
+        assertEquals(Ticket.STATUS_SOLD, repository.getTicket(0).getStatus());
+        assertTrue(syncs.isEmpty(), "выкупленное место не должно сниматься");
+    }
+
+    @Test
+    void manyPendingHoldsExpire() throws Exception {
+        expiry = new ReservationExpiry(service, 100, TimeUnit.MILLISECONDS);
+        int holds = 100_000;
+        for (int i = 0; i < holds; i++) expiry.hold("Сеанс " + i, "A1");
+        assertTrue(service.reserve(KEY, "B1"));
+        assertEquals(holds + 1, expiry.getPendingCount());
+        expiry.start();
+
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (expiry.getPendingCount() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(0, expiry.getPendingCount());
+        assertEquals(SeatMap.FREE, repository.getSeatMap(KEY).getState("B1"));
+    }
+
+    @Test
+    void reloadDropsPendingHolds() {
+        expiry = new ReservationExpiry(service, 1, TimeUnit.MINUTES);
+        assertTrue(service.reserve(KEY, "B1"));
+        assertEquals(1, expiry.getPendingCount());
+        expiry.clear();
+        assertEquals(0, expiry.getPendingCount());
+    }
+
+    private void applyNextSync() throws InterruptedException {
+        Runnable sync = syncs.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(sync, "место не изменилось");
+        sync.run();
+    }
+
+    private void awaitState(String seat, int state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (repository.getSeatMap(KEY).getState(seat) != state && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(state, repository.getSeatMap(KEY).getState(seat));
+    }
+}
@@ -0,0 +1,51 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.CinemaRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Общие данные замеров: набор заданного размера в памяти и на диске во всех
+ * трех форматах. Размер - параметр {@code tickets} ({@code -p tickets=10m}),
+ * набор строится один раз на форк из фиксированного seed.
+ */
+@State(Scope.Benchmark)
+public class CinemaData {
+    @Param({"10k", "100k", "1m"})
+    public String tickets;
+
+    @Param("42")
+    public long seed;
+
+    public CinemaRepository repository;
+    public CinemaRepository.View view;
+    public File dir;
+    // Каталог для файлов, которые пишут замеры сохранения
+    public File outDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        repository = CinemaDataGenerator.generate(CinemaDataGenerator.parseCount(tickets), seed).toRepository();
+        view = repository.view();
+        dir = Files.createTempDirectory("cinema-bench").toFile();
+        outDir = new File(dir, "out");
+        CinemaDataGenerator.write(repository, dir, CinemaDataGenerator.Format.values());
+        if (!outDir.mkdir()) throw new IOException("Не удалось создать каталог " + outDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public File file(String name) { return new File(dir, name); }
+    public File out(String name) { return new File(outDir, name); }
+}
@@ -0,0 +1,235 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Генератор правдоподобных данных кинотеатра заданного размера - от 10 тыс.
+ * до 10 млн билетов. Один и тот же {@code seed} дает одинаковые данные.
+ * <p>
+ * Сеансы идут по расписанию: в каждом зале несколько показов в день, у
+ * показа - билеты на все места зала (продан, забронирован или свободен).
+ * Билеты ссылаются на сеанс по ключу "фильм время", поэтому время показа
+ * у одного фильма не повторяется; число фильмов растет вместе с числом сеансов.
+ * <p>
+ * Запуск: {@code java -cp benchmarks.jar edu.java.lab2.bench.CinemaDataGenerator
+ * --tickets 1m --seed 42 --out data [--formats xml,txt,snapshot]} - пишет
+ * films.xml, sessions.xml, tickets.xml, cinema_data.txt и cinema.snapshot.
+ */
+public final class CinemaDataGenerator {
+    public static final String FILMS_XML = "films.xml";
+    public static final String SESSIONS_XML = "sessions.xml";
+    public static final String TICKETS_XML = "tickets.xml";
+    public static final String TEXT_FILE = "cinema_data.txt";
+    public static final String SNAPSHOT_FILE = "cinema.snapshot";
+
+    private static final String[] TITLES = {
+            "Интерстеллар", "Крестный отец", "Побег из Шоушенка", "Матрица", "Форрест Гамп", "Начало",
+            "Зеленая миля", "Бойцовский клуб", "Темный рыцарь", "Властелин колец", "Леон", "Гладиатор",
+            "Король Лев", "Назад в будущее", "Иван Васильевич меняет профессию", "Москва слезам не верит",
+            "Брат", "Остров", "Легенда № 17", "Движение вверх", "Дюна", "Оппенгеймер", "Аватар", "Титаник"};
+    private static final String[] DIRECTORS = {
+            "Кристофер Нолан", "Фрэнсис Коппола", "Фрэнк Дарабонт", "Вачовски", "Роберт Земекис",
+            "Стивен Спилберг", "Ридли Скотт", "Люк Бессон", "Леонид Гайдай", "Владимир Меньшов",
+            "Алексей Балабанов", "Павел Лунгин", "Дени Вильнёв", "Джеймс Кэмерон", "Питер Джексон"};
+    private static final String[] GENRES = {
+            "Фантастика", "Криминал", "Драма", "Комедия", "Боевик", "Мультфильм", "Триллер", "Приключения", "Спорт"};
+
+    // Показы в зале: начало в 10, 13, 16, 19 и 22 часа плюс смещение до получаса
+    private static final int[] SHOW_HOURS = {10, 13, 16, 19, 22};
+    private static final int FIRST_SHOW_MINUTE = 10 * 60;
+    private static final int LAST_SHOW_MINUTE = 23 * 60 + 59;
+    private static final int MIN_HALLS = 8;
+    private static final int MAX_HALLS = 40;
+    // Доля сеансов фильма от числа свободных минут показа: остальное - запас для поиска свободного времени
+    private static final int SESSIONS_PER_FILM = 600;
+
+    private CinemaDataGenerator() {}
+
+    /** Сгенерированные записи; порядок совпадает с порядком в файлах. */
+    public static final class Dataset {
+        public final List<Film> films = new ArrayList<>();
+        public final List<Session> sessions = new ArrayList<>();
+        public final List<Ticket> tickets = new ArrayList<>();
+
+        /** Репозиторий с этими данными (индексы, счетчики, выручка). */
+        public CinemaRepository toRepository() {
+            CinemaRepository repository = new CinemaRepository();
+            repository.replaceAll(films, sessions, tickets);
+            return repository;
+        }
+    }
+
+    /** Данные ровно на {@code ticketCount} билетов. */
+    public static Dataset generate(int ticketCount, long seed) {
+        if (ticketCount < 0) throw new IllegalArgumentException("Число билетов: " + ticketCount);
+        Random random = new Random(seed);
+        Dataset data = new Dataset();
+
+        int sessionCount = Math.max(1, (ticketCount + HallLayout.DEFAULT.getCapacity() - 1) / HallLayout.DEFAULT.getCapacity());
+        int hallCount = Math.max(MIN_HALLS, Math.min(MAX_HALLS, sessionCount / (SHOW_HOURS.length * 365)));
+        int filmCount = Math.max(12, (sessionCount + SESSIONS_PER_FILM - 1) / SESSIONS_PER_FILM);
+        for (int i = 0; i < filmCount; i++) data.films.add(film(i, random));
+
+        String[] halls = new String[hallCount];
+        HallLayout[] layouts = new HallLayout[hallCount];
+        String[][] seats = new String[hallCount][];
+        for (int h = 0; h < hallCount; h++) {
+            halls[h] = "Зал " + (h + 1);
+            layouts[h] = HallLayout.forHall(halls[h]);
+            seats[h] = new String[layouts[h].getCapacity()];
+            for (int s = 0; s < seats[h].length; s++) seats[h][s] = layouts[h].seatLabel(s);
+        }
+        String[] clock = new String[24 * 60];
+        for (int m = 0; m < clock.length; m++) clock[m] = String.format(Locale.ROOT, "%02d:%02d", m / 60, m % 60);
+
+        // Занятые минуты показа по фильмам: ключ "фильм время" должен быть уникальным
+        BitSet[] usedMinutes = new BitSet[filmCount];
+        for (int i = 0; i < filmCount; i++) usedMinutes[i] = new BitSet(24 * 60);
+
+        int remaining = ticketCount;
+        int nextFilm = 0;
+        for (int day = 0; remaining > 0; day++) {
+            String date = date(day);
+            for (int slot = 0; slot < SHOW_HOURS.length && remaining > 0; slot++) {
+                for (int h = 0; h < hallCount && remaining > 0; h++) {
+                    int filmIndex = nextFilm++ % filmCount;
+                    Film film = data.films.get(filmIndex);
+                    int minute = freeMinute(usedMinutes[filmIndex], SHOW_HOURS[slot] * 60 + random.nextInt(30));
+                    if (minute < 0) {
+                        // у фильма не осталось свободного времени - сеанс уходит следующему
+                        h--;
+                        continue;
+                    }
+                    Session session = new Session(film.getTitle(), date, clock[minute], halls[h], price(slot, h, random));
+                    data.sessions.add(session);
+                    remaining -= addTickets(data.tickets, session.getKey(), seats[h], minute, remaining, clock, random);
+                }
+            }
+        }
+        return data;
+    }
+
+    private static Film film(int index, Random random) {
+        String title = TITLES[index % TITLES.length];
+        int part = index / TITLES.length;
+        if (part > 0) title = title + " " + (part + 1);
+        return new Film(title, DIRECTORS[random.nextInt(DIRECTORS.length)], String.valueOf(1950 + random.nextInt(76)),
+                GENRES[random.nextInt(GENRES.length)], (80 + random.nextInt(100)) + " мин");
+    }
+
+    // Ближайшая свободная минута показа начиная с wanted (по кругу в пределах дня показов), -1 - нет
+    private static int freeMinute(BitSet used, int wanted) {
+        int span = LAST_SHOW_MINUTE - FIRST_SHOW_MINUTE + 1;
+        for (int i = 0; i < span; i++) {
+            int minute = FIRST_SHOW_MINUTE + (wanted - FIRST_SHOW_MINUTE + i) % span;
+            if (!used.get(minute)) {
+                used.set(minute);
+                return minute;
+            }
+        }
+        return -1;
+    }
+
+    private static String date(int day) {
+        java.time.LocalDate d = java.time.LocalDate.of(2025, 9, 1).plusDays(day);
+        return String.format(Locale.ROOT, "%02d.%02d.%04d", d.getDayOfMonth(), d.getMonthValue(), d.getYear());
+    }
+
+    // Утром дешевле, вечером дороже; первые три зала - с надбавкой
+    private static String price(int slot, int hall, Random random) {
+        int rubles = 250 + slot * 50 + (hall < 3 ? 100 : 0) + (random.nextInt(4) == 0 ? 50 : 0);
+        return rubles + " руб";
+    }
+
+    // Билеты на все места зала (не больше limit); заполненность зала у каждого сеанса своя
+    private static int addTickets(List<Ticket> tickets, String sessionKey, String[] seats, int showMinute, int limit,
+                                  String[] clock, Random random) {
+        int count = Math.min(seats.length, limit);
+        double occupancy = 0.2 + random.nextDouble() * 0.75;
+        for (int s = 0; s < count; s++) {
+            double r = random.nextDouble();
+            String status;
+            String saleTime;
+            if (r < occupancy) {
+                status = Ticket.STATUS_SOLD;
+                saleTime = clock[random.nextInt(showMinute)];
+            } else if (r < occupancy + 0.05) {
+                status = Ticket.STATUS_RESERVED;
+                saleTime = clock[random.nextInt(showMinute)];
+            } else {
+                status = Ticket.STATUS_FREE;
+                saleTime = "-";
+            }
+            tickets.add(new Ticket(sessionKey, seats[s], status, saleTime));
+        }
+        return count;
+    }
+
+    // ========== Запись файлов ==========
+
+    public enum Format { XML, TXT, SNAPSHOT }
+
+    /** Записывает данные репозитория в каталог в выбранных форматах. */
+    public static void write(CinemaRepository repository, File dir, Format... formats) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Не удалось создать каталог " + dir);
+        for (Format format : formats) {
+            switch (format) {
+                case XML:
+                    CinemaRepository.View view = repository.view();
+                    XmlService.writeFilms(new File(dir, FILMS_XML), view.filmsTable());
+                    XmlService.writeSessions(new File(dir, SESSIONS_XML), view.sessionsTable());
+                    XmlService.writeTickets(new File(dir, TICKETS_XML), view.ticketsTable());
+                    break;
+                case TXT:
+                    TextFormat.write(new File(dir, TEXT_FILE), repository);
+                    break;
+                case SNAPSHOT:
+                    SnapshotService.write(new File(dir, SNAPSHOT_FILE), repository, 1);
+                    break;
+            }
+        }
+    }
+
+    /** Размер вида "10000", "10k", "2.5m". */
+    public static int parseCount(String s) {
+        String v = s.trim().toLowerCase(Locale.ROOT);
+        double scale = 1;
+        if (v.endsWith("k")) { scale = 1e3; v = v.substring(0, v.length() - 1); }
+        else if (v.endsWith("m")) { scale = 1e6; v = v.substring(0, v.length() - 1); }
+        return (int) Math.round(Double.parseDouble(v) * scale);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int tickets = 10_000;
+        long seed = 42;
+        File out = new File("data");
+        List<Format> formats = new ArrayList<>(List.of(Format.values()));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--tickets": tickets = parseCount(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--out": out = new File(args[i + 1]); break;
+                case "--formats":
+                    formats.clear();
+                    for (String f : args[i + 1].split(",")) formats.add(Format.valueOf(f.trim().toUpperCase(Locale.ROOT)));
+                    break;
+                default: throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        Dataset data = generate(tickets, seed);
+        CinemaRepository repository = data.toRepository();
+        write(repository, out, formats.toArray(new Format[0]));
+        System.out.printf(Locale.ROOT, "Фильмов: %d, сеансов: %d, билетов: %d -> %s (%d мс)%n",
+                data.films.size(), data.sessions.size(), data.tickets.size(), out.getAbsolutePath(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
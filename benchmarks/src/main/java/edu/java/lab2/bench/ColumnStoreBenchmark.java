@@ -0,0 +1,63 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итоги по билетам (статусы, выручка по фильмам и залам): один проход по
+ * массивам столбцового хранилища против прохода по объектам билетов со
+ * сравнением строк статуса и поиском сеанса в HashMap на каждый билет.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ColumnStoreBenchmark {
+    private ColumnStore store;
+
+    @Setup(Level.Trial)
+    public void setUp(CinemaData data) {
+        store = ColumnStore.of(data.view);
+    }
+
+    @Benchmark
+    public long totalsByColumns() {
+        ColumnStore.Totals totals = store.totals();
+        return totals.getSoldRevenue() + totals.getRevenueByHall().size();
+    }
+
+    @Benchmark
+    public long totalsByObjects(CinemaData data) {
+        Map<String, Session> sessions = new HashMap<>();
+        for (Session s : data.view.getSessions()) sessions.putIfAbsent(s.getKey(), s);
+        int[] counts = new int[3];
+        long sold = 0, reserved = 0;
+        Map<String, Long> byFilm = new HashMap<>();
+        Map<String, Long> byHall = new HashMap<>();
+        for (Ticket t : data.view.getTickets()) {
+            String status = t.getStatus();
+            if (Ticket.STATUS_FREE.equals(status)) { counts[0]++; continue; }
+            boolean isReserved = Ticket.STATUS_RESERVED.equals(status);
+            if (!isReserved && !Ticket.STATUS_SOLD.equals(status)) continue;
+            counts[isReserved ? 1 : 2]++;
+            Session s = sessions.get(t.getSession());
+            if (s == null) continue;
+            if (isReserved) { reserved += s.getPriceKopecks(); continue; }
+            sold += s.getPriceKopecks();
+            byFilm.merge(s.getFilm(), s.getPriceKopecks(), Long::sum);
+            byHall.merge(s.getHall(), s.getPriceKopecks(), Long::sum);
+        }
+        return sold + reserved + byHall.size();
+    }
+
+    @Benchmark
+    public ColumnStore build(CinemaData data) {
+        return ColumnStore.of(data.view);
+    }
+}
@@ -0,0 +1,57 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Счетчики статусов билетов: чтение готовых счетчиков против полного
+ * просмотра таблицы (как раньше считали countSoldTickets/countReservedTickets)
+ * и цена поддержки счетчиков при изменении билета.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class CounterBenchmark {
+    private String sessionKey;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp(CinemaData data) {
+        sessionKey = data.repository.getTicket(0).getSession();
+    }
+
+    @Benchmark
+    public int countSold(CinemaData data) {
+        return data.repository.countTickets(Ticket.STATUS_SOLD) + data.repository.countTickets(Ticket.STATUS_RESERVED);
+    }
+
+    @Benchmark
+    public int countSoldInSession(CinemaData data) {
+        return data.repository.countTickets(sessionKey, Ticket.STATUS_SOLD);
+    }
+
+    @Benchmark
+    public int countSoldByScan(CinemaData data) {
+        int count = 0;
+        for (Ticket t : data.view.getTickets()) {
+            if (Ticket.STATUS_SOLD.equals(t.getStatus()) || Ticket.STATUS_RESERVED.equals(t.getStatus())) count++;
+        }
+        return count;
+    }
+
+    // Продажа и возврат по очереди: счетчики, выручка и карта мест обновляются на каждом вызове
+    @Benchmark
+    public int toggleTicketStatus(CinemaData data) {
+        CinemaRepository repository = data.repository;
+        row = (row + 1) % repository.getTicketCount();
+        Ticket t = repository.getTicket(row);
+        boolean sold = Ticket.STATUS_SOLD.equals(t.getStatus());
+        repository.updateTicket(row, t.withStatus(sold ? Ticket.STATUS_FREE : Ticket.STATUS_SOLD, sold ? "-" : "12:00"));
+        return repository.countTickets(Ticket.STATUS_SOLD);
+    }
+}
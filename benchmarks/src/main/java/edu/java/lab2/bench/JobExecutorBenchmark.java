@@ -0,0 +1,104 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 10 тыс. одновременных выгрузок через {@link JobExecutor}: каждое задание
+ * пишет HTML-файл с билетами одного сеанса, все задания ставятся сразу, замер
+ * длится до завершения последнего. Режим VIRTUAL (поток на задание) против
+ * пула PLATFORM того же размера, что у приложения. {@code storageDelayMillis}
+ * добавляет к каждой выгрузке блокирующее ожидание - медленный сетевой диск,
+ * на котором пул упирается в число потоков. Виртуальные потоки есть только
+ * с Java 21: на более старой JVM режим VIRTUAL не замеряется (ошибка в setUp),
+ * чтобы под его именем не оказались числа пула.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class JobExecutorBenchmark {
+    @Param({"VIRTUAL", "PLATFORM"})
+    public JobExecutor.Mode mode;
+
+    @Param("10000")
+    public int jobs;
+
+    @Param({"0", "5"})
+    public int storageDelayMillis;
+
+    @Param("42")
+    public long seed;
+
+    private final List<List<Ticket>> slices = new ArrayList<>();
+    private File dir;
+    private JobExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (mode == JobExecutor.Mode.VIRTUAL && !JobExecutor.isVirtualThreadsAvailable()) {
+            throw new IllegalStateException("Виртуальные потоки недоступны: нужна Java 21 или новее");
+        }
+        Map<String, List<Ticket>> bySession = new LinkedHashMap<>();
+        for (Ticket t : CinemaDataGenerator.generate(100_000, seed).tickets) {
+            bySession.computeIfAbsent(t.getSession(), k -> new ArrayList<>()).add(t);
+        }
+        slices.addAll(bySession.values());
+        dir = Files.createTempDirectory("cinema-jobs-bench").toFile();
+        // Размер пула по умолчанию из CinemaAdminApp
+        executor = JobExecutor.create(mode, Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        try (Stream<Path> files = Files.walk(dir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long exportJobs() throws Exception {
+        List<JobExecutor.Job<List<File>>> submitted = new ArrayList<>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            List<Ticket> slice = slices.get(i % slices.size());
+            File file = new File(dir, "export_" + i + ".html");
+            submitted.add(executor.submit("Выгрузка " + i, file.getAbsolutePath(), job -> export(slice, file, job)));
+        }
+        long bytes = 0;
+        for (JobExecutor.Job<List<File>> job : submitted) {
+            for (File f : job.result().get()) bytes += f.length();
+        }
+        return bytes;
+    }
+
+    private List<File> export(List<Ticket> slice, File file, JobExecutor.Job<List<File>> job) throws IOException, InterruptedException {
+        if (storageDelayMillis > 0) Thread.sleep(storageDelayMillis);
+        return new HtmlReport("Билеты сеанса " + slice.get(0).getSession(), HtmlReport.DEFAULT_PAGE_ROWS, false, 1)
+                .addSection("Билеты", "tickets", new ViewTableModel<>(TicketTableModel.COLUMNS, slice, JobExecutorBenchmark::value))
+                .write(file, job::isCancelled);
+    }
+
+    private static Object value(Ticket t, int column) {
+        switch (column) {
+            case 0: return t.getSession();
+            case 1: return t.getSeat();
+            case 2: return t.getStatus();
+            default: return t.getSaleTime();
+        }
+    }
+}
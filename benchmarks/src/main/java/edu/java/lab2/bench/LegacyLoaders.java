@@ -0,0 +1,90 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.Film;
+import edu.java.lab2.Session;
+import edu.java.lab2.Ticket;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Прежние загрузчики приложения - точка отсчета для замеров: XML целиком
+ * разбирается в дерево DOM, затем из него по элементам собираются записи;
+ * текстовый файл читается построчно и режется {@code split("\\|")}.
+ */
+public final class LegacyLoaders {
+
+    private LegacyLoaders() {}
+
+    /** Прочитанные записи в порядке файлов. */
+    public static final class Rows {
+        public final List<Film> films = new ArrayList<>();
+        public final List<Session> sessions = new ArrayList<>();
+        public final List<Ticket> tickets = new ArrayList<>();
+    }
+
+    /** Загрузка XML, как в loadFilmsFromXML / loadSessionsFromXML / loadTicketsFromXML до перехода на StAX. */
+    public static Rows readXmlDom(File filmsFile, File sessionsFile, File ticketsFile)
+            throws IOException, ParserConfigurationException, SAXException {
+        Rows rows = new Rows();
+        for (Element e : elements(filmsFile, "film")) {
+            rows.films.add(new Film(e.getAttribute("title"), e.getAttribute("director"), e.getAttribute("year"),
+                    e.getAttribute("genre"), e.getAttribute("duration")));
+        }
+        for (Element e : elements(sessionsFile, "session")) {
+            rows.sessions.add(new Session(e.getAttribute("film"), e.getAttribute("date"), e.getAttribute("time"),
+                    e.getAttribute("hall"), e.getAttribute("price")));
+        }
+        for (Element e : elements(ticketsFile, "ticket")) {
+            rows.tickets.add(new Ticket(e.getAttribute("session"), e.getAttribute("seat"), e.getAttribute("status"),
+                    e.getAttribute("saleTime")));
+        }
+        return rows;
+    }
+
+    /** Загрузка текстового файла, как в readText до перехода на {@code TextFormat}. */
+    public static Rows readTextSplit(File file) throws IOException {
+        Rows rows = new Rows();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            String currentSection = "";
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("===")) { currentSection = line; continue; }
+                if (line.trim().isEmpty()) continue;
+                String[] data = line.split("\\|");
+                if (currentSection.contains("ФИЛЬМЫ") && data.length >= 5) rows.films.add(new Film(data[0], data[1], data[2], data[3], data[4]));
+                else if (currentSection.contains("СЕАНСЫ") && data.length >= 5) rows.sessions.add(new Session(data[0], data[1], data[2], data[3], data[4]));
+                else if (currentSection.contains("БИЛЕТЫ") && data.length >= 4) rows.tickets.add(new Ticket(data[0], data[1], data[2], data[3]));
+            }
+        }
+        return rows;
+    }
+
+    private static List<Element> elements(File file, String tag) throws IOException, ParserConfigurationException, SAXException {
+        List<Element> result = new ArrayList<>();
+        if (!file.exists()) return result;
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        Document doc = builder.parse(file);
+        doc.getDocumentElement().normalize();
+        NodeList list = doc.getElementsByTagName(tag);
+        for (int i = 0; i < list.getLength(); i++) {
+            Node node = list.item(i);
+            if (node.getNodeType() == Node.ELEMENT_NODE) result.add((Element) node);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+
+import static edu.java.lab2.bench.CinemaDataGenerator.*;
+
+/**
+ * Загрузка и сохранение: XML (loadAllDataFromXML / saveAllDataToXML),
+ * текстовый формат (loadAllDataFromFile / saveAllDataToFile) и двоичный снимок.
+ * Загрузка меряется до готового {@link DataImport.Batch}, без публикации в таблицы;
+ * loadTextSplit - прежний разбор текста через split, точка отсчета для loadText.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LoadSaveBenchmark {
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    @Benchmark
+    public DataImport.Batch loadXml(CinemaData data) throws IOException, XMLStreamException {
+        return DataImport.readXml(data.file(FILMS_XML), data.file(SESSIONS_XML), data.file(TICKETS_XML), null, () -> false);
+    }
+
+    @Benchmark
+    public DataImport.Batch loadXmlParallel(CinemaData data) throws IOException, XMLStreamException {
+        return DataImport.readXmlParallel(data.file(FILMS_XML), data.file(SESSIONS_XML), data.file(TICKETS_XML), THREADS,
+                null, () -> false);
+    }
+
+    @Benchmark
+    public void saveXml(CinemaData data) throws IOException {
+        XmlService.writeFilms(data.out(FILMS_XML), data.view.filmsTable());
+        XmlService.writeSessions(data.out(SESSIONS_XML), data.view.sessionsTable());
+        XmlService.writeTickets(data.out(TICKETS_XML), data.view.ticketsTable());
+    }
+
+    @Benchmark
+    public LegacyLoaders.Rows loadTextSplit(CinemaData data) throws IOException {
+        return LegacyLoaders.readTextSplit(data.file(TEXT_FILE));
+    }
+
+    @Benchmark
+    public DataImport.Batch loadText(CinemaData data) throws IOException {
+        return DataImport.readText(data.file(TEXT_FILE), 1, null, () -> false);
+    }
+
+    @Benchmark
+    public DataImport.Batch loadTextParallel(CinemaData data) throws IOException {
+        return DataImport.readText(data.file(TEXT_FILE), THREADS, null, () -> false);
+    }
+
+    @Benchmark
+    public void saveText(CinemaData data) throws IOException {
+        TextFormat.write(data.out(TEXT_FILE), data.repository);
+    }
+
+    @Benchmark
+    public DataImport.Batch loadSnapshot(CinemaData data) throws IOException {
+        return SnapshotService.read(data.file(SNAPSHOT_FILE));
+    }
+
+    @Benchmark
+    public void saveSnapshot(CinemaData data) throws IOException {
+        SnapshotService.write(data.out(SNAPSHOT_FILE), data.repository, 1);
+    }
+}
@@ -0,0 +1,115 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Замер кучи (после сборки мусора) трех представлений билетов и сеансов:
+ * DefaultTableModel, заполненная построчно из файла (своя строка в каждой
+ * ячейке), объекты, прочитанные из XML, и столбцовое хранилище.
+ * Запуск: {@code java -cp benchmarks.jar edu.java.lab2.bench.MemoryReport --tickets 1m --seed 42}.
+ */
+public final class MemoryReport {
+
+    private MemoryReport() {}
+
+    public static void main(String[] args) throws Exception {
+        int tickets = 1_000_000;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--tickets": tickets = CinemaDataGenerator.parseCount(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+            }
+        }
+        CinemaDataGenerator.Dataset data = CinemaDataGenerator.generate(tickets, seed);
+        CinemaRepository repository = data.toRepository();
+        File dir = Files.createTempDirectory("cinema-memory").toFile();
+        CinemaDataGenerator.write(repository, dir, CinemaDataGenerator.Format.XML);
+        File filmsFile = new File(dir, CinemaDataGenerator.FILMS_XML);
+        File sessionsFile = new File(dir, CinemaDataGenerator.SESSIONS_XML);
+        File ticketsFile = new File(dir, CinemaDataGenerator.TICKETS_XML);
+
+        Object[] objects = new Object[1];
+        long objectBytes = measure(() -> {
+            try {
+                return DataImport.readXml(filmsFile, sessionsFile, ticketsFile, null, () -> false);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }, objects);
+        objects[0] = null;
+        for (File f : new File[]{filmsFile, sessionsFile, ticketsFile, dir}) f.delete();
+        List<Session> sessions = data.sessions;
+        List<Ticket> ticketList = data.tickets;
+
+        Object[] table = new Object[1];
+        long tableBytes = measure(() -> {
+            DefaultTableModel sessionsModel = new DefaultTableModel(SessionTableModel.COLUMNS, 0);
+            for (Session s : sessions) {
+                sessionsModel.addRow(new Object[]{copy(s.getFilm()), copy(s.getDate()), copy(s.getTime()), copy(s.getHall()), copy(s.getPrice())});
+            }
+            DefaultTableModel ticketsModel = new DefaultTableModel(TicketTableModel.COLUMNS, 0);
+            for (Ticket t : ticketList) {
+                ticketsModel.addRow(new Object[]{copy(t.getSession()), copy(t.getSeat()), copy(t.getStatus()), copy(t.getSaleTime())});
+            }
+            return new DefaultTableModel[]{sessionsModel, ticketsModel};
+        }, table);
+        table[0] = null;
+
+        Object[] columns = new Object[1];
+        long columnBytes = measure(() -> ColumnStore.of(sessions, ticketList), columns);
+        ColumnStore store = (ColumnStore) columns[0];
+
+        ColumnStore.Totals totals = store.totals();
+        System.out.printf(Locale.ROOT, "Билетов: %d, сеансов: %d, строк в словаре: %d%n", ticketList.size(), sessions.size(), store.getDictionarySize());
+        print("DefaultTableModel", tableBytes, ticketList.size());
+        print("Объекты (XML)", objectBytes, ticketList.size());
+        print("Столбцовое хранилище", columnBytes, ticketList.size());
+        print("  оценка хранилища", store.getHeapBytes(), ticketList.size());
+        System.out.printf(Locale.ROOT, "Меньше DefaultTableModel в %.1f раза, объектов - в %.1f раза%n",
+                tableBytes / (double) columnBytes, objectBytes / (double) columnBytes);
+        System.out.printf(Locale.ROOT, "Итоги совпадают с репозиторием: %b%n",
+                totals.getSoldRevenue() == repository.getRevenue().getSoldRevenue()
+                        && totals.getReservedRevenue() == repository.getRevenue().getReservedRevenue()
+                        && totals.count(Ticket.STATUS_SOLD) == repository.countTickets(Ticket.STATUS_SOLD));
+    }
+
+    // Строка из файла - отдельный объект, как у строк, разобранных split
+    private static String copy(String s) {
+        return s == null ? null : new String(s.toCharArray());
+    }
+
+    // Прирост занятой кучи после сборки мусора; результат остается в holder[0]
+    private static long measure(Supplier<Object> build, Object[] holder) {
+        long before = usedHeap();
+        holder[0] = build.get();
+        return usedHeap() - before;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+    private static void print(String name, long bytes, int tickets) {
+        System.out.printf(Locale.ROOT, "%-26s %10.1f МБ %8.1f байт/билет%n", name, bytes / (double) (1 << 20), bytes / (double) tickets);
+    }
+}
@@ -0,0 +1,50 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отчеты по срезу данных, как их строят generateSimpleHTML и
+ * createBeautifulPDF, но без кеша отчетов: каждый вызов формирует файлы заново.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"false"})
+    public boolean gzip;
+
+    @Benchmark
+    public List<File> generateSimpleHTML(CinemaData data) throws IOException {
+        CinemaRepository.View view = data.view;
+        return new HtmlReport("Отчет по фильмам кинотеатра", HtmlReport.DEFAULT_PAGE_ROWS, gzip, Runtime.getRuntime().availableProcessors())
+                .addSection("Фильмы", "films", view.filmsTable())
+                .addSection("Сеансы", "sessions", view.sessionsTable())
+                .addSection("Билеты", "tickets", view.ticketsTable())
+                .write(data.out("cinema_films_report.html"), () -> false);
+    }
+
+    @Benchmark
+    public int createBeautifulPDF(CinemaData data) throws IOException {
+        CinemaRepository.View view = data.view;
+        return new PdfReport("Отчет кинотеатра")
+                .addLine("Фильмов в базе: " + view.getFilms().size())
+                .addLine("Сеансов в расписании: " + view.getSessions().size())
+                .addLine("Билетов: " + view.getTickets().size())
+                .addLine("Продано билетов: " + view.getSoldTickets())
+                .addLine("Выручка: " + RevenueEngine.formatRubles(view.getSoldRevenue()) + " руб")
+                .addSection("Фильмы", view.filmsTable())
+                .addSection("Сеансы", view.sessionsTable())
+                .addSection("Билеты", view.ticketsTable())
+                .write(data.out("cinema_films_report.pdf"), () -> false);
+    }
+}
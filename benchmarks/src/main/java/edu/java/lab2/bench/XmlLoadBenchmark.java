@@ -0,0 +1,60 @@
+package edu.java.lab2.bench;
+
+import edu.java.lab2.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import org.xml.sax.SAXException;
+
+import static edu.java.lab2.bench.CinemaDataGenerator.*;
+
+/**
+ * Загрузка XML прежним способом (дерево DOM) против потокового чтения
+ * {@link XmlService} (StAX), от 10 тыс. до 10 млн билетов. На диске - только
+ * три XML-файла, набор в памяти после записи отпускается, чтобы куча
+ * оставалась загрузчикам. Дерево DOM на 10 млн билетов занимает несколько
+ * гигабайт: {@code java -jar benchmarks.jar XmlLoadBenchmark -jvmArgsAppend -Xmx12g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class XmlLoadBenchmark {
+    @Param({"10k", "1m", "10m"})
+    public String tickets;
+
+    @Param("42")
+    public long seed;
+
+    private File dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("cinema-xml-bench").toFile();
+        CinemaRepository repository = CinemaDataGenerator.generate(CinemaDataGenerator.parseCount(tickets), seed).toRepository();
+        CinemaDataGenerator.write(repository, dir, CinemaDataGenerator.Format.XML);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (String name : new String[]{FILMS_XML, SESSIONS_XML, TICKETS_XML}) new File(dir, name).delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public LegacyLoaders.Rows loadDom() throws IOException, ParserConfigurationException, SAXException {
+        return LegacyLoaders.readXmlDom(new File(dir, FILMS_XML), new File(dir, SESSIONS_XML), new File(dir, TICKETS_XML));
+    }
+
+    @Benchmark
+    public DataImport.Batch loadStax() throws IOException, XMLStreamException {
+        return DataImport.readXml(new File(dir, FILMS_XML), new File(dir, SESSIONS_XML), new File(dir, TICKETS_XML), null, () -> false);
+    }
+}
@@ -0,0 +1,106 @@
+package edu.java.lab2;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Сервис продажи билетов без привязки к GUI: бронирование, подтверждение
+ * продажи и освобождение мест. Может вызываться из любого числа потоков
+ * (кассовых терминалов) одновременно. Каждый переход - один CAS по слову
+ * {@link SeatMap}, поэтому место не может быть продано дважды.
+ * Об успешных переходах сообщается слушателям; Swing-интерфейс - один из них
+ * (переносит изменения в таблицу билетов на EDT).
+ */
+public class BookingService {
+
+    /** Успешное изменение места. Вызывается в потоке, выполнившем операцию. */
+    public interface Listener {
+        void seatChanged(String sessionKey, String seat, int oldState, int newState, String time);
+    }
+
+    private static final DateTimeFormatter SALE_TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final Function<String, SeatMap> seatMaps;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /** @param seatMaps поиск карты мест по ключу сеанса (должен быть потокобезопасным) */
+    public BookingService(Function<String, SeatMap> seatMaps) {
+        this.seatMaps = seatMaps;
+    }
+
+    public void addListener(Listener listener) { listeners.add(listener); }
+    public void removeListener(Listener listener) { listeners.remove(listener); }
+
+    /** Бронь свободного места. */
+    public boolean reserve(String sessionKey, String seat) {
+        return transition(sessionKey, seat, SeatMap.FREE, SeatMap.RESERVED);
+    }
+
+    /** Выкуп ранее забронированного места. */
+    public boolean confirmSale(String sessionKey, String seat) {
+        return transition(sessionKey, seat, SeatMap.RESERVED, SeatMap.SOLD);
+    }
+
+    /** Продажа свободного места без предварительной брони. */
+    public boolean sell(String sessionKey, String seat) {
+        return transition(sessionKey, seat, SeatMap.FREE, SeatMap.SOLD);
+    }
+
+    /** Снятие брони; проданное место не затрагивается. */
+    public boolean cancelReservation(String sessionKey, String seat) {
+        return transition(sessionKey, seat, SeatMap.RESERVED, SeatMap.FREE);
+    }
+
+    /** Освобождение забронированного или проданного (возврат) места. */
+    public boolean release(String sessionKey, String seat) {
+        return transition(sessionKey, seat, SeatMap.RESERVED, SeatMap.FREE)
+                || transition(sessionKey, seat, SeatMap.SOLD, SeatMap.FREE);
+    }
+
+    /**
+     * Перевод места в нужное состояние допустимым переходом:
+     * в SOLD - продажей или выкупом брони, в RESERVED - только из FREE, в FREE - освобождением.
+     */
+    public boolean changeState(String sessionKey, String seat, int state) {
+        switch (state) {
+            case SeatMap.SOLD: return confirmSale(sessionKey, seat) || sell(sessionKey, seat);
+            case SeatMap.RESERVED: return reserve(sessionKey, seat);
+            case SeatMap.FREE: return release(sessionKey, seat);
+            default: return false;
+        }
+    }
+
+    /** Обслуживает ли сервис это место (есть сеанс и место входит в схему зала). */
+    public boolean isManaged(String sessionKey, String seat) {
+        SeatMap map = seatMaps.apply(sessionKey);
+        return map != null && map.getLayout().seatIndex(seat) >= 0;
+    }
+
+    // Закрытая карта заменена репозиторием (новая схема зала): переход повторяется по новой
+    protected boolean transition(String sessionKey, String seat, int expected, int state) {
+        while (true) {
+            SeatMap map = seatMaps.apply(sessionKey);
+            if (map == null) return false;
+            int index = map.getLayout().seatIndex(seat);
+            if (index < 0) return false;
+            if (map.compareAndSetState(index, expected, state)) break;
+            if (!map.isClosed()) return false;
+            Thread.onSpinWait();
+        }
+        String time = state == SeatMap.FREE ? "-" : LocalTime.now().format(SALE_TIME);
+        for (Listener listener : listeners) listener.seatChanged(sessionKey, seat, expected, state, time);
+        return true;
+    }
+
+    /** Текстовый статус билета для кода состояния места. */
+    public static String statusName(int state) {
+        switch (state) {
+            case SeatMap.RESERVED: return Ticket.STATUS_RESERVED;
+            case SeatMap.SOLD: return Ticket.STATUS_SOLD;
+            default: return Ticket.STATUS_FREE;
+        }
+    }
+}
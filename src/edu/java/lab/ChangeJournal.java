@@ -0,0 +1,432 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+import javax.swing.SwingUtilities;
+
+/**
+ * Журнал изменений: каждое добавление, изменение и удаление в репозитории
+ * дописывается в конец файла отдельной записью, поэтому сохранение стоит
+ * столько, сколько весит само изменение, а не вся база.
+ *
+ * Записи готовятся в потоке EDT и передаются потоку записи, который
+ * сбрасывает на диск сразу все накопившиеся записи и делает один fsync
+ * на группу (group commit). Журнал опирается на снимок ({@link SnapshotService})
+ * того же поколения: при уплотнении пишется новый снимок, а журнал начинается заново.
+ * После сбоя {@link #recover} читает снимок и повторяет поверх него журнал;
+ * недописанная последняя запись отбрасывается по контрольной сумме.
+ *
+ * Пока журнал не открыт ({@link #open}) или после {@link #fail}, {@link #sync}
+ * не ждет, а сразу сообщает об ошибке: записывать очередь некому. Ошибку
+ * записи или уплотнения, после которой правки перестают сохраняться,
+ * получают слушатели {@link FailureListener} в потоке EDT.
+ *
+ * Формат: "CINEMAJL", int версия, long поколение снимка, затем записи
+ * [int длина][int CRC32][сущность, тип изменения, int строка, строки полей].
+ */
+public final class ChangeJournal implements CinemaRepository.Listener {
+
+    /** Правки больше не сохраняются в журнал; вызывается в потоке EDT. */
+    public interface FailureListener {
+        void journalFailed(IOException cause);
+    }
+
+    private static final byte[] MAGIC = "CINEMAJL".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 8;
+    // Размер журнала, после которого он уплотняется в снимок
+    private static final long COMPACT_BYTES = Long.getLong("cinema.journalCompactBytes", 8L << 20);
+
+    private final CinemaRepository repository;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final List<FailureListener> failureListeners = new CopyOnWriteArrayList<>();
+
+    // Поля EDT
+    private long generation;
+    private long journalBytes;
+    private boolean compactionPending;
+    // Данные заменены целиком, а снимка нового поколения еще нет: записи не пишутся
+    private boolean snapshotDue;
+    // О неудачном снимке уже сообщено: повторные попытки до успешной не сообщаются
+    private boolean snapshotFailureReported;
+    private volatile Thread writer;
+
+    // Номер последней поставленной в очередь и последней записанной на диск записи
+    private final Object durableLock = new Object();
+    private long enqueued;
+    private long durable;
+    private IOException failure;
+
+    public ChangeJournal(CinemaRepository repository, File snapshotFile, File journalFile) {
+        this.repository = repository;
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+        repository.addListener(this);
+    }
+
+    public void addFailureListener(FailureListener listener) { failureListeners.add(listener); }
+    public void removeFailureListener(FailureListener listener) { failureListeners.remove(listener); }
+
+    /** Есть ли сохраненное состояние (снимок или журнал) для восстановления. */
+    public boolean hasSavedState() {
+        return snapshotFile.exists() || journalFile.exists();
+    }
+
+    // ========== Восстановление ==========
+
+    /**
+     * Читает снимок (если он есть) и повторяет поверх него записи журнала.
+     * Журнал другого поколения уже вошел в снимок и пропускается.
+     */
+    public DataImport.Batch recover() throws IOException {
+        DataImport.Batch batch = snapshotFile.exists() ? SnapshotService.read(snapshotFile) : new DataImport.Batch();
+        if (!journalFile.exists()) return batch;
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(java.nio.channels.Channels.newInputStream(channel), 1 << 16));
+            if (readHeader(in) != batch.generation) return batch;
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                if (!apply(batch, payload)) break;
+            }
+        } catch (EOFException ex) {
+            // журнал пустой или без заголовка
+        }
+        return batch;
+    }
+
+    private static long readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) return -1;
+        return in.readLong();
+    }
+
+    // Следующая целая запись или null: конец файла, обрыв или неверная контрольная сумма
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        int length, crc;
+        try {
+            length = in.readInt();
+            crc = in.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        if (length < 6 || length > (64 << 20)) return null;
+        byte[] payload = new byte[length];
+        try {
+            in.readFully(payload);
+        } catch (EOFException ex) {
+            return null;
+        }
+        CRC32 check = new CRC32();
+        check.update(payload);
+        return (int) check.getValue() == crc ? payload : null;
+    }
+
+    // Применяет запись к спискам; false - запись не подходит к данным (журнал поврежден)
+    private static boolean apply(DataImport.Batch batch, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        CinemaRepository.Entity entity = CinemaRepository.Entity.values()[in.readByte()];
+        CinemaRepository.ChangeType type = CinemaRepository.ChangeType.values()[in.readByte()];
+        int row = in.readInt();
+        try {
+            switch (entity) {
+                case FILM: applyChange(batch.films, type, row, () -> new Film(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF())); break;
+                case SESSION: applyChange(batch.sessions, type, row, () -> new Session(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF())); break;
+                default: applyChange(batch.tickets, type, row, () -> new Ticket(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            return true;
+        } catch (IndexOutOfBoundsException ex) {
+            System.err.println("Журнал: запись не соответствует данным, повтор остановлен: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    private interface Decoder<T> {
+        T decode() throws IOException;
+    }
+
+    private static <T> void applyChange(List<T> list, CinemaRepository.ChangeType type, int row, Decoder<T> decoder) throws IOException {
+        switch (type) {
+            case INSERT:
+                if (row != list.size()) throw new IndexOutOfBoundsException("вставка в строку " + row + " из " + list.size());
+                list.add(decoder.decode());
+                break;
+            case UPDATE: list.set(row, decoder.decode()); break;
+            case DELETE: list.remove(row); break;
+            default: break;
+        }
+    }
+
+    // ========== Запись ==========
+
+    /**
+     * Запускает поток записи поверх снимка данного поколения. Журнал того же
+     * поколения продолжается с последней целой записи, иначе начинается заново.
+     */
+    public void open(long snapshotGeneration) {
+        if (writer != null) return;
+        generation = snapshotGeneration;
+        synchronized (durableLock) {
+            failure = null;
+        }
+        Thread thread = new Thread(this::writeLoop, "ChangeJournal");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        if (snapshotDue) compactAfterReload();
+    }
+
+    /**
+     * Журнал не будет открыт (например, восстановление отменено): {@link #sync}
+     * и {@link #close} сразу завершаются с этой ошибкой, а не ждут потока записи.
+     */
+    public void fail(IOException cause) {
+        synchronized (durableLock) {
+            if (writer == null) failure = cause;
+            durableLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void repositoryChanged(CinemaRepository.Entity entity, CinemaRepository.ChangeType type, int firstRow, int lastRow) {
+        if (type == CinemaRepository.ChangeType.RELOAD) {
+            // Загрузка заменила все данные: номера строк следующих записей относятся уже
+            // к новым данным, поэтому снимок нового поколения пишется сразу, до них.
+            // Замена всех данных сообщает RELOAD по каждой сущности подряд - снимок нужен один
+            if (entity != CinemaRepository.Entity.FILM) return;
+            snapshotDue = true;
+            if (writer != null) compactAfterReload();
+            return;
+        }
+        if (snapshotDue) {
+            // изменение попадет в снимок, который еще не удалось записать
+            if (writer != null) scheduleCompaction();
+            return;
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            byte[] record = encode(entity, type, row);
+            journalBytes += record.length;
+            enqueue(new Entry(record, 0));
+        }
+        if (journalBytes > COMPACT_BYTES) scheduleCompaction();
+    }
+
+    private byte[] encode(CinemaRepository.Entity entity, CinemaRepository.ChangeType type, int row) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(entity.ordinal());
+            out.writeByte(type.ordinal());
+            out.writeInt(row);
+            if (type != CinemaRepository.ChangeType.DELETE) {
+                switch (entity) {
+                    case FILM: {
+                        Film f = repository.getFilm(row);
+                        writeAll(out, f.getTitle(), f.getDirector(), f.getYear(), f.getGenre(), f.getDuration());
+                        break;
+                    }
+                    case SESSION: {
+                        Session s = repository.getSession(row);
+                        writeAll(out, s.getFilm(), s.getDate(), s.getTime(), s.getHall(), s.getPrice());
+                        break;
+                    }
+                    default: {
+                        Ticket t = repository.getTicket(row);
+                        writeAll(out, t.getSession(), t.getSeat(), t.getStatus(), t.getSaleTime());
+                    }
+                }
+            }
+            byte[] record = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(record, 8, record.length - 8);
+            ByteBuffer.wrap(record).putInt(record.length - 8).putInt((int) crc.getValue());
+            return record;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeAll(DataOutputStream out, String... values) throws IOException {
+        for (String v : values) out.writeUTF(v);
+    }
+
+    private void enqueue(Entry entry) {
+        synchronized (durableLock) {
+            entry.sequence = ++enqueued;
+        }
+        queue.add(entry);
+    }
+
+    /**
+     * Ждет, пока все записи, поставленные в очередь до вызова, окажутся на диске.
+     * Стоимость - один fsync, независимо от размера базы.
+     */
+    public void sync() throws IOException, InterruptedException {
+        synchronized (durableLock) {
+            if (failure != null) throw failure;
+            if (writer == null) throw new IOException("Журнал не открыт: изменения не записываются");
+            long target = enqueued;
+            while (durable < target && failure == null) durableLock.wait();
+            if (failure != null) throw failure;
+        }
+    }
+
+    /**
+     * Уплотнение (EDT): новый снимок следующего поколения со всеми данными,
+     * после чего журнал начинается заново. Сбой между этими шагами не опасен:
+     * журнал старого поколения при восстановлении пропускается.
+     */
+    public void compact() throws IOException {
+        if (writer == null) throw new IOException("Журнал не открыт: снимок не записан");
+        compactionPending = false;
+        SnapshotService.write(snapshotFile, repository, generation + 1);
+        generation++;
+        journalBytes = 0;
+        snapshotDue = false;
+        snapshotFailureReported = false;
+        enqueue(new Entry(null, generation));
+    }
+
+    // Не вышло - записи не пишутся, пока снимок не удастся записать при следующем изменении
+    private void compactAfterReload() {
+        try {
+            compact();
+        } catch (IOException ex) {
+            snapshotFailed(ex);
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactionPending) return;
+        compactionPending = true;
+        SwingUtilities.invokeLater(() -> {
+            if (!compactionPending) return;
+            try {
+                compact();
+            } catch (IOException ex) {
+                snapshotFailed(ex);
+            }
+        });
+    }
+
+    private void snapshotFailed(IOException ex) {
+        if (snapshotFailureReported) return;
+        snapshotFailureReported = true;
+        reportFailure(new IOException("не удалось записать снимок: " + ex.getMessage(), ex));
+    }
+
+    private void reportFailure(IOException cause) {
+        for (FailureListener listener : failureListeners) listener.journalFailed(cause);
+    }
+
+    /** Дописывает очередь на диск - перед выходом из программы. */
+    public void close() {
+        try {
+            sync();
+        } catch (IOException | InterruptedException ex) {
+            System.err.println("Журнал: " + ex.getMessage());
+        }
+    }
+
+    // ========== Поток записи ==========
+
+    private void writeLoop() {
+        List<Entry> group = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            startJournal(channel, generation);
+            while (true) {
+                group.add(queue.take());
+                queue.drainTo(group);
+                long last = 0;
+                boolean dirty = false;
+                for (Entry e : group) {
+                    if (e.record == null) {
+                        if (dirty) channel.force(false);
+                        resetJournal(channel, e.generation);
+                        dirty = false;
+                    } else {
+                        ByteBuffer buf = ByteBuffer.wrap(e.record);
+                        while (buf.hasRemaining()) channel.write(buf);
+                        dirty = true;
+                    }
+                    last = e.sequence;
+                }
+                if (dirty) channel.force(false);
+                group.clear();
+                synchronized (durableLock) {
+                    durable = last;
+                    durableLock.notifyAll();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            synchronized (durableLock) {
+                failure = new InterruptedIOException("Поток записи журнала остановлен");
+                durableLock.notifyAll();
+            }
+        } catch (IOException ex) {
+            synchronized (durableLock) {
+                failure = ex;
+                durableLock.notifyAll();
+            }
+            // поток записи завершен: следующие правки только копятся в очереди
+            SwingUtilities.invokeLater(() -> reportFailure(ex));
+        }
+    }
+
+    // Продолжает журнал того же поколения после последней целой записи
+    private void startJournal(FileChannel channel, long gen) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(java.nio.channels.Channels.newInputStream(channel.position(0)), 1 << 16));
+        long valid = -1;
+        try {
+            if (readHeader(in) == gen) {
+                valid = HEADER_SIZE;
+                byte[] payload;
+                while ((payload = readRecord(in)) != null) valid += 8 + payload.length;
+            }
+        } catch (EOFException ex) {
+            valid = -1;
+        }
+        if (valid < 0) {
+            resetJournal(channel, gen);
+        } else {
+            channel.truncate(valid);
+            channel.position(valid);
+        }
+    }
+
+    private void resetJournal(FileChannel channel, long gen) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).putInt(VERSION).putLong(gen).flip();
+        channel.position(0);
+        while (header.hasRemaining()) channel.write(header);
+        channel.force(true);
+    }
+
+    /** Запись журнала или команда начать журнал заново (record == null). */
+    private static final class Entry {
+        final byte[] record;
+        final long generation;
+        long sequence;
+
+        Entry(byte[] record, long generation) {
+            this.record = record;
+            this.generation = generation;
+        }
+    }
+}
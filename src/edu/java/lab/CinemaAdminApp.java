@@ -3,18 +3,25 @@ package edu.java.lab2;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.*;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.w3c.dom.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import javax.xml.stream.XMLStreamException;
 
 public class CinemaAdminApp {
     private JFrame mainFrame;
@@ -23,20 +30,67 @@ public class CinemaAdminApp {
     private JButton printReport, saveData, loadData, saveXML, loadXML;
     private JButton generatePDF, generateHTML;
     private JButton runThreadsButton;
+    private JLabel pipelineStatus;
+    private JLabel jobStatus;
     private JTable filmsTable, sessionsTable, ticketsTable;
-    private DefaultTableModel filmsModel, sessionsModel, ticketsModel;
+    private final CinemaRepository repository = new CinemaRepository();
+    private final BookingService bookingService = new BookingService(repository::getSeatMap);
+    // Срок брони настраивается: -Dcinema.reservationHoldMinutes=30
+    private final ReservationExpiry reservationExpiry = new ReservationExpiry(bookingService,
+            Long.getLong("cinema.reservationHoldMinutes", 15), TimeUnit.MINUTES);
+    private FilmTableModel filmsModel;
+    private SessionTableModel sessionsModel;
+    private TicketTableModel ticketsModel;
     private JComboBox<String> filmFilter;
     private JTextField dateFilter;
+    private JTextField hallFilter;
+    private JComboBox<String> statusFilter;
     private JButton searchButton;
+    private JLabel searchResultLabel;
+    private TableRowSorter<SessionTableModel> sessionsSorter;
+    private RankRowSorter<TicketTableModel> ticketsSorter;
+    // Действующий поиск: после изменения данных фильтр пересчитывается
+    private SearchCriteria activeSearch;
+    private boolean searchRefreshPending;
+    // Журнал изменений поверх снимка: каждое изменение сохраняется сразу
+    private final ChangeJournal journal = new ChangeJournal(repository, new File(SNAPSHOT_FILE), new File(JOURNAL_FILE));
+    // Идущая фоновая загрузка (одновременно - не больше одной)
+    private ImportWorker importWorker;
+    // Отчеты и выгрузки: -Dcinema.jobMode=virtual|platform, -Dcinema.jobThreads=N (размер пула)
+    private final JobExecutor jobs = JobExecutor.create(
+            JobExecutor.Mode.valueOf(System.getProperty("cinema.jobMode", "virtual").toUpperCase(Locale.ROOT)),
+            Integer.getInteger("cinema.jobThreads", Math.max(8, 4 * Runtime.getRuntime().availableProcessors())));
+    private final AtomicBoolean jobStatusPending = new AtomicBoolean();
+    // Готовые отчеты и таблицы разделов по версиям данных; -Dcinema.reportCacheMb=N
+    private static final ReportCache reportCache = new ReportCache(Long.getLong("cinema.reportCacheMb", 64) << 20);
 
     private static final String XML_FILMS_FILE = "films.xml";
     private static final String XML_SESSIONS_FILE = "sessions.xml";
     private static final String XML_TICKETS_FILE = "tickets.xml";
-
-    // CountDownLatch - механизм синхронизации потоков
-    // Позволяет потоку ждать, пока другие потоки не выполнят свою работу
-    private CountDownLatch latchLoad;
-    private CountDownLatch latchEdit;
+    private static final String SNAPSHOT_FILE = "cinema.snapshot";
+    private static final String JOURNAL_FILE = "cinema.journal";
+    private static final String EXPORT_DIR = "exports";
+    private static final boolean HTML_GZIP = Boolean.getBoolean("cinema.htmlGzip");
+    // Параллельное чтение XML; -Dcinema.parallelLoad=false - последовательное
+    private static final boolean PARALLEL_LOAD = Boolean.parseBoolean(System.getProperty("cinema.parallelLoad", "true"));
+
+    // Замеры операций ввода-вывода и отчетов: панель "Производительность" и события JFR;
+    // -Dcinema.metricsFile=путь - снимок счетчиков в файл при выходе
+    private static final Metrics.Timer XML_LOAD = Metrics.timer("Загрузка XML");
+    private static final Metrics.Timer XML_SAVE = Metrics.timer("Сохранение XML");
+    private static final Metrics.Timer TEXT_LOAD = Metrics.timer("Загрузка текста");
+    private static final Metrics.Timer TEXT_SAVE = Metrics.timer("Сохранение текста");
+    private static final Metrics.Timer SNAPSHOT_LOAD = Metrics.timer("Открытие снимка");
+    private static final Metrics.Timer SNAPSHOT_SAVE = Metrics.timer("Сохранение снимка");
+    private static final Metrics.Timer HTML_REPORT = Metrics.timer("HTML отчет");
+    private static final Metrics.Timer PDF_REPORT = Metrics.timer("PDF отчет");
+    private static final String METRICS_FILE = System.getProperty("cinema.metricsFile");
+    private static final int MAX_REPORTED_CONFLICTS = 1000;
+    private JDialog metricsDialog;
+
+    // Конвейер "загрузка -> разбор -> сборка -> правка -> сохранение -> отчет"
+    private Pipeline pipeline;
+    private javax.swing.Timer pipelinePoll;
     // ==============================================
     /**
      * =============================================================================
@@ -46,7 +100,8 @@ public class CinemaAdminApp {
      * - GUI Layer: CinemaAdminApp (Swing). Обработка событий пользователя.
      * - Repository Layer: CinemaRepository. Инкапсуляция списков Film и Session.
      * - Service Layer: XmlService. Сериализация данных в формат XML.
-     * - Pipeline Layer: ReportPipeline. Координация многопоточных процессов.
+     * - Pipeline Layer: Pipeline. Этапы обработки в своих потоках, связанные очередями.
+     * - Job Layer: JobExecutor. Отчеты и выгрузки - фоновые задания над срезом данных.
      *
      * 2. ОБЪЕКТНО-ОРИЕНТИРОВАННОЕ ПРОЕКТИРОВАНИЕ (ООП):
      * - ИНКАПСУЛЯЦИЯ: Доступ к полям сущностей (Film, Session) через Getter/Setter.
@@ -54,9 +109,10 @@ public class CinemaAdminApp {
      * - ПОЛИМОРФИЗМ: Использование кастомных моделей таблиц (AbstractTableModel).
      *
      * 3. МНОГОПОТОЧНОСТЬ И СИНХРОНИЗАЦИЯ (ЛАБОРАТОРНАЯ №8):
-     * - Механизм: java.util.concurrent.CountDownLatch(2).
-     * - Логика: Главный поток (Reporter) ждет выполнения двух параллельных потоков:
-     * Thread 1 (Loader) и Thread 2 (Editor) вызывают countDown().
+     * - Механизм: конвейер Pipeline, этапы связаны ограниченными BlockingQueue.
+     * - Логика: Загрузка -> Разбор (несколько потоков) -> Сборка -> Правка ->
+     * Сохранение -> Отчет; этапы работают одновременно, полная очередь
+     * притормаживает предыдущий этап (обратное давление).
      * - Результат: Отчет формируется строго после завершения обработки данных.
      *
      * 4. ТЕСТИРОВАНИЕ:
@@ -65,7 +121,20 @@ public class CinemaAdminApp {
      */
     public void show() {
         initializeGUI();
-        addTestData();
+        journal.addFailureListener(ex -> JOptionPane.showMessageDialog(mainFrame,
+                "Изменения больше не записываются в журнал: " + ex.getMessage() + "\nСохраните данные в файл, чтобы не потерять правки.",
+                "Ошибка журнала", JOptionPane.ERROR_MESSAGE));
+        // Сохраненное состояние: снимок и журнал изменений после него, иначе - демо-данные
+        if (journal.hasSavedState()) {
+            // Журнал открывается или отказывает на любом исходе, иначе sync() и выход ждали бы записи вечно;
+            // без восстановления он не открывается, чтобы не затереть несчитанный журнал
+            startImport("Восстановление данных", (progress, cancelled) -> recoverSnapshot(), batch -> journal.open(batch.generation),
+                    () -> journal.fail(new IOException("данные не восстановлены, журнал не открыт")));
+        } else {
+            addTestData();
+            journal.open(0);
+        }
+        reservationExpiry.start();
     }
 
     private void initializeGUI() {
@@ -73,6 +142,12 @@ public class CinemaAdminApp {
         mainFrame.setSize(1200, 720);
         mainFrame.setLocationRelativeTo(null);
         mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        mainFrame.addWindowListener(new WindowAdapter() {
+            @Override public void windowClosing(WindowEvent e) {
+                journal.close();
+                dumpMetrics();
+            }
+        });
 
         createMenuBar();
         createToolBar();
@@ -89,17 +164,37 @@ public class CinemaAdminApp {
         JMenuItem loadXMLItem = new JMenuItem("Загрузить из XML");
         JMenuItem saveTextItem = new JMenuItem("Сохранить в текстовый файл");
         JMenuItem loadTextItem = new JMenuItem("Загрузить из текстового файла");
+        JMenuItem saveSnapshotItem = new JMenuItem("Сохранить снимок");
+        JMenuItem loadSnapshotItem = new JMenuItem("Открыть снимок");
+        JMenuItem browseSnapshotItem = new JMenuItem("Просмотр билетов снимка...");
         JMenuItem generatePDFItem = new JMenuItem("Сгенерировать PDF отчет");
         JMenuItem generateHTMLItem = new JMenuItem("Сгенерировать HTML отчет");
+        JMenuItem exportFilmsItem = new JMenuItem("Выгрузить HTML по фильмам");
+        JMenuItem cancelJobsItem = new JMenuItem("Отменить фоновые задания");
+        JMenuItem metricsItem = new JMenuItem("Производительность...");
+        JMenuItem memoryItem = new JMenuItem("Отчет о памяти");
+        JMenuItem validateScheduleItem = new JMenuItem("Проверить расписание залов");
         JMenuItem exitItem = new JMenuItem("Выход");
 
         saveXMLItem.addActionListener(e -> saveAllDataToXML());
         loadXMLItem.addActionListener(e -> loadAllDataFromXML());
         saveTextItem.addActionListener(e -> saveAllDataToFile());
         loadTextItem.addActionListener(e -> loadAllDataFromFile());
+        saveSnapshotItem.addActionListener(e -> saveSnapshot());
+        loadSnapshotItem.addActionListener(e -> loadSnapshot());
+        browseSnapshotItem.addActionListener(e -> browseSnapshotTickets());
         generatePDFItem.addActionListener(e -> generatePDFReport());
         generateHTMLItem.addActionListener(e -> generateHTMLReport());
-        exitItem.addActionListener(e -> System.exit(0));
+        exportFilmsItem.addActionListener(e -> exportFilmsHTML());
+        cancelJobsItem.addActionListener(e -> jobs.cancelAll());
+        metricsItem.addActionListener(e -> showMetrics());
+        memoryItem.addActionListener(e -> showMemoryReport());
+        validateScheduleItem.addActionListener(e -> validateSchedule());
+        exitItem.addActionListener(e -> {
+            journal.close();
+            dumpMetrics();
+            System.exit(0);
+        });
 
         fileMenu.add(saveXMLItem);
         fileMenu.add(loadXMLItem);
@@ -107,8 +202,18 @@ public class CinemaAdminApp {
         fileMenu.add(saveTextItem);
         fileMenu.add(loadTextItem);
         fileMenu.addSeparator();
+        fileMenu.add(saveSnapshotItem);
+        fileMenu.add(loadSnapshotItem);
+        fileMenu.add(browseSnapshotItem);
+        fileMenu.addSeparator();
         fileMenu.add(generatePDFItem);
         fileMenu.add(generateHTMLItem);
+        fileMenu.add(exportFilmsItem);
+        fileMenu.add(validateScheduleItem);
+        fileMenu.add(cancelJobsItem);
+        fileMenu.addSeparator();
+        fileMenu.add(metricsItem);
+        fileMenu.add(memoryItem);
         fileMenu.addSeparator();
         fileMenu.add(exitItem);
 
@@ -131,6 +236,13 @@ public class CinemaAdminApp {
         generatePDF = new JButton("PDF отчет");
         generateHTML = new JButton("HTML отчет");
         runThreadsButton = new JButton("Запустить потоки ");
+        pipelineStatus = new JLabel(" ");
+        jobStatus = new JLabel(" ");
+        jobStatus.setToolTipText("Фоновые задания: режим " + jobs.getMode());
+        jobs.addListener(job -> {
+            // события заданий приходят из их потоков; в EDT - не больше одного обновления за раз
+            if (jobStatusPending.compareAndSet(false, true)) SwingUtilities.invokeLater(this::showJobStatus);
+        });
 
         addFilm.setToolTipText("Добавить новый фильм");
         editFilm.setToolTipText("Редактировать выбранный фильм");
@@ -143,7 +255,7 @@ public class CinemaAdminApp {
         loadXML.setToolTipText("Загрузить из XML");
         generatePDF.setToolTipText("Сгенерировать PDF");
         generateHTML.setToolTipText("Сгенерировать HTML");
-        runThreadsButton.setToolTipText("Запустить Loader -> Editor -> Reporter");
+        runThreadsButton.setToolTipText("Запустить конвейер: загрузка -> правка -> сохранение -> отчет");
 
         addFilm.addActionListener(e -> addNewFilm());
         editFilm.addActionListener(e -> editSelectedFilm());
@@ -156,7 +268,7 @@ public class CinemaAdminApp {
         loadXML.addActionListener(e -> loadAllDataFromXML());
         generatePDF.addActionListener(e -> generatePDFReport());
         generateHTML.addActionListener(e -> generateHTMLReport());
-        runThreadsButton.addActionListener(e -> startThreeThreads());
+        runThreadsButton.addActionListener(e -> startPipeline());
 
         toolBar.add(addFilm);
         toolBar.add(editFilm);
@@ -175,6 +287,10 @@ public class CinemaAdminApp {
         toolBar.add(generateHTML);
         toolBar.addSeparator();
         toolBar.add(runThreadsButton);
+        toolBar.addSeparator();
+        toolBar.add(pipelineStatus);
+        toolBar.addSeparator();
+        toolBar.add(jobStatus);
 
         mainFrame.add(toolBar, BorderLayout.NORTH);
     }
@@ -188,22 +304,37 @@ public class CinemaAdminApp {
      * при отсутствии доступа к файловой системе или повреждении файлов.
      */
     
-    public void saveToXML(String path) { ... }
+    public void saveToXML(String path) throws IOException {
+        File dir = new File(path);
+        XmlService.writeFilms(new File(dir, XML_FILMS_FILE), filmsModel);
+        XmlService.writeSessions(new File(dir, XML_SESSIONS_FILE), sessionsModel);
+        XmlService.writeTickets(new File(dir, XML_TICKETS_FILE), ticketsModel);
+    }
+
     private void createTables() {
-        String[] filmsColumns = {"Название", "Режиссер", "Год", "Жанр", "Длительность"};
-        filmsModel = new DefaultTableModel(filmsColumns, 0) {
-            @Override public boolean isCellEditable(int row, int column) { return false; }
-        };
+        filmsModel = new FilmTableModel(repository);
         filmsTable = new JTable(filmsModel);
         filmsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
-        String[] sessionsColumns = {"Фильм", "Дата", "Время", "Зал", "Цена"};
-        sessionsModel = new DefaultTableModel(sessionsColumns, 0);
+        sessionsModel = new SessionTableModel(repository);
         sessionsTable = new JTable(sessionsModel);
+        sessionsSorter = new TableRowSorter<>(sessionsModel);
+        sessionsTable.setRowSorter(sessionsSorter);
 
-        String[] ticketsColumns = {"Сеанс", "Место", "Статус", "Время продажи"};
-        ticketsModel = new DefaultTableModel(ticketsColumns, 0);
+        ticketsModel = new TicketTableModel(repository);
+        ticketsModel.setBookingService(bookingService);
         ticketsTable = new JTable(ticketsModel);
+        // Билетов могут быть миллионы: порядок строится подсчетом по рангам значений, а не сравнением строк
+        ticketsSorter = new RankRowSorter<>(ticketsModel);
+        ticketsTable.setRowSorter(ticketsSorter);
+        repository.addListener((entity, type, firstRow, lastRow) -> scheduleSearchRefresh());
+        // Интерфейс - один из клиентов сервиса продаж: изменения мест любых касс попадают в таблицу на EDT
+        bookingService.addListener((sessionKey, seat, oldState, newState, time) ->
+                SwingUtilities.invokeLater(() -> repository.syncSeat(sessionKey, seat, newState, time)));
+        // Загрузка заменяет все билеты: брони прежних данных не должны снять места новых
+        repository.addListener((entity, type, firstRow, lastRow) -> {
+            if (entity == CinemaRepository.Entity.TICKET && type == CinemaRepository.ChangeType.RELOAD) reservationExpiry.clear();
+        });
 
         filmsTable.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent e) {
@@ -230,12 +361,19 @@ public class CinemaAdminApp {
     private void createSearchPanel() {
         JPanel searchPanel = new JPanel(new FlowLayout());
 
-        filmFilter = new JComboBox<>();
-        filmFilter.addItem("Все фильмы");
+        FilmComboModel filmFilterModel = new FilmComboModel(repository.getFilmTitleIndex(), "Все фильмы");
+        filmFilter = new JComboBox<>(filmFilterModel);
+        JTextField filmPrefix = createTitlePrefixField(filmFilterModel);
 
-        dateFilter = new JTextField("Дата (дд.мм.гггг)", 12);
+        dateFilter = new JTextField("Дата (дд.мм.гггг)", 16);
+        dateFilter.setToolTipText("Дата дд.мм.гггг или диапазон дд.мм.гггг-дд.мм.гггг");
+        hallFilter = new JTextField(8);
+        statusFilter = new JComboBox<>(new String[]{"Все статусы", Ticket.STATUS_FREE, Ticket.STATUS_RESERVED, Ticket.STATUS_SOLD});
         searchButton = new JButton("Найти");
         searchButton.addActionListener(e -> performSearch());
+        JButton resetButton = new JButton("Сбросить");
+        resetButton.addActionListener(e -> clearSearch());
+        searchResultLabel = new JLabel(" ");
 
         dateFilter.addFocusListener(new FocusAdapter() {
             public void focusGained(FocusEvent e) {
@@ -247,10 +385,17 @@ public class CinemaAdminApp {
         });
 
         searchPanel.add(new JLabel("Фильтр по фильму:"));
+        searchPanel.add(filmPrefix);
         searchPanel.add(filmFilter);
         searchPanel.add(new JLabel("Дата:"));
         searchPanel.add(dateFilter);
+        searchPanel.add(new JLabel("Зал:"));
+        searchPanel.add(hallFilter);
+        searchPanel.add(new JLabel("Статус:"));
+        searchPanel.add(statusFilter);
         searchPanel.add(searchButton);
+        searchPanel.add(resetButton);
+        searchPanel.add(searchResultLabel);
 
         mainFrame.add(searchPanel, BorderLayout.SOUTH);
     }
@@ -282,8 +427,7 @@ public class CinemaAdminApp {
                 JOptionPane.showMessageDialog(mainFrame, "Все поля должны быть заполнены!", "Ошибка", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            filmsModel.addRow(new Object[]{title, director, year, genre, duration});
-            updateFilmFilter();
+            repository.addFilm(new Film(title, director, year, genre, duration));
             JOptionPane.showMessageDialog(mainFrame, "Фильм '" + title + "' успешно добавлен!", "Успех", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -294,17 +438,13 @@ public class CinemaAdminApp {
             JOptionPane.showMessageDialog(mainFrame, "Пожалуйста, выберите фильм для редактирования!", "Ошибка", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        String currentTitle = (String) filmsModel.getValueAt(selectedRow, 0);
-        String currentDirector = (String) filmsModel.getValueAt(selectedRow, 1);
-        String currentYear = (String) filmsModel.getValueAt(selectedRow, 2);
-        String currentGenre = (String) filmsModel.getValueAt(selectedRow, 3);
-        String currentDuration = (String) filmsModel.getValueAt(selectedRow, 4);
+        Film current = repository.getFilm(selectedRow);
 
-        JTextField titleField = new JTextField(currentTitle);
-        JTextField directorField = new JTextField(currentDirector);
-        JTextField yearField = new JTextField(currentYear);
-        JTextField genreField = new JTextField(currentGenre);
-        JTextField durationField = new JTextField(currentDuration);
+        JTextField titleField = new JTextField(current.getTitle());
+        JTextField directorField = new JTextField(current.getDirector());
+        JTextField yearField = new JTextField(current.getYear());
+        JTextField genreField = new JTextField(current.getGenre());
+        JTextField durationField = new JTextField(current.getDuration());
 
         Object[] message = {
             "Название фильма:", titleField,
@@ -316,12 +456,7 @@ public class CinemaAdminApp {
 
         int option = JOptionPane.showConfirmDialog(mainFrame, message, "Редактирование фильма", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
-            filmsModel.setValueAt(titleField.getText(), selectedRow, 0);
-            filmsModel.setValueAt(directorField.getText(), selectedRow, 1);
-            filmsModel.setValueAt(yearField.getText(), selectedRow, 2);
-            filmsModel.setValueAt(genreField.getText(), selectedRow, 3);
-            filmsModel.setValueAt(durationField.getText(), selectedRow, 4);
-            updateFilmFilter();
+            repository.updateFilm(selectedRow, new Film(titleField.getText(), directorField.getText(), yearField.getText(), genreField.getText(), durationField.getText()));
             JOptionPane.showMessageDialog(mainFrame, "Фильм успешно отредактирован!", "Успех", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -332,22 +467,22 @@ public class CinemaAdminApp {
             JOptionPane.showMessageDialog(mainFrame, "Пожалуйста, выберите фильм для удаления!", "Ошибка", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        String filmTitle = (String) filmsModel.getValueAt(selectedRow, 0);
+        String filmTitle = repository.getFilm(selectedRow).getTitle();
         int confirm = JOptionPane.showConfirmDialog(mainFrame, "Вы уверены, что хотите удалить фильм: " + filmTitle + "?", "Подтверждение удаления", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            filmsModel.removeRow(selectedRow);
-            updateFilmFilter();
+            repository.removeFilm(selectedRow);
             JOptionPane.showMessageDialog(mainFrame, "Фильм '" + filmTitle + "' удален!", "Успех", JOptionPane.INFORMATION_MESSAGE);
         }
     }
 
     private void addNewSession() {
-        if (filmsModel.getRowCount() == 0) {
+        if (repository.getFilmCount() == 0) {
             JOptionPane.showMessageDialog(mainFrame, "Сначала добавьте фильмы!", "Ошибка", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        JComboBox<String> filmCombo = new JComboBox<>();
-        for (int i = 0; i < filmsModel.getRowCount(); i++) filmCombo.addItem((String) filmsModel.getValueAt(i, 0));
+        FilmComboModel filmModel = new FilmComboModel(repository.getFilmTitleIndex(), null);
+        JComboBox<String> filmCombo = new JComboBox<>(filmModel);
+        JTextField filmPrefix = createTitlePrefixField(filmModel);
 
         JTextField dateField = new JTextField("15.12.2025");
         JTextField timeField = new JTextField("18:00");
@@ -355,6 +490,7 @@ public class CinemaAdminApp {
         JTextField priceField = new JTextField("350 руб");
 
         Object[] message = {
+            "Поиск фильма:", filmPrefix,
             "Фильм:", filmCombo,
             "Дата:", dateField,
             "Время:", timeField,
@@ -363,59 +499,141 @@ public class CinemaAdminApp {
         };
 
         int option = JOptionPane.showConfirmDialog(mainFrame, message, "Добавление нового сеанса", JOptionPane.OK_CANCEL_OPTION);
-        if (option == JOptionPane.OK_OPTION) {
-            sessionsModel.addRow(new Object[]{filmCombo.getSelectedItem(), dateField.getText(), timeField.getText(), hallField.getText(), priceField.getText()});
-            String sessionName = filmCombo.getSelectedItem() + " " + timeField.getText();
-            ticketsModel.addRow(new Object[]{sessionName, "A1", "Свободно", "-"});
-            JOptionPane.showMessageDialog(mainFrame, "Сеанс успешно добавлен!", "Успех", JOptionPane.INFORMATION_MESSAGE);
+        filmModel.dispose();
+        if (option == JOptionPane.OK_OPTION && filmCombo.getSelectedItem() != null) {
+            Session session = new Session(String.valueOf(filmCombo.getSelectedItem()), dateField.getText(), timeField.getText(), hallField.getText(), priceField.getText());
+            if (!confirmSchedule(session)) return;
+            repository.addSession(session);
+            SeatMap seats = repository.getSeatMap(session.getKey());
+            JOptionPane.showMessageDialog(mainFrame, "Сеанс успешно добавлен!\nСвободных мест: " + seats.getFreeCount() + " из " + seats.getLayout().getCapacity(), "Успех", JOptionPane.INFORMATION_MESSAGE);
         }
     }
 
+    // Зал занят другим сеансом (с учетом длительности фильма и уборки) - добавить можно только явно
+    private boolean confirmSchedule(Session session) {
+        java.util.List<HallSchedule.Slot> conflicts = repository.findConflicts(session);
+        if (conflicts.isEmpty()) return true;
+        StringBuilder text = new StringBuilder(session.getHall() + " занят в это время (уборка " + HallSchedule.CLEANING_MINUTES + " мин):");
+        for (int i = 0; i < conflicts.size() && i < 10; i++) text.append("\n  ").append(conflicts.get(i));
+        if (conflicts.size() > 10) text.append("\n  ... еще ").append(conflicts.size() - 10);
+        text.append("\n\nВсе равно добавить сеанс?");
+        return JOptionPane.showConfirmDialog(mainFrame, text.toString(), "Пересечение сеансов", JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
+    }
+
+    // Текст отчета зависит только от данных, поэтому берется из кеша; время - всегда текущее
     private void generateReport() {
-        int filmCount = filmsModel.getRowCount();
-        int sessionCount = sessionsModel.getRowCount();
-        int ticketCount = ticketsModel.getRowCount();
-        int soldTickets = 0;
-        for (int i = 0; i < ticketCount; i++) {
-            String status = String.valueOf(ticketsModel.getValueAt(i, 2));
-            if ("Продан".equals(status)) soldTickets++;
-        }
-        String report = String.format("ОТЧЕТ КИНОТЕАТРА\n\nКоличество фильмов: %d\nКоличество сеансов: %d\nВсего билетов: %d\nПроданных билетов: %d\nДоход: %d руб.\n\nОтчет сгенерирован: %s", filmCount, sessionCount, ticketCount, soldTickets, soldTickets * 350, new java.util.Date().toString());
+        String body = reportCache.get(quickReportKey());
+        if (body == null) {
+            body = quickReportBody();
+            reportCache.put(quickReportKey(), body, 2L * body.length());
+        }
+        String report = body + "\n\nОтчет сгенерирован: " + new java.util.Date();
         JOptionPane.showMessageDialog(mainFrame, report, "Быстрый отчет", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    private ReportCache.Key quickReportKey() {
+        return new ReportCache.Key("quick", "", repository.getVersion(CinemaRepository.Entity.FILM),
+                repository.getVersion(CinemaRepository.Entity.SESSION), repository.getVersion(CinemaRepository.Entity.TICKET));
+    }
+
+    private String quickReportBody() {
+        int filmCount = repository.getFilmCount();
+        int sessionCount = repository.getSessionCount();
+        int ticketCount = repository.getTicketCount();
+        int soldTickets = countSoldTickets();
+        RevenueEngine revenue = repository.getRevenue();
+        StringBuilder byFilm = new StringBuilder();
+        for (Map.Entry<String, Long> e : revenue.getRevenueByFilm().entrySet()) {
+            byFilm.append("\n  ").append(e.getKey()).append(": ").append(RevenueEngine.formatRubles(e.getValue())).append(" руб.");
+        }
+        return String.format("ОТЧЕТ КИНОТЕАТРА\n\nКоличество фильмов: %d\nКоличество сеансов: %d\nВсего билетов: %d\nПроданных билетов: %d\nДоход: %s руб.%s", filmCount, sessionCount, ticketCount, soldTickets, RevenueEngine.formatRubles(revenue.getSoldRevenue()), byFilm);
+    }
+
     private void showFilmDetails() {
         int row = filmsTable.getSelectedRow();
         if (row == -1) return;
-        String title = String.valueOf(filmsModel.getValueAt(row, 0));
-        String director = String.valueOf(filmsModel.getValueAt(row, 1));
-        String year = String.valueOf(filmsModel.getValueAt(row, 2));
-        String genre = String.valueOf(filmsModel.getValueAt(row, 3));
-        String duration = String.valueOf(filmsModel.getValueAt(row, 4));
-        String filmInfo = String.format("Детальная информация о фильме:\n\nНазвание: %s\nРежиссер: %s\nГод выпуска: %s\nЖанр: %s\nДлительность: %s", title, director, year, genre, duration);
-        JOptionPane.showMessageDialog(mainFrame, filmInfo, "Информация о фильме: " + title, JOptionPane.INFORMATION_MESSAGE);
+        Film film = repository.getFilm(row);
+        String filmInfo = String.format("Детальная информация о фильме:\n\nНазвание: %s\nРежиссер: %s\nГод выпуска: %s\nЖанр: %s\nДлительность: %s", film.getTitle(), film.getDirector(), film.getYear(), film.getGenre(), film.getDuration());
+        JOptionPane.showMessageDialog(mainFrame, filmInfo, "Информация о фильме: " + film.getTitle(), JOptionPane.INFORMATION_MESSAGE);
     }
 
     private void performSearch() {
-        String selectedFilm = String.valueOf(filmFilter.getSelectedItem());
-        String date = dateFilter.getText();
-        String searchMessage;
-        if (date.equals("Дата (дд.мм.гггг)")) searchMessage = String.format("Поиск по фильму: %s\nДата: не указана", selectedFilm);
-        else searchMessage = String.format("Поиск по фильму: %s\nДата: %s", selectedFilm, date);
-        JOptionPane.showMessageDialog(mainFrame, searchMessage, "Результаты поиска", JOptionPane.INFORMATION_MESSAGE);
+        Object selectedFilm = filmFilter.getSelectedItem();
+        String film = selectedFilm == null || "Все фильмы".equals(selectedFilm) ? null : String.valueOf(selectedFilm);
+        String date = dateFilter.getText().trim();
+        java.time.LocalDate from = null, to = null;
+        if (!date.isEmpty() && !date.equals("Дата (дд.мм.гггг)")) {
+            int dash = date.indexOf('-');
+            from = SessionSearchIndex.parseDate(dash < 0 ? date : date.substring(0, dash));
+            to = dash < 0 ? from : SessionSearchIndex.parseDate(date.substring(dash + 1));
+            if (from == null || to == null || from.isAfter(to)) {
+                JOptionPane.showMessageDialog(mainFrame, "Неверная дата: " + date + "\nФормат: дд.мм.гггг или дд.мм.гггг-дд.мм.гггг, начало не позже конца", "Ошибка", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+        }
+        String hall = hallFilter.getText().trim();
+        String status = statusFilter.getSelectedIndex() > 0 ? String.valueOf(statusFilter.getSelectedItem()) : null;
+        SearchCriteria criteria = new SearchCriteria(film, from, to, hall.isEmpty() ? null : hall, status);
+        if (criteria.isEmpty()) clearSearch();
+        else applySearch(criteria);
+    }
+
+    // Поиск идет по индексам репозитория, а таблицы лишь скрывают строки не из результата
+    private void applySearch(SearchCriteria criteria) {
+        long start = System.nanoTime();
+        SearchResult result = repository.search(criteria);
+        long micros = (System.nanoTime() - start) / 1000;
+        activeSearch = criteria;
+        sessionsSorter.setRowFilter(new RowFilter<SessionTableModel, Integer>() {
+            @Override public boolean include(Entry<? extends SessionTableModel, ? extends Integer> entry) {
+                return result.contains(repository.getSession(entry.getIdentifier()));
+            }
+        });
+        ticketsSorter.setRowFilter(new RowFilter<TicketTableModel, Integer>() {
+            @Override public boolean include(Entry<? extends TicketTableModel, ? extends Integer> entry) {
+                return result.contains(repository.getTicket(entry.getIdentifier()));
+            }
+        });
+        searchResultLabel.setText(String.format("Найдено сеансов: %d, билетов: %d (%.1f мс)", result.getSessionCount(), result.getTicketCount(), micros / 1000.0));
+    }
+
+    private void clearSearch() {
+        activeSearch = null;
+        sessionsSorter.setRowFilter(null);
+        ticketsSorter.setRowFilter(null);
+        searchResultLabel.setText(" ");
     }
 
-    private void updateFilmFilter() {
-        if (filmFilter == null) return;
-        filmFilter.removeAllItems();
-        filmFilter.addItem("Все фильмы");
-        for (int i = 0; i < filmsModel.getRowCount(); i++) filmFilter.addItem(String.valueOf(filmsModel.getValueAt(i, 0)));
+    private void scheduleSearchRefresh() {
+        if (activeSearch == null || searchRefreshPending) return;
+        searchRefreshPending = true;
+        SwingUtilities.invokeLater(() -> {
+            searchRefreshPending = false;
+            if (activeSearch != null) applySearch(activeSearch);
+        });
     }
 
-    private void clearAllTables() {
-        filmsModel.setRowCount(0);
-        sessionsModel.setRowCount(0);
-        ticketsModel.setRowCount(0);
+    // Поле ввода начала названия: сужает список фильмов по мере набора
+    private JTextField createTitlePrefixField(FilmComboModel model) {
+        JTextField field = new JTextField(8);
+        field.setToolTipText("Начало названия фильма");
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { model.setPrefix(field.getText()); }
+            public void removeUpdate(DocumentEvent e) { model.setPrefix(field.getText()); }
+            public void changedUpdate(DocumentEvent e) { model.setPrefix(field.getText()); }
+        });
+        return field;
+    }
+
+    // Брони из файла тоже ограничены сроком: отсчет идет с момента загрузки
+    private void holdLoadedReservations() {
+        for (int i = 0; i < repository.getTicketCount(); i++) {
+            Ticket t = repository.getTicket(i);
+            if (Ticket.STATUS_RESERVED.equals(t.getStatus()) && bookingService.isManaged(t.getSession(), t.getSeat())) {
+                reservationExpiry.hold(t.getSession(), t.getSeat());
+            }
+        }
     }
 
     // ========== Сохранение/Загрузка текстовый формат ==========
@@ -426,31 +644,9 @@ public class CinemaAdminApp {
             fileChooser.setSelectedFile(new File("cinema_data.txt"));
             if (fileChooser.showSaveDialog(mainFrame) == JFileChooser.APPROVE_OPTION) {
                 File file = fileChooser.getSelectedFile();
-                try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
-                    writer.write("=== ФИЛЬМЫ ===\n");
-                    for (int i = 0; i < filmsModel.getRowCount(); i++) {
-                        for (int j = 0; j < filmsModel.getColumnCount(); j++) {
-                            writer.write(String.valueOf(filmsModel.getValueAt(i, j)));
-                            writer.write("|");
-                        }
-                        writer.write("\n");
-                    }
-                    writer.write("\n=== СЕАНСЫ ===\n");
-                    for (int i = 0; i < sessionsModel.getRowCount(); i++) {
-                        for (int j = 0; j < sessionsModel.getColumnCount(); j++) {
-                            writer.write(String.valueOf(sessionsModel.getValueAt(i, j)));
-                            writer.write("|");
-                        }
-                        writer.write("\n");
-                    }
-                    writer.write("\n=== БИЛЕТЫ ===\n");
-                    for (int i = 0; i < ticketsModel.getRowCount(); i++) {
-                        for (int j = 0; j < ticketsModel.getColumnCount(); j++) {
-                            writer.write(String.valueOf(ticketsModel.getValueAt(i, j)));
-                            writer.write("|");
-                        }
-                        writer.write("\n");
-                    }
+                try (Metrics.Sample sample = TEXT_SAVE.start()) {
+                    TextFormat.write(file, repository);
+                    sample.rows(repository.getFilmCount() + repository.getSessionCount() + repository.getTicketCount()).bytes(file.length());
                 }
                 JOptionPane.showMessageDialog(mainFrame, "Данные сохранены в:\n" + file.getAbsolutePath(), "Сохранение завершено", JOptionPane.INFORMATION_MESSAGE);
             }
@@ -460,428 +656,626 @@ public class CinemaAdminApp {
     }
 
     private void loadAllDataFromFile() {
-        try {
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("Загрузить данные кинотеатра");
-            if (fileChooser.showOpenDialog(mainFrame) == JFileChooser.APPROVE_OPTION) {
-                File file = fileChooser.getSelectedFile();
-                clearAllTables();
-                try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
-                    String line;
-                    String currentSection = "";
-                    while ((line = reader.readLine()) != null) {
-                        if (line.startsWith("===")) { currentSection = line; continue; }
-                        if (!line.trim().isEmpty()) {
-                            String[] data = line.split("\\|");
-                            if (currentSection.contains("ФИЛЬМЫ") && data.length >= 5) filmsModel.addRow(new Object[]{data[0], data[1], data[2], data[3], data[4]});
-                            else if (currentSection.contains("СЕАНСЫ") && data.length >= 5) sessionsModel.addRow(new Object[]{data[0], data[1], data[2], data[3], data[4]});
-                            else if (currentSection.contains("БИЛЕТЫ") && data.length >= 4) ticketsModel.addRow(new Object[]{data[0], data[1], data[2], data[3]});
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Загрузить данные кинотеатра");
+        if (fileChooser.showOpenDialog(mainFrame) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            startImport("Загрузка " + file.getName(), (progress, cancelled) -> {
+                        try (Metrics.Sample sample = TEXT_LOAD.start()) {
+                            DataImport.Batch batch = DataImport.readText(file, loadThreads(), progress, cancelled);
+                            sample.rows(batch.getRowCount()).bytes(file.length());
+                            return batch;
                         }
-                    }
-                }
-                updateFilmFilter();
-                JOptionPane.showMessageDialog(mainFrame, "Данные загружены!\nФильмов: " + filmsModel.getRowCount() + "\nСеансов: " + sessionsModel.getRowCount() + "\nБилетов: " + ticketsModel.getRowCount(), "Загрузка завершена", JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (FileNotFoundException ex) {
-            JOptionPane.showMessageDialog(mainFrame, "Файл не найден: " + ex.getMessage(), "Ошибка загрузки", JOptionPane.ERROR_MESSAGE);
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(mainFrame, "Ошибка при чтении файла: " + ex.getMessage(), "Ошибка загрузки", JOptionPane.ERROR_MESSAGE);
+                    },
+                    batch -> JOptionPane.showMessageDialog(mainFrame, "Данные загружены!\nФильмов: " + batch.getFilmCount() + "\nСеансов: " + batch.getSessionCount() + "\nБилетов: " + batch.getTicketCount(), "Загрузка завершена", JOptionPane.INFORMATION_MESSAGE));
         }
     }
 
     // ========== XML методы ==========
+    // Запись идет в фоновом задании по срезу данных, окно не блокируется
     private void saveAllDataToXML() {
+        CinemaRepository.View view = repository.view();
+        // три файла пишутся вместе, поэтому цель задания - весь набор
+        runJob("Сохранение XML", xmlTarget(), job -> {
+            File films = new File(XML_FILMS_FILE), sessions = new File(XML_SESSIONS_FILE), tickets = new File(XML_TICKETS_FILE);
+            try (Metrics.Sample sample = XML_SAVE.start()) {
+                XmlService.writeFilms(films, view.filmsTable());
+                XmlService.writeSessions(sessions, view.sessionsTable());
+                XmlService.writeTickets(tickets, view.ticketsTable());
+                sample.rows(view.getFilms().size() + view.getSessions().size() + view.getTickets().size())
+                        .bytes(films.length() + sessions.length() + tickets.length());
+            }
+            return null;
+        }, done -> JOptionPane.showMessageDialog(mainFrame, "Все данные сохранены в XML файлы:\n- " + XML_FILMS_FILE + "\n- " + XML_SESSIONS_FILE + "\n- " + XML_TICKETS_FILE, "XML сохранение", JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    private static String xmlTarget() {
+        return new File(XML_FILMS_FILE).getAbsolutePath() + ", " + XML_SESSIONS_FILE + ", " + XML_TICKETS_FILE;
+    }
+
+    private void loadAllDataFromXML() {
+        startImport("Загрузка XML", this::readXmlFiles,
+                batch -> JOptionPane.showMessageDialog(mainFrame, "Данные загружены из XML.\nФильмов: " + batch.getFilmCount() + ", Сеансов: " + batch.getSessionCount() + ", Билетов: " + batch.getTicketCount(), "Загрузка XML", JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    private DataImport.Batch readXmlFiles(XmlService.ProgressListener progress, BooleanSupplier cancelled)
+            throws IOException, XMLStreamException {
+        File films = new File(XML_FILMS_FILE), sessions = new File(XML_SESSIONS_FILE), tickets = new File(XML_TICKETS_FILE);
+        int threads = loadThreads();
+        try (Metrics.Sample sample = XML_LOAD.start()) {
+            DataImport.Batch batch = threads > 1
+                    ? DataImport.readXmlParallel(films, sessions, tickets, threads, progress, cancelled)
+                    : DataImport.readXml(films, sessions, tickets, progress, cancelled);
+            sample.rows(batch.getRowCount()).bytes(films.length() + sessions.length() + tickets.length());
+            return batch;
+        }
+    }
+
+    private static int loadThreads() {
+        return PARALLEL_LOAD ? Runtime.getRuntime().availableProcessors() : 1;
+    }
+
+    // ========== Двоичный снимок ==========
+    // Уплотнение журнала: все данные в новый снимок, журнал начинается заново
+    private void saveSnapshot() {
         try {
-            saveFilmsToXML();
-            saveSessionsToXML();
-            saveTicketsToXML();
-            JOptionPane.showMessageDialog(mainFrame, "Все данные сохранены в XML файлы:\n- " + XML_FILMS_FILE + "\n- " + XML_SESSIONS_FILE + "\n- " + XML_TICKETS_FILE, "XML сохранение", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(mainFrame, "Ошибка при сохранении XML: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+            long ms;
+            try (Metrics.Sample sample = SNAPSHOT_SAVE.start()) {
+                journal.compact();
+                ms = sample.rows(repository.getFilmCount() + repository.getSessionCount() + repository.getTicketCount())
+                        .bytes(new File(SNAPSHOT_FILE).length()).stop() / 1_000_000;
+            }
+            JOptionPane.showMessageDialog(mainFrame, "Снимок сохранен: " + SNAPSHOT_FILE + " (" + ms + " мс)", "Снимок", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(mainFrame, "Ошибка при сохранении снимка: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
             ex.printStackTrace();
         }
     }
 
-    private void saveFilmsToXML() throws Exception {
-        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-        Document doc = docBuilder.newDocument();
-        Element rootElement = doc.createElement("cinema");
-        doc.appendChild(rootElement);
-        Element filmsElement = doc.createElement("films");
-        rootElement.appendChild(filmsElement);
-        for (int i = 0; i < filmsModel.getRowCount(); i++) {
-            Element filmElement = doc.createElement("film");
-            filmsElement.appendChild(filmElement);
-            filmElement.setAttribute("title", String.valueOf(filmsModel.getValueAt(i, 0)));
-            filmElement.setAttribute("director", String.valueOf(filmsModel.getValueAt(i, 1)));
-            filmElement.setAttribute("year", String.valueOf(filmsModel.getValueAt(i, 2)));
-            filmElement.setAttribute("genre", String.valueOf(filmsModel.getValueAt(i, 3)));
-            filmElement.setAttribute("duration", String.valueOf(filmsModel.getValueAt(i, 4)));
-        }
-        saveDocumentToFile(doc, XML_FILMS_FILE);
-    }
-
-    private void saveSessionsToXML() throws Exception {
-        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-        Document doc = docBuilder.newDocument();
-        Element rootElement = doc.createElement("cinema");
-        doc.appendChild(rootElement);
-        Element sessionsElement = doc.createElement("sessions");
-        rootElement.appendChild(sessionsElement);
-        for (int i = 0; i < sessionsModel.getRowCount(); i++) {
-            Element sessionElement = doc.createElement("session");
-            sessionsElement.appendChild(sessionElement);
-            sessionElement.setAttribute("film", String.valueOf(sessionsModel.getValueAt(i, 0)));
-            sessionElement.setAttribute("date", String.valueOf(sessionsModel.getValueAt(i, 1)));
-            sessionElement.setAttribute("time", String.valueOf(sessionsModel.getValueAt(i, 2)));
-            sessionElement.setAttribute("hall", String.valueOf(sessionsModel.getValueAt(i, 3)));
-            sessionElement.setAttribute("price", String.valueOf(sessionsModel.getValueAt(i, 4)));
-        }
-        saveDocumentToFile(doc, XML_SESSIONS_FILE);
-    }
-
-    private void saveTicketsToXML() throws Exception {
-        DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-        Document doc = docBuilder.newDocument();
-        Element rootElement = doc.createElement("cinema");
-        doc.appendChild(rootElement);
-        Element ticketsElement = doc.createElement("tickets");
-        rootElement.appendChild(ticketsElement);
-        for (int i = 0; i < ticketsModel.getRowCount(); i++) {
-            Element ticketElement = doc.createElement("ticket");
-            ticketsElement.appendChild(ticketElement);
-            ticketElement.setAttribute("session", String.valueOf(ticketsModel.getValueAt(i, 0)));
-            ticketElement.setAttribute("seat", String.valueOf(ticketsModel.getValueAt(i, 1)));
-            ticketElement.setAttribute("status", String.valueOf(ticketsModel.getValueAt(i, 2)));
-            ticketElement.setAttribute("saleTime", String.valueOf(ticketsModel.getValueAt(i, 3)));
-        }
-        saveDocumentToFile(doc, XML_TICKETS_FILE);
-    }
-
-    private void saveDocumentToFile(Document doc, String filename) throws TransformerException {
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-        DOMSource source = new DOMSource(doc);
-        StreamResult result = new StreamResult(new File(filename));
-        transformer.transform(source, result);
+    private void loadSnapshot() {
+        if (!journal.hasSavedState()) {
+            JOptionPane.showMessageDialog(mainFrame, "Снимок не найден: " + SNAPSHOT_FILE, "Снимок", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        startImport("Открытие снимка", (progress, cancelled) -> recoverSnapshot(),
+                batch -> {
+                    // после отмененного восстановления журнал начинается поверх открытого снимка
+                    journal.open(batch.generation);
+                    JOptionPane.showMessageDialog(mainFrame, "Снимок открыт.\nФильмов: " + batch.getFilmCount() + ", Сеансов: " + batch.getSessionCount() + ", Билетов: " + batch.getTicketCount(), "Снимок", JOptionPane.INFORMATION_MESSAGE);
+                });
     }
 
-    private void loadAllDataFromXML() {
+    // Билеты снимка без загрузки в репозиторий: строки читаются из файла страницами по мере прокрутки,
+    // поэтому и снимок на миллионы билетов занимает в памяти лишь окно страниц и порядок сортировки
+    private void browseSnapshotTickets() {
+        JFileChooser chooser = new JFileChooser(new File(".").getAbsoluteFile());
+        chooser.setDialogTitle("Просмотр билетов снимка");
+        chooser.setSelectedFile(new File(SNAPSHOT_FILE).getAbsoluteFile());
+        if (chooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION) return;
+        File file = chooser.getSelectedFile();
         try {
-            clearAllTables();
-            int f = loadFilmsFromXML();
-            int s = loadSessionsFromXML();
-            int t = loadTicketsFromXML();
-            updateFilmFilter();
-            JOptionPane.showMessageDialog(mainFrame, "Данные загружены из XML.\nФильмов: " + f + ", Сеансов: " + s + ", Билетов: " + t, "Загрузка XML", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(mainFrame, "Ошибка при загрузке XML: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+            PagedTableModel model = new PagedTableModel(SnapshotService.openTickets(file));
+            JTable table = new JTable();
+            model.attach(table);
+            JFrame frame = new JFrame("Билеты снимка " + file.getName() + ": " + model.getRowCount());
+            frame.add(new JScrollPane(table));
+            frame.setSize(700, 600);
+            frame.setLocationRelativeTo(mainFrame);
+            frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            frame.setVisible(true);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(mainFrame, "Ошибка при открытии снимка: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    private int loadFilmsFromXML() throws Exception {
-        File xmlFile = new File(XML_FILMS_FILE); if (!xmlFile.exists()) return 0;
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance(); DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document doc = dBuilder.parse(xmlFile); doc.getDocumentElement().normalize();
-        NodeList filmList = doc.getElementsByTagName("film"); int count = 0;
-        for (int i = 0; i < filmList.getLength(); i++) {
-            Node filmNode = filmList.item(i);
-            if (filmNode.getNodeType() == Node.ELEMENT_NODE) {
-                Element e = (Element) filmNode;
-                filmsModel.addRow(new Object[]{e.getAttribute("title"), e.getAttribute("director"), e.getAttribute("year"), e.getAttribute("genre"), e.getAttribute("duration")});
-                count++;
-            }
+    // Снимок и журнал после него; размер - снимок плюс журнал
+    private DataImport.Batch recoverSnapshot() throws IOException {
+        try (Metrics.Sample sample = SNAPSHOT_LOAD.start()) {
+            DataImport.Batch batch = journal.recover();
+            sample.rows(batch.getRowCount()).bytes(new File(SNAPSHOT_FILE).length() + new File(JOURNAL_FILE).length());
+            return batch;
         }
-        return count;
     }
 
-    private int loadSessionsFromXML() throws Exception {
-        File xmlFile = new File(XML_SESSIONS_FILE); if (!xmlFile.exists()) return 0;
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance(); DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document doc = dBuilder.parse(xmlFile); doc.getDocumentElement().normalize();
-        NodeList list = doc.getElementsByTagName("session"); int count = 0;
-        for (int i = 0; i < list.getLength(); i++) {
-            Node n = list.item(i);
-            if (n.getNodeType() == Node.ELEMENT_NODE) {
-                Element e = (Element) n;
-                sessionsModel.addRow(new Object[]{e.getAttribute("film"), e.getAttribute("date"), e.getAttribute("time"), e.getAttribute("hall"), e.getAttribute("price")});
-                count++;
-            }
+    // ========== Фоновая загрузка ==========
+    private void startImport(String title, DataImport.Reader reader, Consumer<DataImport.Batch> onLoaded) {
+        startImport(title, reader, onLoaded, () -> {});
+    }
+
+    // onAbandoned - загрузка отменена или завершилась ошибкой
+    private void startImport(String title, DataImport.Reader reader, Consumer<DataImport.Batch> onLoaded, Runnable onAbandoned) {
+        if (importWorker != null && !importWorker.isDone()) {
+            JOptionPane.showMessageDialog(mainFrame, "Загрузка уже выполняется.", "Загрузка", JOptionPane.WARNING_MESSAGE);
+            onAbandoned.run();
+            return;
         }
-        return count;
+        importWorker = new ImportWorker(title, reader, onLoaded, onAbandoned);
+        importWorker.execute();
+    }
+
+    /** Публикация прочитанных данных: одна замена содержимого репозитория (EDT). */
+    private void publishBatch(DataImport.Batch batch) {
+        repository.replaceAll(batch.films, batch.sessions, batch.tickets);
+        holdLoadedReservations();
+        assert repository.verifyTicketCounters().isEmpty() : repository.verifyTicketCounters();
+        assert repository.verifyRevenue() : "выручка расходится с пересчетом";
     }
 
-    private int loadTicketsFromXML() throws Exception {
-        File xmlFile = new File(XML_TICKETS_FILE); if (!xmlFile.exists()) return 0;
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance(); DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document doc = dBuilder.parse(xmlFile); doc.getDocumentElement().normalize();
-        NodeList list = doc.getElementsByTagName("ticket"); int count = 0;
-        for (int i = 0; i < list.getLength(); i++) {
-            Node n = list.item(i);
-            if (n.getNodeType() == Node.ELEMENT_NODE) {
-                Element e = (Element) n;
-                ticketsModel.addRow(new Object[]{e.getAttribute("session"), e.getAttribute("seat"), e.getAttribute("status"), e.getAttribute("saleTime")});
-                count++;
+    /**
+     * Разбор файлов идет в рабочем потоке, окно при этом не блокируется.
+     * Ход загрузки показывает ProgressMonitor, кнопка "Отмена" прерывает разбор;
+     * данные в таблицах меняются только после успешного чтения, одним событием.
+     */
+    private class ImportWorker extends SwingWorker<DataImport.Batch, Void> {
+        private final DataImport.Reader reader;
+        private final Consumer<DataImport.Batch> onLoaded;
+        private final Runnable onAbandoned;
+        private final ProgressMonitor monitor;
+        private final javax.swing.Timer cancelPoll;
+
+        ImportWorker(String title, DataImport.Reader reader, Consumer<DataImport.Batch> onLoaded, Runnable onAbandoned) {
+            this.reader = reader;
+            this.onLoaded = onLoaded;
+            this.onAbandoned = onAbandoned;
+            monitor = new ProgressMonitor(mainFrame, title, "Чтение файлов...", 0, 100);
+            monitor.setMillisToDecideToPopup(200);
+            addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName())) monitor.setProgress((Integer) e.getNewValue());
+            });
+            cancelPoll = new javax.swing.Timer(200, e -> {
+                if (monitor.isCanceled()) cancel(true);
+            });
+            cancelPoll.start();
+        }
+
+        @Override
+        protected DataImport.Batch doInBackground() throws Exception {
+            return reader.read((bytesRead, totalBytes, rows) -> {
+                setProgress(totalBytes > 0 ? (int) Math.min(99, bytesRead * 100 / totalBytes) : 99);
+            }, this::isCancelled);
+        }
+
+        @Override
+        protected void done() {
+            cancelPoll.stop();
+            monitor.close();
+            if (isCancelled()) {
+                searchResultLabel.setText("Загрузка отменена, данные не изменены");
+                onAbandoned.run();
+                return;
+            }
+            try {
+                DataImport.Batch batch = get();
+                publishBatch(batch);
+                onLoaded.accept(batch);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                onAbandoned.run();
+                JOptionPane.showMessageDialog(mainFrame, "Ошибка при загрузке: " + cause.getMessage(), "Ошибка загрузки", JOptionPane.ERROR_MESSAGE);
+                cause.printStackTrace();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                onAbandoned.run();
             }
         }
-        return count;
     }
 
     // ========== HTML генерация ==========
     private void generateHTMLReport() {
-        try {
-            String outputFile = "cinema_films_report.html";
-            generateSimpleHTML(outputFile);
-            JOptionPane.showMessageDialog(mainFrame, "HTML отчет успешно сгенерирован: " + outputFile, "HTML.", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(mainFrame, "Ошибка при генерации HTML: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+        String outputFile = "cinema_films_report.html";
+        CinemaRepository.View view = repository.view();
+        this.<java.util.List<File>>runJob("HTML отчет", new File(outputFile).getAbsolutePath(), job -> generateSimpleHTML(outputFile, view, job::isCancelled),
+                files -> JOptionPane.showMessageDialog(mainFrame, "HTML отчет успешно сгенерирован: " + files.get(0)
+                        + (files.size() > 1 ? "\nСтраниц: " + (files.size() - 1) : ""), "HTML.", JOptionPane.INFORMATION_MESSAGE));
     }
 
-    private void generateSimpleHTML(String filename) throws IOException {
-        try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8);
-             PrintWriter writer = new PrintWriter(bw)) {
-            writer.println("<!DOCTYPE html>");
-            writer.println("<html lang='ru'><head><meta charset='utf-8'><title>Отчет по фильмам</title>");
-            writer.println("<style>body{font-family:Arial, sans-serif;padding:20px;}table{border-collapse:collapse;width:100%}th,td{border:1px solid #ddd;padding:8px}</style>");
-            writer.println("</head><body>");
-            writer.println("<h1>Отчет по фильмам кинотеатра</h1>");
-            writer.println("<p>Дата: " + new Date() + "</p>");
-            writer.println("<h2>Фильмы</h2>");
-            writer.println("<table><tr><th>Название</th><th>Режиссер</th><th>Год</th><th>Жанр</th><th>Длительность</th></tr>");
-            for (int i = 0; i < filmsModel.getRowCount(); i++) {
-                writer.println("<tr>");
-                for (int j = 0; j < filmsModel.getColumnCount(); j++) writer.println("<td>" + escapeHtml(String.valueOf(filmsModel.getValueAt(i, j))) + "</td>");
-                writer.println("</tr>");
-            }
-            writer.println("</table>");
-            writer.println("<h2>Сеансы</h2>");
-            writer.println("<table><tr><th>Фильм</th><th>Дата</th><th>Время</th><th>Зал</th><th>Цена</th></tr>");
-            for (int i = 0; i < sessionsModel.getRowCount(); i++) {
-                writer.println("<tr>");
-                for (int j = 0; j < sessionsModel.getColumnCount(); j++) writer.println("<td>" + escapeHtml(String.valueOf(sessionsModel.getValueAt(i, j))) + "</td>");
-                writer.println("</tr>");
-            }
-            writer.println("</table>");
-            writer.println("<h2>Билеты</h2>");
-            writer.println("<table><tr><th>Сеанс</th><th>Место</th><th>Статус</th><th>Время продажи</th></tr>");
-            for (int i = 0; i < ticketsModel.getRowCount(); i++) {
-                writer.println("<tr>");
-                for (int j = 0; j < ticketsModel.getColumnCount(); j++) writer.println("<td>" + escapeHtml(String.valueOf(ticketsModel.getValueAt(i, j))) + "</td>");
-                writer.println("</tr>");
-            }
-            writer.println("</table>");
-            writer.println("</body></html>");
+    // Те же данные и параметры - те же файлы, если их не трогали; иначе заново формируются только изменившиеся разделы
+    private static java.util.List<File> generateSimpleHTML(String filename, CinemaRepository.View view, BooleanSupplier cancelled) throws IOException {
+        try (Metrics.Sample sample = HTML_REPORT.start()) {
+            java.util.List<File> files = generateCachedHTML(filename, view, cancelled);
+            sample.rows(view.getFilms().size() + view.getSessions().size() + view.getTickets().size());
+            for (File f : files) sample.bytes(f.length());
+            return files;
         }
     }
 
-    private String escapeHtml(String s) {
-        if (s == null) return "";
-        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&#39;");
+    private static java.util.List<File> generateCachedHTML(String filename, CinemaRepository.View view, BooleanSupplier cancelled) throws IOException {
+        ReportCache.Key key = new ReportCache.Key("html", filename + "|" + HtmlReport.DEFAULT_PAGE_ROWS + "|" + HTML_GZIP, view.getVersions());
+        return reportCache.files(key, () -> new HtmlReport("Отчет по фильмам кинотеатра", HtmlReport.DEFAULT_PAGE_ROWS, HTML_GZIP,
+                Runtime.getRuntime().availableProcessors())
+                .withCache(reportCache)
+                .addSection("Фильмы", "films", view.filmsTable(), view.getVersion(CinemaRepository.Entity.FILM))
+                .addSection("Сеансы", "sessions", view.sessionsTable(), view.getVersion(CinemaRepository.Entity.SESSION))
+                .addSection("Билеты", "tickets", view.ticketsTable(), view.getVersion(CinemaRepository.Entity.TICKET))
+                .write(new File(filename), cancelled));
+    }
+
+    // Большие разделы делятся на страницы (cinema.htmlPageRows), файлы можно сжимать (-Dcinema.htmlGzip=true)
+    private static java.util.List<File> generateSimpleHTML(String filename, String heading, TableModel filmsModel, TableModel sessionsModel,
+                                                           TableModel ticketsModel, BooleanSupplier cancelled) throws IOException {
+        return new HtmlReport(heading, HtmlReport.DEFAULT_PAGE_ROWS, HTML_GZIP, Runtime.getRuntime().availableProcessors())
+                .addSection("Фильмы", "films", filmsModel)
+                .addSection("Сеансы", "sessions", sessionsModel)
+                .addSection("Билеты", "tickets", ticketsModel)
+                .write(new File(filename), cancelled);
     }
 
     // ========== PDF генерация ==========
     private void generatePDFReport() {
-        try {
-            String outputFile = "cinema_films_report.pdf";
-            createBeautifulPDF(outputFile);
-            JOptionPane.showMessageDialog(mainFrame, "PDF отчет успешно сгенерирован: " + outputFile, "PDF", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(mainFrame, "Ошибка при генерации PDF: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+        String outputFile = "cinema_films_report.pdf";
+        CinemaRepository.View view = repository.view();
+        // Предупреждения задания (пропущенные шрифты) показываются вместе с результатом
+        java.util.List<String> warnings = new CopyOnWriteArrayList<>();
+        runJob("PDF отчет", new File(outputFile).getAbsolutePath(), job -> createBeautifulPDF(outputFile, view, job::isCancelled, warnings::add),
+                pages -> {
+                    String message = "PDF отчет успешно сгенерирован: " + outputFile + "\nСтраниц: " + pages;
+                    if (warnings.isEmpty()) {
+                        JOptionPane.showMessageDialog(mainFrame, message, "PDF", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(mainFrame, message + "\n\n" + String.join("\n", warnings), "PDF", JOptionPane.WARNING_MESSAGE);
+                    }
+                });
     }
 
-    private void createBeautifulPDF(String filename) throws IOException {
-        StringBuilder pdfContent = new StringBuilder();
-        pdfContent.append("%PDF-1.4\n");
-        pdfContent.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
-        pdfContent.append("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
-        pdfContent.append("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R /Resources << /Font << /F1 5 0 R /F2 6 0 R >> >> >>\nendobj\n");
-        pdfContent.append("4 0 obj\n<< /Length 2800 >>\nstream\nBT\n/F2 28 Tf\n50 750 Td\n(CINEMA MANAGEMENT REPORT) Tj\n0 -40 Td\n/F1 12 Tf\n(Cinema Administration System) Tj\n0 -15 Td\n(Laboratory Work #7 - Report Generation) Tj\n0 -40 Td\n/F2 16 Tf\n(CINEMA STATISTICS) Tj\n0 -30 Td\n/F1 11 Tf\n(Total Films in Database: " + filmsModel.getRowCount() + ") Tj\n0 -15 Td\n(Total Sessions Scheduled: " + sessionsModel.getRowCount() + ") Tj\n0 -15 Td\n(Total Tickets Available: " + ticketsModel.getRowCount() + ") Tj\n0 -15 Td\n(Tickets Sold: " + countSoldTickets() + ") Tj\n0 -30 Td\n(Estimated Income: " + (countSoldTickets()*350) + " RUB) Tj\n0 -40 Td\n/F2 16 Tf\n(FEATURED FILMS) Tj\n0 -25 Td\n/F1 10 Tf\n");
-        for (int i = 0; i < Math.min(5, filmsModel.getRowCount()); i++) {
-            String t = String.valueOf(filmsModel.getValueAt(i, 0));
-            pdfContent.append("(" + escapePdfText(t) + ") Tj\n0 -12 Td\n");
-        }
-        pdfContent.append("/F2 16 Tf\n(UPCOMING SESSIONS) Tj\n0 -25 Td\n/F1 10 Tf\n");
-        for (int i = 0; i < Math.min(5, sessionsModel.getRowCount()); i++) {
-            String s = sessionsModel.getValueAt(i,0) + " - " + sessionsModel.getValueAt(i,1) + " " + sessionsModel.getValueAt(i,2);
-            pdfContent.append("(" + escapePdfText(String.valueOf(s)) + ") Tj\n0 -12 Td\n");
-        }
-        pdfContent.append("/F2 14 Tf\n(FINANCIAL SUMMARY) Tj\n0 -25 Td\n/F1 11 Tf\n(Current Revenue: " + (countSoldTickets()*350) + " RUB) Tj\n0 -15 Td\n(Potential Revenue: " + ((countSoldTickets()+countReservedTickets())*350) + " RUB) Tj\n0 -30 Td\n/F1 9 Tf\n(Report generated automatically " + new Date() + ") Tj\nET\nendstream\nendobj\n");
-        pdfContent.append("5 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>\nendobj\n");
-        pdfContent.append("6 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold >>\nendobj\n");
-        pdfContent.append("xref\n0 7\n0000000000 65535 f\n0000000009 00000 n\n0000000058 00000 n\n0000000115 00000 n\n0000000244 00000 n\n0000003095 00000 n\n0000003183 00000 n\ntrailer\n<< /Size 7 /Root 1 0 R >>\nstartxref\n3275\n%%EOF\n");
-        try (FileOutputStream fos = new FileOutputStream(filename)) {
-            fos.write(pdfContent.toString().getBytes(StandardCharsets.ISO_8859_1));
-            fos.flush();
+    // PDF пишется потоком с общей нумерацией объектов, поэтому переиспользуется только файл целиком
+    private static int createBeautifulPDF(String filename, CinemaRepository.View view, BooleanSupplier cancelled,
+                                          Consumer<String> warnings) throws IOException {
+        try (Metrics.Sample sample = PDF_REPORT.start()) {
+            int pages = createCachedPDF(filename, view, cancelled, warnings);
+            sample.rows(view.getFilms().size() + view.getSessions().size() + view.getTickets().size()).bytes(new File(filename).length());
+            return pages;
         }
     }
 
-    private String escapePdfText(String s) {
-        if (s == null) return "";
-        return s.replace("(", "\\(").replace(")", "\\)").replace("\n", " ");
+    private static int createCachedPDF(String filename, CinemaRepository.View view, BooleanSupplier cancelled,
+                                       Consumer<String> warnings) throws IOException {
+        ReportCache.Key key = new ReportCache.Key("pdf", filename, view.getVersions());
+        ReportCache.Key pagesKey = new ReportCache.Key("pdf-pages", filename, view.getVersions());
+        Integer known = reportCache.get(pagesKey);
+        // без числа страниц (вытеснено) файл не переиспользуем
+        if (known == null) reportCache.remove(key);
+        int[] pages = {-1};
+        reportCache.files(key, () -> {
+            pages[0] = writeBeautifulPDF(filename, view, cancelled, warnings);
+            return java.util.List.of(new File(filename));
+        });
+        if (pages[0] < 0) return known;
+        reportCache.put(pagesKey, pages[0], 16);
+        return pages[0];
+    }
+
+    // Сводка и полные таблицы фильмов, сеансов и билетов, по страницам
+    private static int writeBeautifulPDF(String filename, CinemaRepository.View view, BooleanSupplier cancelled,
+                                         Consumer<String> warnings) throws IOException {
+        String soldRevenue = RevenueEngine.formatRubles(view.getSoldRevenue());
+        String potentialRevenue = RevenueEngine.formatRubles(view.getSoldRevenue() + view.getReservedRevenue());
+        return new PdfReport("Отчет кинотеатра")
+                .onWarning(warnings)
+                .addLine("Фильмов в базе: " + view.getFilms().size())
+                .addLine("Сеансов в расписании: " + view.getSessions().size())
+                .addLine("Билетов: " + view.getTickets().size())
+                .addLine("Продано билетов: " + view.getSoldTickets())
+                .addLine("Выручка: " + soldRevenue + " руб")
+                .addLine("Выручка с учетом брони: " + potentialRevenue + " руб")
+                .addSection("Фильмы", view.filmsTable())
+                .addSection("Сеансы", view.sessionsTable())
+                .addSection("Билеты", view.ticketsTable())
+                .write(new File(filename), cancelled);
     }
 
     private int countSoldTickets() {
-        int sold = 0;
-        for (int i = 0; i < ticketsModel.getRowCount(); i++) if ("Продан".equals(String.valueOf(ticketsModel.getValueAt(i,2)))) sold++;
-        return sold;
+        return repository.countTickets(Ticket.STATUS_SOLD);
     }
 
-    private int countReservedTickets() {
-        int res = 0;
-        for (int i = 0; i < ticketsModel.getRowCount(); i++) if ("Забронирован".equals(String.valueOf(ticketsModel.getValueAt(i,2)))) res++;
-        return res;
+    // ========== Фоновые задания ==========
+    // Задание над срезом данных; результат и ошибки показываются в EDT
+    private <T> void runJob(String name, JobExecutor.Task<T> task, Consumer<T> onDone) {
+        runJob(name, null, task, onDone);
     }
 
-    // ========== ЛР8: МНОГОПОТОЧНОСТЬ ==========
+    // target - файл, который пишет задание: второе задание в тот же файл отклоняется с сообщением
+    private <T> void runJob(String name, String target, JobExecutor.Task<T> task, Consumer<T> onDone) {
+        jobs.submit(name, target, task).result().whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                onDone.accept(value);
+            } else if (error instanceof RejectedExecutionException) {
+                JOptionPane.showMessageDialog(mainFrame, name + ": " + error.getMessage(), name, JOptionPane.WARNING_MESSAGE);
+            } else if (!(error instanceof CancellationException)) {
+                JOptionPane.showMessageDialog(mainFrame, name + ": ошибка " + error.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+                error.printStackTrace();
+            }
+        }));
+    }
 
-    // 🚀 ФРАГМЕНТ 1: ЗАПУСК ВСЕХ ПОТОКОВ
-    private void startThreeThreads() {
-        runThreadsButton.setEnabled(false);
-        // CountDownLatch - синхронизация потоков
-        latchLoad = new CountDownLatch(1);
-        latchEdit = new CountDownLatch(1);
+    private void showJobStatus() {
+        jobStatusPending.set(false);
+        int running = jobs.getRunningCount(), queued = jobs.getQueuedCount();
+        jobStatus.setText(running + queued == 0 ? " " : "Задания: выполняется " + running + ", в очереди " + queued);
+    }
 
-        // Создание и запуск трех потоков
-        Thread loader = new Thread(new LoaderThread(), "LoaderThread");
-        Thread editor = new Thread(new EditorThread(), "EditorThread");
-        Thread reporter = new Thread(new ReporterThread(), "ReporterThread");
+    // ========== Производительность ==========
+    private void showMetrics() {
+        if (metricsDialog == null) {
+            metricsDialog = new JDialog(mainFrame, "Производительность", false);
+            metricsDialog.add(new MetricsPanel());
+            metricsDialog.setSize(1000, 320);
+            metricsDialog.setLocationRelativeTo(mainFrame);
+        }
+        metricsDialog.setVisible(true);
+    }
+
+    /**
+     * Память таблиц в трех представлениях: построчная таблица со строкой в
+     * каждой ячейке, объекты репозитория и столбцовое хранилище; итоги
+     * хранилища сверяются со счетчиками репозитория.
+     */
+    private void showMemoryReport() {
+        CinemaRepository.View view = repository.view();
+        this.<String>runJob("Отчет о памяти", job -> memoryReport(view), report -> {
+            JTextArea text = new JTextArea(report);
+            text.setEditable(false);
+            text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            JOptionPane.showMessageDialog(mainFrame, new JScrollPane(text), "Отчет о памяти", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
 
-        loader.start();
-        editor.start();
-        reporter.start();
+    private static String memoryReport(CinemaRepository.View view) {
+        long start = System.nanoTime();
+        ColumnStore store = ColumnStore.of(view);
+        long build = System.nanoTime() - start;
+        start = System.nanoTime();
+        ColumnStore.Totals totals = store.totals();
+        long scan = System.nanoTime() - start;
+
+        java.util.List<Ticket> tickets = view.getTickets();
+        java.util.List<Session> sessions = view.getSessions();
+        long table = MemoryLayout.vectorTable(tickets, TicketTableModel.COLUMNS.length, TicketTableModel::value)
+                + MemoryLayout.vectorTable(sessions, SessionTableModel.COLUMNS.length, SessionTableModel::value);
+        long objects = MemoryLayout.objectList(tickets, TicketTableModel.COLUMNS.length, 0, TicketTableModel::value)
+                + MemoryLayout.objectList(sessions, SessionTableModel.COLUMNS.length, 8, SessionTableModel::value);
+        long columns = store.getHeapBytes();
+        boolean same = totals.count(Ticket.STATUS_SOLD) == view.getSoldTickets() && totals.getSoldRevenue() == view.getSoldRevenue()
+                && totals.getReservedRevenue() == view.getReservedRevenue();
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Билетов: %d, сеансов: %d, строк в словаре: %d%n%n", tickets.size(), sessions.size(), store.getDictionarySize()));
+        out.append(String.format(Locale.ROOT, "%-40s %10s %8s%n", "Представление", "МБ", "Байт/бил"));
+        appendMemoryRow(out, "Таблица (Vector строк, строка в ячейке)", table, tickets.size());
+        appendMemoryRow(out, "Объекты Ticket/Session", objects, tickets.size());
+        appendMemoryRow(out, "Столбцовое хранилище", columns, tickets.size());
+        out.append(String.format(Locale.ROOT, "%nМеньше таблицы в %.1f раза, объектов - в %.1f раза%n", table / (double) columns, objects / (double) columns));
+        out.append(String.format(Locale.ROOT, "Построение: %.1f мс, итоги одним проходом: %.1f мс%n", build / 1e6, scan / 1e6));
+        out.append(String.format("%nПродано: %d, забронировано: %d, свободно: %d%nДоход: %s руб., брони: %s руб.%n",
+                totals.count(Ticket.STATUS_SOLD), totals.count(Ticket.STATUS_RESERVED), totals.count(Ticket.STATUS_FREE),
+                RevenueEngine.formatRubles(totals.getSoldRevenue()), RevenueEngine.formatRubles(totals.getReservedRevenue())));
+        out.append(same ? "Итоги совпадают со счетчиками репозитория" : "ИТОГИ РАСХОДЯТСЯ со счетчиками репозитория");
+        out.append(String.format(Locale.ROOT, "%n%nОценка для 64-битной JVM со сжатыми ссылками; индексы репозитория не учтены."));
+        return out.toString();
+    }
 
-        // Поток для отслеживания завершения
-        new Thread(() -> {
-            try {
-                // Ожидание завершения всех потоков
-                loader.join();
-                editor.join();
-                reporter.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            } finally {
-                // Безопасное обновление UI
-                SwingUtilities.invokeLater(() -> runThreadsButton.setEnabled(true));
-            }
-        }, "Joiner").start();
+    private static void appendMemoryRow(StringBuilder out, String name, long bytes, int tickets) {
+        out.append(String.format(Locale.ROOT, "%-40s %10.1f %8.1f%n", name, bytes / (double) (1 << 20), tickets == 0 ? 0 : bytes / (double) tickets));
     }
 
-    // 📥 ФРАГМЕНТ 2: ПОТОК ЗАГРУЗКИ ДАННЫХ (DataLoadThread)
-    private class LoaderThread implements Runnable {
-        @Override public void run() {
-            try {
-                System.out.println("Loader: starting...");
-                Thread.sleep(500); // имитация загрузки
-                
-                // Безопасное обновление UI из потока
-                SwingUtilities.invokeAndWait(() -> {
-                    File f = new File(XML_FILMS_FILE);
-                    if (f.exists()) {
-                        loadAllDataFromXML(); // загрузка данных
-                    }
-                    JOptionPane.showMessageDialog(mainFrame, "Loader: данные загружены в форму (EDT).");
-                });
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            } finally {
-                System.out.println("Loader: done, countDown latchLoad");
-                latchLoad.countDown(); // сигнал о завершении
-            }
+    private static void dumpMetrics() {
+        if (METRICS_FILE == null) return;
+        try {
+            Metrics.dump(new File(METRICS_FILE));
+        } catch (IOException ex) {
+            ex.printStackTrace();
         }
     }
 
-    // 🔄 ФРАГМЕНТ 3: ПОТОК РЕДАКТИРОВАНИЯ ДАННЫХ (DataEditThread)
-    private class EditorThread implements Runnable {
-        @Override public void run() {
-            try {
-                System.out.println("Editor: waiting for loader...");
-                // ОЖИДАНИЕ завершения LoaderThread
-                latchLoad.await();
-                
-                System.out.println("Editor: editing on EDT...");
-                SwingUtilities.invokeAndWait(() -> {
-                    // Редактирование данных в UI
-                    for (int i = 0; i < filmsModel.getRowCount(); i++) {
-                        String t = String.valueOf(filmsModel.getValueAt(i, 0));
-                        if (!t.endsWith(" (edited)")) 
-                            filmsModel.setValueAt(t + " (edited)", i, 0);
-                    }
-                    if (sessionsModel.getRowCount() > 0) 
-                        sessionsModel.setValueAt(String.valueOf(sessionsModel.getValueAt(0,4)) + " (edited)", 0, 4);
-                    JOptionPane.showMessageDialog(mainFrame, "Editor: внес изменения (EDT).");
-                });
-                
-                saveAllDataToXML(); // сохранение отредактированных данных
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            } finally {
-                System.out.println("Editor: done, countDown latchEdit");
-                latchEdit.countDown(); // сигнал о завершении
+    /**
+     * Проверка всего расписания на пересечения сеансов в залах; залы
+     * проверяются параллельно, в фоновом задании.
+     */
+    private void validateSchedule() {
+        CinemaRepository.View view = repository.view();
+        Map<String, Film> films = new HashMap<>();
+        for (Film f : view.getFilms()) films.putIfAbsent(f.getTitle(), f);
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.<HallSchedule.Validation>runJob("Проверка расписания",
+                job -> HallSchedule.validate(view.getSessions(), films::get, threads, job::isCancelled), result -> {
+            StringBuilder text = new StringBuilder(String.format("Проверено сеансов: %d в залах: %d\nНе проверено (нет даты, времени или длительности фильма): %d\nПересечений: %d",
+                    result.getCheckedCount(), result.getHallCount(), result.getSkippedCount(), result.getConflicts().size()));
+            java.util.List<HallSchedule.Conflict> conflicts = result.getConflicts();
+            for (int i = 0; i < conflicts.size() && i < MAX_REPORTED_CONFLICTS; i++) text.append('\n').append(conflicts.get(i));
+            if (conflicts.size() > MAX_REPORTED_CONFLICTS) text.append("\n... еще ").append(conflicts.size() - MAX_REPORTED_CONFLICTS);
+            JTextArea area = new JTextArea(text.toString(), 20, 80);
+            area.setEditable(false);
+            JOptionPane.showMessageDialog(mainFrame, new JScrollPane(area), "Проверка расписания", conflicts.isEmpty()
+                    ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        });
+    }
+
+    /**
+     * Выгрузка HTML по каждому фильму (его сеансы и билеты) в каталог exports:
+     * одно задание на фильм, все выполняются одновременно.
+     */
+    private void exportFilmsHTML() {
+        CinemaRepository.View view = repository.view();
+        File dir = new File(EXPORT_DIR);
+        this.<CompletableFuture<Integer>>runJob("Подготовка выгрузки", job -> {
+            Files.createDirectories(dir.toPath());
+            Map<String, java.util.List<Session>> sessionsByFilm = new HashMap<>();
+            for (Session s : view.getSessions()) sessionsByFilm.computeIfAbsent(s.getFilm(), k -> new ArrayList<>()).add(s);
+            Map<String, java.util.List<Ticket>> ticketsBySession = new HashMap<>();
+            for (Ticket t : view.getTickets()) ticketsBySession.computeIfAbsent(t.getSession(), k -> new ArrayList<>()).add(t);
+
+            java.util.List<CompletableFuture<File>> parts = new ArrayList<>();
+            for (int i = 0; i < view.getFilms().size() && !job.isCancelled(); i++) {
+                Film film = view.getFilms().get(i);
+                java.util.List<Session> sessions = sessionsByFilm.getOrDefault(film.getTitle(), Collections.emptyList());
+                java.util.List<Ticket> tickets = new ArrayList<>();
+                Set<String> keys = new HashSet<>();
+                for (Session s : sessions) {
+                    if (keys.add(s.getKey())) tickets.addAll(ticketsBySession.getOrDefault(s.getKey(), Collections.emptyList()));
+                }
+                File file = new File(dir, String.format("film_%04d.html", i + 1));
+                parts.add(jobs.<File>submit("Выгрузка: " + film.getTitle(), part -> {
+                    return generateSimpleHTML(file.getPath(), film.getTitle(),
+                            new ViewTableModel<>(FilmTableModel.COLUMNS, Collections.singletonList(film), FilmTableModel::value),
+                            new ViewTableModel<>(SessionTableModel.COLUMNS, sessions, SessionTableModel::value),
+                            new ViewTableModel<>(TicketTableModel.COLUMNS, tickets, TicketTableModel::value), part::isCancelled).get(0);
+                }).result());
+            }
+            // ждать выгрузки здесь нельзя: в режиме пула это заняло бы его поток
+            return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(v -> parts.size());
+        }, all -> all.whenComplete((count, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                JOptionPane.showMessageDialog(mainFrame, "Выгружено файлов: " + count + " в каталог " + dir.getAbsolutePath(), "Выгрузка", JOptionPane.INFORMATION_MESSAGE);
+            } else if (!(error instanceof CancellationException) && !(error.getCause() instanceof CancellationException)) {
+                JOptionPane.showMessageDialog(mainFrame, "Ошибка выгрузки: " + error.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
             }
+        })));
+    }
+
+    // ========== ЛР8: МНОГОПОТОЧНОСТЬ ==========
+
+    // 🚀 ФРАГМЕНТ 1: ЗАПУСК КОНВЕЙЕРА
+    // Повторное нажатие во время работы останавливает конвейер
+    private void startPipeline() {
+        if (pipeline != null && !pipeline.isDone()) {
+            pipeline.cancel();
+            return;
         }
+        int threads = loadThreads();
+        File films = new File(XML_FILMS_FILE), sessions = new File(XML_SESSIONS_FILE), tickets = new File(XML_TICKETS_FILE);
+
+        pipeline = Pipeline.<DataImport.Part>from("Загрузка", out -> {
+                    // как и раньше: без films.xml загрузка пропускается, правка и отчет - по текущим данным
+                    if (!films.exists()) return;
+                    for (DataImport.Part part : DataImport.splitXml(films, sessions, tickets, threads * 2)) out.emit(part);
+                })
+                .then("Разбор", threads, threads * 2, new ParseStage())
+                .then("Сборка", 1, threads * 2, new MergeStage())
+                .then("Правка", 1, 1, new EditStage())
+                .then("Сохранение", 1, 1, new PersistStage())
+                .then("Отчет", 1, 1, new ReportStage())
+                .start();
+
+        runThreadsButton.setText("Остановить конвейер");
+        pipelinePoll = new javax.swing.Timer(250, e -> showPipelineStatus());
+        pipelinePoll.start();
+        Pipeline current = pipeline;
+        current.completion().whenComplete((ok, error) -> SwingUtilities.invokeLater(() -> pipelineFinished(current, error)));
     }
 
-    // 📊 ФРАГМЕНТ 4: ПОТОК ГЕНЕРАЦИИ ОТЧЕТА (ReportGenerationThread)
-    private class ReporterThread implements Runnable {
-        @Override public void run() {
-            try {
-                System.out.println("Reporter: waiting for editor...");
-                // ОЖИДАНИЕ завершения EditorThread
-                latchEdit.await();
-                
-                System.out.println("Reporter: generating HTML...");
-                // Генерация HTML отчета
-                SwingUtilities.invokeAndWait(() -> {
-                    try {
-                        generateSimpleHTML("cinema_report_from_threads.html");
-                        JOptionPane.showMessageDialog(mainFrame, 
-                            "Reporter: HTML сформирован: cinema_report_from_threads.html");
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                        JOptionPane.showMessageDialog(mainFrame, 
-                            "Reporter: ошибка генерации HTML: " + ex.getMessage());
+    // Ход работы - в строке состояния; рабочие потоки окна не ждут
+    private void showPipelineStatus() {
+        StringBuilder text = new StringBuilder();
+        StringBuilder tip = new StringBuilder("<html>");
+        for (Pipeline.StageMetrics m : pipeline.getMetrics()) {
+            if (text.length() > 0) text.append(" → ");
+            text.append(m.getName()).append(' ').append(m.getReceived());
+            tip.append(m).append("<br>");
+        }
+        pipelineStatus.setText(text.append(" (").append(pipeline.getElapsedMillis()).append(" мс)").toString());
+        pipelineStatus.setToolTipText(tip.append("</html>").toString());
+    }
+
+    private void pipelineFinished(Pipeline finished, Throwable error) {
+        pipelinePoll.stop();
+        showPipelineStatus();
+        runThreadsButton.setText("Запустить потоки ");
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof InvocationTargetException) cause = cause.getCause();
+        if (cause == null) {
+            pipelineStatus.setText("Конвейер завершен за " + finished.getElapsedMillis() + " мс: cinema_report_from_threads.html");
+        } else if (cause instanceof CancellationException) {
+            pipelineStatus.setText("Конвейер остановлен");
+        } else {
+            pipelineStatus.setText("Ошибка конвейера");
+            JOptionPane.showMessageDialog(mainFrame, "Ошибка конвейера: " + cause.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+            cause.printStackTrace();
+        }
+    }
+
+    // 📥 ФРАГМЕНТ 2: РАЗБОР УЧАСТКОВ XML (несколько потоков)
+    private static class ParseStage implements Pipeline.Stage<DataImport.Part, DataImport.Batch> {
+        @Override public void process(DataImport.Part part, Pipeline.Emitter<DataImport.Batch> out) throws Exception {
+            out.emit(DataImport.readPart(part, Thread.currentThread()::isInterrupted));
+        }
+    }
+
+    // Сборка участков в порядке файлов; пустой результат - файлов нет
+    private static class MergeStage implements Pipeline.Stage<DataImport.Batch, Optional<DataImport.Batch>> {
+        private final java.util.List<DataImport.Batch> parts = new ArrayList<>();
+
+        @Override public void process(DataImport.Batch part, Pipeline.Emitter<Optional<DataImport.Batch>> out) {
+            parts.add(part);
+        }
+
+        @Override public void finish(Pipeline.Emitter<Optional<DataImport.Batch>> out) throws InterruptedException {
+            out.emit(parts.isEmpty() ? Optional.empty() : Optional.of(DataImport.merge(parts)));
+        }
+    }
+
+    // 🔄 ФРАГМЕНТ 3: ПУБЛИКАЦИЯ И РЕДАКТИРОВАНИЕ (в EDT, без модальных окон)
+    private class EditStage implements Pipeline.Stage<Optional<DataImport.Batch>, Integer> {
+        @Override public void process(Optional<DataImport.Batch> batch, Pipeline.Emitter<Integer> out) throws Exception {
+            int[] edited = new int[1];
+            SwingUtilities.invokeAndWait(() -> {
+                batch.ifPresent(CinemaAdminApp.this::publishBatch);
+                for (int i = 0; i < repository.getFilmCount(); i++) {
+                    Film film = repository.getFilm(i);
+                    if (!film.getTitle().endsWith(" (edited)")) {
+                        repository.updateFilm(i, film.withTitle(film.getTitle() + " (edited)"));
+                        edited[0]++;
                     }
-                });
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
+                }
+                if (repository.getSessionCount() > 0) {
+                    sessionsModel.setValueAt(repository.getSession(0).getPrice() + " (edited)", 0, 4);
+                    edited[0]++;
+                }
+            });
+            out.emit(edited[0]);
+        }
+    }
+
+    // 💾 ФРАГМЕНТ 4: СОХРАНЕНИЕ - изменения уже в журнале, ждем их записи на диск
+    private class PersistStage implements Pipeline.Stage<Integer, Integer> {
+        @Override public void process(Integer edited, Pipeline.Emitter<Integer> out) throws Exception {
+            journal.sync();
+            out.emit(edited);
+        }
+    }
+
+    // 📊 ФРАГМЕНТ 5: ГЕНЕРАЦИЯ ОТЧЕТА
+    private class ReportStage implements Pipeline.Stage<Integer, String> {
+        @Override public void process(Integer edited, Pipeline.Emitter<String> out) throws Exception {
+            String file = "cinema_report_from_threads.html";
+            // в EDT - только срез данных, сам отчет пишется в потоке этапа
+            CinemaRepository.View[] view = new CinemaRepository.View[1];
+            SwingUtilities.invokeAndWait(() -> view[0] = repository.view());
+            generateSimpleHTML(file, view[0], Thread.currentThread()::isInterrupted);
+            out.emit(file);
         }
     }
 
     // ========== Тестовые данные и main ==========
 
     private void addTestData() {
-        if (filmsModel.getRowCount() > 0) return;
-        filmsModel.addRow(new Object[]{"Интерстеллар", "Кристофер Нолан", "2014", "Фантастика", "169 мин"});
-        filmsModel.addRow(new Object[]{"Крестный отец", "Фрэнсис Коппола", "1972", "Криминал", "175 мин"});
-        filmsModel.addRow(new Object[]{"Побег из Шоушенка", "Фрэнк Дарабонт", "1994", "Драма", "142 мин"});
-        filmsModel.addRow(new Object[]{"Матрица", "Вачовски", "1999", "Фантастика", "136 мин"});
-        filmsModel.addRow(new Object[]{"Форрест Гамп", "Роберт Земекис", "1994", "Драма", "142 мин"});
-
-        sessionsModel.addRow(new Object[]{"Интерстеллар", "15.12.2025", "18:00", "Зал 1", "350 руб"});
-        sessionsModel.addRow(new Object[]{"Интерстеллар", "15.12.2025", "21:00", "Зал 1", "400 руб"});
-        sessionsModel.addRow(new Object[]{"Крестный отец", "16.12.2025", "19:30", "Зал 2", "300 руб"});
-        sessionsModel.addRow(new Object[]{"Матрица", "17.12.2025", "20:00", "Зал 3", "350 руб"});
-
-        ticketsModel.addRow(new Object[]{"Интерстеллар 18:00", "A1", "Продан", "14:30"});
-        ticketsModel.addRow(new Object[]{"Интерстеллар 18:00", "A2", "Продан", "14:35"});
-        ticketsModel.addRow(new Object[]{"Интерстеллар 18:00", "A3", "Свободно", "-"});
-        ticketsModel.addRow(new Object[]{"Крестный отец 19:30", "B5", "Забронирован", "15:20"});
-        ticketsModel.addRow(new Object[]{"Матрица 20:00", "C2", "Свободно", "-"});
-
-        updateFilmFilter();
+        if (repository.getFilmCount() > 0) return;
+        repository.addFilm(new Film("Интерстеллар", "Кристофер Нолан", "2014", "Фантастика", "169 мин"));
+        repository.addFilm(new Film("Крестный отец", "Фрэнсис Коппола", "1972", "Криминал", "175 мин"));
+        repository.addFilm(new Film("Побег из Шоушенка", "Фрэнк Дарабонт", "1994", "Драма", "142 мин"));
+        repository.addFilm(new Film("Матрица", "Вачовски", "1999", "Фантастика", "136 мин"));
+        repository.addFilm(new Film("Форрест Гамп", "Роберт Земекис", "1994", "Драма", "142 мин"));
+
+        repository.addSession(new Session("Интерстеллар", "15.12.2025", "18:00", "Зал 1", "350 руб"));
+        repository.addSession(new Session("Интерстеллар", "15.12.2025", "21:00", "Зал 1", "400 руб"));
+        repository.addSession(new Session("Крестный отец", "16.12.2025", "19:30", "Зал 2", "300 руб"));
+        repository.addSession(new Session("Матрица", "17.12.2025", "20:00", "Зал 3", "350 руб"));
+
+        repository.addTicket(new Ticket("Интерстеллар 18:00", "A1", Ticket.STATUS_SOLD, "14:30"));
+        repository.addTicket(new Ticket("Интерстеллар 18:00", "A2", Ticket.STATUS_SOLD, "14:35"));
+        repository.addTicket(new Ticket("Интерстеллар 18:00", "A3", Ticket.STATUS_FREE, "-"));
+        repository.addTicket(new Ticket("Крестный отец 19:30", "B5", Ticket.STATUS_RESERVED, "15:20"));
+        repository.addTicket(new Ticket("Матрица 20:00", "C2", Ticket.STATUS_FREE, "-"));
+
+        holdLoadedReservations();
     }
 
     public static void main(String[] args) {
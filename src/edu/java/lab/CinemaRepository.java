@@ -0,0 +1,590 @@
+package edu.java.lab2;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * СЛОЙ ДАННЫХ: хранилище фильмов, сеансов и билетов.
+ * Порядок строк совпадает с порядком в таблицах GUI, а для поиска
+ * поддерживаются хеш-индексы: фильм по названию, сеансы по ключу
+ * "фильм время" и по паре дата/зал, расписание залов ({@link HallSchedule}),
+ * билеты по ключу сеанса; счетчики
+ * статусов билетов ({@link TicketCounters}) и выручка ({@link RevenueEngine})
+ * ведутся на том же пути записи, как и карты мест сеансов ({@link SeatMap}).
+ * Все изменения идут через методы репозитория, которые обновляют индексы
+ * и оповещают слушателей (табличные модели).
+ * Репозиторий однопоточный (работает на EDT); из других потоков безопасно
+ * только чтение карт мест через {@link #getSeatMap}, которым пользуется {@link BookingService}.
+ */
+public class CinemaRepository {
+
+    public enum Entity { FILM, SESSION, TICKET }
+
+    public enum ChangeType { INSERT, UPDATE, DELETE, RELOAD }
+
+    /** Слушатель изменений; для RELOAD номера строк равны -1. */
+    public interface Listener {
+        void repositoryChanged(Entity entity, ChangeType type, int firstRow, int lastRow);
+    }
+
+    private final List<Film> films = new ArrayList<>();
+    private final List<Session> sessions = new ArrayList<>();
+    private final List<Ticket> tickets = new ArrayList<>();
+
+    private final Map<String, List<Film>> filmsByTitle = new HashMap<>();
+    private final FilmTitleIndex filmTitles = new FilmTitleIndex();
+    private final Map<String, List<Session>> sessionsByKey = new HashMap<>();
+    private final Map<String, List<Session>> sessionsByDateHall = new HashMap<>();
+    private final Map<String, List<Session>> sessionsByFilm = new HashMap<>();
+    private final Map<String, List<Session>> sessionsByHall = new HashMap<>();
+    private final SessionSearchIndex sessionsByStart = new SessionSearchIndex();
+    private final HallSchedule schedule = new HallSchedule();
+    private final Map<String, List<Ticket>> ticketsBySession = new HashMap<>();
+    private final TicketCounters ticketCounters = new TicketCounters();
+    private final RevenueEngine revenue = new RevenueEngine();
+    // По ключу "фильм время": сеансы с одним ключом в разные даты делят карту (см. Session)
+    private final Map<String, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    // Номер строки билета - для точечных обновлений по ключу сеанса и месту
+    private final Map<Ticket, Integer> ticketRows = new HashMap<>();
+
+    private final List<Listener> listeners = new ArrayList<>();
+    // Версии данных по сущностям: растут с каждым изменением (ключи кеша отчетов)
+    private final long[] versions = new long[Entity.values().length];
+
+    public void addListener(Listener listener) { listeners.add(listener); }
+    public long getVersion(Entity entity) { return versions[entity.ordinal()]; }
+    public void removeListener(Listener listener) { listeners.remove(listener); }
+
+    // ========== Фильмы ==========
+    public int getFilmCount() { return films.size(); }
+    public Film getFilm(int row) { return films.get(row); }
+
+    /** Первый фильм с таким названием или null. */
+    public Film findFilm(String title) {
+        List<Film> list = filmsByTitle.get(title);
+        return list == null ? null : list.get(0);
+    }
+
+    /** Общий отсортированный список названий для выпадающих списков. */
+    public FilmTitleIndex getFilmTitleIndex() { return filmTitles; }
+
+    public void addFilm(Film film) {
+        Set<String> affected = sessionKeysOfFilm(film.getTitle(), null);
+        retractRevenue(affected);
+        films.add(film);
+        indexFilm(film);
+        reschedule(film.getTitle(), null);
+        restoreRevenue(affected);
+        fire(Entity.FILM, ChangeType.INSERT, films.size() - 1, films.size() - 1);
+    }
+
+    public void updateFilm(int row, Film film) {
+        Set<String> affected = sessionKeysOfFilm(films.get(row).getTitle(), film.getTitle());
+        retractRevenue(affected);
+        Film old = films.set(row, film);
+        unindexFilm(old);
+        indexFilm(film);
+        reschedule(old.getTitle(), film.getTitle());
+        restoreRevenue(affected);
+        fire(Entity.FILM, ChangeType.UPDATE, row, row);
+    }
+
+    public Film removeFilm(int row) {
+        Set<String> affected = sessionKeysOfFilm(films.get(row).getTitle(), null);
+        retractRevenue(affected);
+        Film film = films.remove(row);
+        unindexFilm(film);
+        reschedule(film.getTitle(), null);
+        restoreRevenue(affected);
+        fire(Entity.FILM, ChangeType.DELETE, row, row);
+        return film;
+    }
+
+    private void indexFilm(Film film) {
+        put(filmsByTitle, film.getTitle(), film);
+        filmTitles.add(film.getTitle());
+    }
+
+    private void unindexFilm(Film film) {
+        remove(filmsByTitle, film.getTitle(), film);
+        filmTitles.remove(film.getTitle());
+    }
+
+    // Длительность фильма задает занятость зала его сеансами
+    private void reschedule(String title, String otherTitle) {
+        for (String t : new String[]{title, otherTitle}) {
+            List<Session> list = t == null ? null : sessionsByFilm.get(t);
+            if (list == null) continue;
+            for (Session s : list) {
+                schedule.remove(s);
+                schedule.add(s, findFilm(t));
+            }
+        }
+    }
+
+    // ========== Сеансы ==========
+    public int getSessionCount() { return sessions.size(); }
+    public Session getSession(int row) { return sessions.get(row); }
+
+    /** Сеансы с ключом "фильм время" (при повторе по разным датам их несколько). */
+    public List<Session> findSessions(String key) {
+        return unmodifiable(sessionsByKey.get(key));
+    }
+
+    public List<Session> findSessions(String date, String hall) {
+        return unmodifiable(sessionsByDateHall.get(dateHallKey(date, hall)));
+    }
+
+    /** Расписание залов: занятость по длительности фильмов. */
+    public HallSchedule getSchedule() { return schedule; }
+
+    /**
+     * Сеансы того же зала, с которыми сеанс пересекся бы по времени с учетом
+     * длительности фильма и уборки, - проверка перед добавлением; O(log n + k).
+     */
+    public List<HallSchedule.Slot> findConflicts(Session session) {
+        return schedule.conflicts(session, findFilm(session.getFilm()));
+    }
+
+    public void addSession(Session session) {
+        Set<String> affected = Collections.singleton(session.getKey());
+        retractRevenue(affected);
+        sessions.add(session);
+        indexSession(session);
+        restoreRevenue(affected);
+        rebuildSeatMaps(affected);
+        fire(Entity.SESSION, ChangeType.INSERT, sessions.size() - 1, sessions.size() - 1);
+    }
+
+    public void updateSession(int row, Session session) {
+        Set<String> affected = new HashSet<>(Arrays.asList(sessions.get(row).getKey(), session.getKey()));
+        retractRevenue(affected);
+        unindexSession(sessions.set(row, session));
+        indexSession(session);
+        restoreRevenue(affected);
+        rebuildSeatMaps(affected);
+        fire(Entity.SESSION, ChangeType.UPDATE, row, row);
+    }
+
+    public Session removeSession(int row) {
+        Set<String> affected = Collections.singleton(sessions.get(row).getKey());
+        retractRevenue(affected);
+        Session session = sessions.remove(row);
+        unindexSession(session);
+        restoreRevenue(affected);
+        rebuildSeatMaps(affected);
+        fire(Entity.SESSION, ChangeType.DELETE, row, row);
+        return session;
+    }
+
+    private void indexSession(Session s) {
+        put(sessionsByKey, s.getKey(), s);
+        put(sessionsByDateHall, dateHallKey(s.getDate(), s.getHall()), s);
+        put(sessionsByFilm, s.getFilm(), s);
+        put(sessionsByHall, s.getHall(), s);
+        sessionsByStart.add(s);
+        schedule.add(s, findFilm(s.getFilm()));
+    }
+
+    private void unindexSession(Session s) {
+        remove(sessionsByKey, s.getKey(), s);
+        remove(sessionsByDateHall, dateHallKey(s.getDate(), s.getHall()), s);
+        remove(sessionsByFilm, s.getFilm(), s);
+        remove(sessionsByHall, s.getHall(), s);
+        sessionsByStart.remove(s);
+        schedule.remove(s);
+    }
+
+    /**
+     * Сеанс, к которому относится билет: первый сеанс с таким ключом. Билет
+     * не хранит дату, поэтому повторы ключа в другие даты его зал и цену не задают.
+     */
+    private Session resolveSession(String key) {
+        List<Session> list = sessionsByKey.get(key);
+        return list == null ? null : list.get(0);
+    }
+
+    private static String dateHallKey(String date, String hall) {
+        return date + '\u0000' + hall;
+    }
+
+    // ========== Поиск ==========
+
+    /**
+     * Поиск сеансов и билетов по индексам. Кандидаты берутся из самого узкого
+     * индекса (фильм, затем диапазон дат, затем зал) и проверяются по остальным
+     * условиям. Билеты не перебираются: результат проверяет ключ сеанса и
+     * статус билета, а их число складывается из счетчиков по ключам сеансов.
+     */
+    public SearchResult search(SearchCriteria c) {
+        if (!c.restrictsSessions()) {
+            int count = c.getStatus() == null ? tickets.size() : countTickets(c.getStatus());
+            return new SearchResult(null, null, sessions.size(), c.getStatus(), count);
+        }
+        Collection<Session> candidates;
+        if (c.getFilm() != null) candidates = sessionsByFilm.getOrDefault(c.getFilm(), Collections.emptyList());
+        else if (c.hasDateRange()) candidates = sessionsByStart.between(c.getFrom(), c.getTo());
+        else candidates = sessionsByHall.getOrDefault(c.getHall(), Collections.emptyList());
+        Set<Session> found = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        for (Session s : candidates) {
+            if (matches(s, c)) {
+                found.add(s);
+                keys.add(s.getKey());
+            }
+        }
+        int count = 0;
+        for (String key : keys) {
+            if (c.getStatus() != null) {
+                count += countTickets(key, c.getStatus());
+            } else {
+                List<Ticket> list = ticketsBySession.get(key);
+                if (list != null) count += list.size();
+            }
+        }
+        return new SearchResult(found, keys, found.size(), c.getStatus(), count);
+    }
+
+    private static boolean matches(Session s, SearchCriteria c) {
+        if (c.getFilm() != null && !c.getFilm().equals(s.getFilm())) return false;
+        if (c.getHall() != null && !c.getHall().equals(s.getHall())) return false;
+        if (c.hasDateRange()) {
+            java.time.LocalDate date = SessionSearchIndex.parseDate(s.getDate());
+            if (date == null) return false;
+            if (c.getFrom() != null && date.isBefore(c.getFrom())) return false;
+            if (c.getTo() != null && date.isAfter(c.getTo())) return false;
+        }
+        return true;
+    }
+
+    // ========== Билеты ==========
+    public int getTicketCount() { return tickets.size(); }
+    public Ticket getTicket(int row) { return tickets.get(row); }
+
+    public List<Ticket> findTickets(String sessionKey) {
+        return unmodifiable(ticketsBySession.get(sessionKey));
+    }
+
+    /** Число билетов с данным статусом - O(1), без просмотра таблицы. */
+    public int countTickets(String status) {
+        return ticketCounters.count(status);
+    }
+
+    public int countTickets(String sessionKey, String status) {
+        return ticketCounters.count(sessionKey, status);
+    }
+
+    /** Сверка счетчиков статусов с полным пересчетом; пустой список - расхождений нет. */
+    public List<String> verifyTicketCounters() {
+        return ticketCounters.verify(tickets);
+    }
+
+    public void addTicket(Ticket ticket) {
+        tickets.add(ticket);
+        ticketRows.put(ticket, tickets.size() - 1);
+        indexTicket(ticket);
+        moveSeat(ticket, SeatMap.FREE, seatState(ticket));
+        fire(Entity.TICKET, ChangeType.INSERT, tickets.size() - 1, tickets.size() - 1);
+    }
+
+    public void updateTicket(int row, Ticket ticket) {
+        Ticket old = tickets.set(row, ticket);
+        ticketRows.remove(old);
+        ticketRows.put(ticket, row);
+        unindexTicket(old);
+        indexTicket(ticket);
+        if (old.getSession().equals(ticket.getSession()) && old.getSeat().equals(ticket.getSeat())) {
+            moveSeat(ticket, seatState(old), seatState(ticket));
+        } else {
+            moveSeat(old, seatState(old), SeatMap.FREE);
+            moveSeat(ticket, SeatMap.FREE, seatState(ticket));
+        }
+        fire(Entity.TICKET, ChangeType.UPDATE, row, row);
+    }
+
+    public Ticket removeTicket(int row) {
+        Ticket ticket = tickets.remove(row);
+        ticketRows.remove(ticket);
+        for (int i = row; i < tickets.size(); i++) ticketRows.put(tickets.get(i), i);
+        unindexTicket(ticket);
+        moveSeat(ticket, seatState(ticket), SeatMap.FREE);
+        fire(Entity.TICKET, ChangeType.DELETE, row, row);
+        return ticket;
+    }
+
+    private void indexTicket(Ticket t) {
+        put(ticketsBySession, t.getSession(), t);
+        ticketCounters.add(t);
+        addRevenue(revenue, t);
+    }
+
+    private void unindexTicket(Ticket t) {
+        remove(ticketsBySession, t.getSession(), t);
+        ticketCounters.remove(t);
+        removeRevenue(revenue, t);
+    }
+
+    /**
+     * Переносит в таблицу билетов изменение места, о котором сообщила касса:
+     * обновляет строку билета этого места или добавляет новую. Вызов идет с
+     * задержкой (через invokeLater), поэтому сначала проверяется, что место
+     * все еще в состоянии {@code state}: если его уже изменило следующее
+     * событие, строку запишет оно, со своим временем. Так порядок, в котором
+     * кассы прислали изменения, не важен.
+     */
+    public void syncSeat(String sessionKey, String seat, int state, String saleTime) {
+        SeatMap map = seatMaps.get(sessionKey);
+        if (map == null || map.getState(seat) != state) return;
+        String status = BookingService.statusName(state);
+        if (state == SeatMap.FREE) saleTime = "-";
+        List<Ticket> list = ticketsBySession.get(sessionKey);
+        if (list != null) {
+            for (Ticket t : list) {
+                if (t.getSeat().equals(seat)) {
+                    if (status.equals(t.getStatus()) && saleTime.equals(t.getSaleTime())) return;
+                    updateTicket(ticketRows.get(t), t.withStatus(status, saleTime));
+                    return;
+                }
+            }
+        }
+        addTicket(new Ticket(sessionKey, seat, status, saleTime));
+    }
+
+    // ========== Карты мест ==========
+
+    /** Карта мест сеанса с данным ключом или null, если такого сеанса нет. */
+    public SeatMap getSeatMap(String sessionKey) {
+        return seatMaps.get(sessionKey);
+    }
+
+    private static int seatState(Ticket t) {
+        int state = TicketCounters.statusIndex(t.getStatus());
+        return state < 0 ? SeatMap.FREE : state;
+    }
+
+    /*
+     * Правка строки билета переводит место тем же CAS, что и кассы, из
+     * состояния старой строки в состояние новой. Если касса уже изменила
+     * место, переход не удается и карта сохраняет ее результат, а строку
+     * поправит ее syncSeat.
+     */
+    private void moveSeat(Ticket t, int from, int to) {
+        SeatMap map = seatMaps.get(t.getSession());
+        if (map == null) return;
+        int seat = map.getLayout().seatIndex(t.getSeat());
+        if (seat >= 0) map.compareAndSetState(seat, from, to);
+    }
+
+    /**
+     * Приводит карты мест в соответствие с сеансами. Карта со схемой зала,
+     * которая не изменилась, остается как есть вместе с продажами касс.
+     * При смене схемы старая карта закрывается, и живые состояния мест
+     * переносятся в новую по обозначению места; карта нового сеанса
+     * заполняется по строкам билетов.
+     */
+    private void rebuildSeatMaps(Set<String> sessionKeys) {
+        for (String key : sessionKeys) {
+            Session session = resolveSession(key);
+            SeatMap old = seatMaps.get(key);
+            if (session == null) {
+                if (old != null) {
+                    seatMaps.remove(key);
+                    old.close();
+                }
+                continue;
+            }
+            HallLayout layout = HallLayout.forHall(session.getHall());
+            if (old != null && old.getLayout() == layout) continue;
+            SeatMap map = new SeatMap(layout);
+            if (old != null) {
+                int[] states = old.close();
+                for (int seat = 0; seat < states.length; seat++) {
+                    int index = layout.seatIndex(old.getLayout().seatLabel(seat));
+                    if (index >= 0 && states[seat] != SeatMap.FREE) map.setState(index, states[seat]);
+                }
+            } else {
+                List<Ticket> list = ticketsBySession.get(key);
+                if (list != null) {
+                    for (Ticket t : list) {
+                        int seat = layout.seatIndex(t.getSeat());
+                        if (seat >= 0) map.compareAndSetState(seat, SeatMap.FREE, seatState(t));
+                    }
+                }
+            }
+            seatMaps.put(key, map);
+        }
+    }
+
+    // ========== Выручка ==========
+    public RevenueEngine getRevenue() { return revenue; }
+
+    /** Сверка нарастающих сумм выручки с полным пересчетом. */
+    public boolean verifyRevenue() {
+        RevenueEngine recount = new RevenueEngine();
+        for (Ticket t : tickets) addRevenue(recount, t);
+        return revenue.sameTotals(recount);
+    }
+
+    private void addRevenue(RevenueEngine engine, Ticket t) {
+        Session s = resolveSession(t.getSession());
+        engine.add(t, s, s == null ? null : findFilm(s.getFilm()));
+    }
+
+    private void removeRevenue(RevenueEngine engine, Ticket t) {
+        Session s = resolveSession(t.getSession());
+        engine.remove(t, s, s == null ? null : findFilm(s.getFilm()));
+    }
+
+    /*
+     * Изменение сеанса или фильма меняет связь "билет -> сеанс -> фильм".
+     * Вклад билетов затронутых сеансов снимается до изменения и вносится
+     * заново после него - работа пропорциональна числу этих билетов.
+     */
+    private void retractRevenue(Set<String> sessionKeys) {
+        for (String key : sessionKeys) {
+            List<Ticket> list = ticketsBySession.get(key);
+            if (list != null) for (Ticket t : list) removeRevenue(revenue, t);
+        }
+    }
+
+    private void restoreRevenue(Set<String> sessionKeys) {
+        for (String key : sessionKeys) {
+            List<Ticket> list = ticketsBySession.get(key);
+            if (list != null) for (Ticket t : list) addRevenue(revenue, t);
+        }
+    }
+
+    private Set<String> sessionKeysOfFilm(String title, String otherTitle) {
+        Set<String> keys = new HashSet<>();
+        for (String t : new String[]{title, otherTitle}) {
+            List<Session> list = t == null ? null : sessionsByFilm.get(t);
+            if (list != null) for (Session s : list) keys.add(s.getKey());
+        }
+        return keys;
+    }
+
+    // ========== Копия для фоновых заданий ==========
+
+    /**
+     * Неизменяемый срез данных на момент вызова - для отчетов и выгрузок
+     * вне EDT. Сущности неизменяемы, поэтому копируются только списки ссылок.
+     */
+    public static final class View {
+        private final List<Film> films;
+        private final List<Session> sessions;
+        private final List<Ticket> tickets;
+        private final int soldTickets;
+        private final long soldRevenue;
+        private final long reservedRevenue;
+        private final long[] versions;
+
+        View(List<Film> films, List<Session> sessions, List<Ticket> tickets, int soldTickets, long soldRevenue, long reservedRevenue,
+             long[] versions) {
+            this.films = Collections.unmodifiableList(films);
+            this.sessions = Collections.unmodifiableList(sessions);
+            this.tickets = Collections.unmodifiableList(tickets);
+            this.soldTickets = soldTickets;
+            this.soldRevenue = soldRevenue;
+            this.reservedRevenue = reservedRevenue;
+            this.versions = versions;
+        }
+
+        public List<Film> getFilms() { return films; }
+        public List<Session> getSessions() { return sessions; }
+        public List<Ticket> getTickets() { return tickets; }
+        public int getSoldTickets() { return soldTickets; }
+        public long getSoldRevenue() { return soldRevenue; }
+        public long getReservedRevenue() { return reservedRevenue; }
+        /** Версия сущности на момент среза. */
+        public long getVersion(Entity entity) { return versions[entity.ordinal()]; }
+        /** Версии всех сущностей - для отчетов, зависящих от всех данных. */
+        public long[] getVersions() { return versions.clone(); }
+
+        public ViewTableModel<Film> filmsTable() { return new ViewTableModel<>(FilmTableModel.COLUMNS, films, FilmTableModel::value); }
+        public ViewTableModel<Session> sessionsTable() { return new ViewTableModel<>(SessionTableModel.COLUMNS, sessions, SessionTableModel::value); }
+        public ViewTableModel<Ticket> ticketsTable() { return new ViewTableModel<>(TicketTableModel.COLUMNS, tickets, TicketTableModel::value); }
+    }
+
+    /** Срез текущих данных; вызывать на EDT, читать - из любого потока. */
+    public View view() {
+        return new View(new ArrayList<>(films), new ArrayList<>(sessions), new ArrayList<>(tickets),
+                countTickets(Ticket.STATUS_SOLD), revenue.getSoldRevenue(), revenue.getReservedRevenue(), versions.clone());
+    }
+
+    // ========== Общие операции ==========
+    public void clear() {
+        clearState();
+        for (Entity entity : Entity.values()) fire(entity, ChangeType.RELOAD, -1, -1);
+    }
+
+    /**
+     * Массовая замена всех данных (загрузка файла). Индексы строятся одним
+     * проходом, а таблицы получают по одному событию RELOAD вместо события
+     * на каждую строку. Сеансы индексируются раньше билетов, поэтому выручка
+     * сразу считается по окончательным связям, а карты мест строятся после
+     * билетов и заполняются по их строкам.
+     */
+    public void replaceAll(Collection<Film> newFilms, Collection<Session> newSessions, Collection<Ticket> newTickets) {
+        clearState();
+        films.addAll(newFilms);
+        List<String> titles = new ArrayList<>(films.size());
+        for (Film film : films) {
+            put(filmsByTitle, film.getTitle(), film);
+            titles.add(film.getTitle());
+        }
+        filmTitles.addAll(titles);
+        sessions.addAll(newSessions);
+        for (Session session : sessions) indexSession(session);
+        tickets.addAll(newTickets);
+        for (int i = 0; i < tickets.size(); i++) {
+            Ticket ticket = tickets.get(i);
+            ticketRows.put(ticket, i);
+            indexTicket(ticket);
+        }
+        rebuildSeatMaps(sessionsByKey.keySet());
+        for (Entity entity : Entity.values()) fire(entity, ChangeType.RELOAD, -1, -1);
+    }
+
+    private void clearState() {
+        films.clear();
+        sessions.clear();
+        tickets.clear();
+        filmsByTitle.clear();
+        filmTitles.clear();
+        sessionsByKey.clear();
+        sessionsByDateHall.clear();
+        sessionsByFilm.clear();
+        sessionsByHall.clear();
+        sessionsByStart.clear();
+        schedule.clear();
+        ticketsBySession.clear();
+        ticketCounters.clear();
+        revenue.clear();
+        for (SeatMap map : seatMaps.values()) map.close();
+        seatMaps.clear();
+        ticketRows.clear();
+    }
+
+    private void fire(Entity entity, ChangeType type, int firstRow, int lastRow) {
+        versions[entity.ordinal()]++;
+        for (Listener listener : listeners) listener.repositoryChanged(entity, type, firstRow, lastRow);
+    }
+
+    private static <T> void put(Map<String, List<T>> index, String key, T value) {
+        index.computeIfAbsent(key, k -> new ArrayList<>(2)).add(value);
+    }
+
+    // Удаление по ссылке, а не по equals: одинаковые строки - разные записи
+    private static <T> void remove(Map<String, List<T>> index, String key, T value) {
+        List<T> list = index.get(key);
+        if (list == null) return;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == value) { list.remove(i); break; }
+        }
+        if (list.isEmpty()) index.remove(key);
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+}
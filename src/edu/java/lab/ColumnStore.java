@@ -0,0 +1,301 @@
+package edu.java.lab2;
+
+import java.util.*;
+
+/**
+ * Столбцовое представление сеансов и билетов. Повторяющиеся строки (ключ
+ * сеанса, место, фильм, дата, зал) хранятся один раз в словаре, а строки
+ * таблицы - номерами в словаре в растущих массивах примитивов:
+ * <pre>
+ *   билет: int сеанс, int место, byte статус, short время продажи (минуты суток)
+ *   сеанс: int ключ, int фильм, int дата, short время, int зал, int цена, long цена в копейках
+ * </pre>
+ * Билет занимает 11 байт против ~32 байт объекта {@link Ticket} плюс ссылки
+ * и собственных строк в каждой ячейке у построчных таблиц. Агрегаты отчетов
+ * ({@link #totals()}) считаются одним последовательным проходом по массивам.
+ * <p>
+ * Статус вне трех стандартных и время не вида "ЧЧ:ММ" (и не "-") кладутся
+ * в словарь, а номер строки отмечается в таблице исключений, поэтому
+ * значения восстанавливаются в точности. Хранилище не синхронизировано: строится
+ * одним потоком, читать после построения можно из любого.
+ */
+public final class ColumnStore {
+    private static final String[] STATUSES = {Ticket.STATUS_FREE, Ticket.STATUS_RESERVED, Ticket.STATUS_SOLD};
+    private static final String NO_TIME = "-";
+    // Коды времени: минуты суток, "-" или значение из таблицы исключений
+    private static final short TIME_NONE = -1;
+    private static final short TIME_OTHER = Short.MIN_VALUE;
+    private static final byte STATUS_OTHER = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Dictionary dict = new Dictionary();
+
+    private int ticketCount;
+    private int[] ticketSession = new int[INITIAL_CAPACITY];
+    private int[] ticketSeat = new int[INITIAL_CAPACITY];
+    private byte[] ticketStatus = new byte[INITIAL_CAPACITY];
+    private short[] ticketSaleTime = new short[INITIAL_CAPACITY];
+    // Исключения: номер строки -> номер значения в словаре
+    private final Map<Integer, Integer> otherStatus = new HashMap<>();
+    private final Map<Integer, Integer> otherSaleTime = new HashMap<>();
+
+    private int sessionCount;
+    private int[] sessionKey = new int[INITIAL_CAPACITY];
+    private int[] sessionFilm = new int[INITIAL_CAPACITY];
+    private int[] sessionDate = new int[INITIAL_CAPACITY];
+    private short[] sessionTime = new short[INITIAL_CAPACITY];
+    private int[] sessionHall = new int[INITIAL_CAPACITY];
+    private int[] sessionPrice = new int[INITIAL_CAPACITY];
+    private long[] sessionPriceKopecks = new long[INITIAL_CAPACITY];
+    private final Map<Integer, Integer> otherSessionTime = new HashMap<>();
+
+    /** Хранилище со всеми сеансами и билетами среза. */
+    public static ColumnStore of(CinemaRepository.View view) {
+        return of(view.getSessions(), view.getTickets());
+    }
+
+    public static ColumnStore of(Collection<Session> sessions, Collection<Ticket> tickets) {
+        ColumnStore store = new ColumnStore();
+        store.ensureSessions(sessions.size());
+        for (Session s : sessions) store.addSession(s);
+        store.ensureTickets(tickets.size());
+        for (Ticket t : tickets) store.addTicket(t);
+        return store;
+    }
+
+    // ========== Билеты ==========
+
+    public int getTicketCount() { return ticketCount; }
+
+    public void addTicket(Ticket t) {
+        ensureTickets(ticketCount + 1);
+        setTicket(ticketCount++, t);
+    }
+
+    public void setTicket(int row, Ticket t) {
+        if (row < 0 || row >= ticketCount) throw new IndexOutOfBoundsException("row " + row);
+        ticketSession[row] = dict.id(t.getSession());
+        ticketSeat[row] = dict.id(t.getSeat());
+        int status = TicketCounters.statusIndex(t.getStatus());
+        ticketStatus[row] = status >= 0 ? (byte) status : STATUS_OTHER;
+        if (status < 0) otherStatus.put(row, dict.id(t.getStatus()));
+        else otherStatus.remove(row);
+        ticketSaleTime[row] = encodeTime(t.getSaleTime(), row, otherSaleTime);
+    }
+
+    public Ticket getTicket(int row) {
+        return new Ticket(getTicketSession(row), getTicketSeat(row), getTicketStatus(row), getTicketSaleTime(row));
+    }
+
+    public String getTicketSession(int row) { return dict.get(ticketSession[check(row, ticketCount)]); }
+    public String getTicketSeat(int row) { return dict.get(ticketSeat[check(row, ticketCount)]); }
+
+    public String getTicketStatus(int row) {
+        byte status = ticketStatus[check(row, ticketCount)];
+        return status >= 0 ? STATUSES[status] : dict.get(otherStatus.get(row));
+    }
+
+    public String getTicketSaleTime(int row) {
+        return decodeTime(ticketSaleTime[check(row, ticketCount)], row, otherSaleTime);
+    }
+
+    private void ensureTickets(int capacity) {
+        if (capacity <= ticketSession.length) return;
+        int n = grow(ticketSession.length, capacity);
+        ticketSession = Arrays.copyOf(ticketSession, n);
+        ticketSeat = Arrays.copyOf(ticketSeat, n);
+        ticketStatus = Arrays.copyOf(ticketStatus, n);
+        ticketSaleTime = Arrays.copyOf(ticketSaleTime, n);
+    }
+
+    // ========== Сеансы ==========
+
+    public int getSessionCount() { return sessionCount; }
+
+    public void addSession(Session s) {
+        ensureSessions(sessionCount + 1);
+        int row = sessionCount++;
+        sessionKey[row] = dict.id(s.getKey());
+        sessionFilm[row] = dict.id(s.getFilm());
+        sessionDate[row] = dict.id(s.getDate());
+        sessionTime[row] = encodeTime(s.getTime(), row, otherSessionTime);
+        sessionHall[row] = dict.id(s.getHall());
+        sessionPrice[row] = dict.id(s.getPrice());
+        sessionPriceKopecks[row] = s.getPriceKopecks();
+    }
+
+    public Session getSession(int row) {
+        check(row, sessionCount);
+        return new Session(dict.get(sessionFilm[row]), dict.get(sessionDate[row]), decodeTime(sessionTime[row], row, otherSessionTime),
+                dict.get(sessionHall[row]), dict.get(sessionPrice[row]));
+    }
+
+    private void ensureSessions(int capacity) {
+        if (capacity <= sessionKey.length) return;
+        int n = grow(sessionKey.length, capacity);
+        sessionKey = Arrays.copyOf(sessionKey, n);
+        sessionFilm = Arrays.copyOf(sessionFilm, n);
+        sessionDate = Arrays.copyOf(sessionDate, n);
+        sessionTime = Arrays.copyOf(sessionTime, n);
+        sessionHall = Arrays.copyOf(sessionHall, n);
+        sessionPrice = Arrays.copyOf(sessionPrice, n);
+        sessionPriceKopecks = Arrays.copyOf(sessionPriceKopecks, n);
+    }
+
+    // ========== Агрегаты ==========
+
+    /** Итоги по билетам: число по статусам и выручка - то же, что ведут {@link TicketCounters} и {@link RevenueEngine}. */
+    public static final class Totals {
+        private final int[] statusCounts;
+        private final long soldRevenue;
+        private final long reservedRevenue;
+        private final Map<String, Long> revenueByFilm;
+        private final Map<String, Long> revenueByHall;
+
+        Totals(int[] statusCounts, long soldRevenue, long reservedRevenue, Map<String, Long> revenueByFilm, Map<String, Long> revenueByHall) {
+            this.statusCounts = statusCounts;
+            this.soldRevenue = soldRevenue;
+            this.reservedRevenue = reservedRevenue;
+            this.revenueByFilm = revenueByFilm;
+            this.revenueByHall = revenueByHall;
+        }
+
+        public int count(String status) {
+            int index = TicketCounters.statusIndex(status);
+            return index < 0 ? 0 : statusCounts[index];
+        }
+
+        public long getSoldRevenue() { return soldRevenue; }
+        public long getReservedRevenue() { return reservedRevenue; }
+        public Map<String, Long> getRevenueByFilm() { return revenueByFilm; }
+        public Map<String, Long> getRevenueByHall() { return revenueByHall; }
+    }
+
+    /**
+     * Итоги одним проходом по столбцам билетов. Цена и фильм сеанса берутся
+     * из массивов, индексированных номером ключа сеанса в словаре; как и в
+     * репозитории, при повторяющемся ключе действует первый сеанс, а билет
+     * без сеанса в выручку не попадает.
+     */
+    public Totals totals() {
+        int[] sessionOfKey = new int[dict.size()];
+        Arrays.fill(sessionOfKey, -1);
+        for (int s = sessionCount - 1; s >= 0; s--) sessionOfKey[sessionKey[s]] = s;
+
+        int[] counts = new int[STATUSES.length];
+        long sold = 0, reserved = 0;
+        long[] byFilm = new long[dict.size()];
+        long[] byHall = new long[dict.size()];
+        for (int row = 0; row < ticketCount; row++) {
+            byte status = ticketStatus[row];
+            if (status < 0) continue;
+            counts[status]++;
+            if (status == TicketCounters.FREE) continue;
+            int s = sessionOfKey[ticketSession[row]];
+            if (s < 0) continue;
+            long price = sessionPriceKopecks[s];
+            if (status == TicketCounters.RESERVED) {
+                reserved += price;
+            } else {
+                sold += price;
+                byFilm[sessionFilm[s]] += price;
+                byHall[sessionHall[s]] += price;
+            }
+        }
+        return new Totals(counts, sold, reserved, byId(byFilm), byId(byHall));
+    }
+
+    private Map<String, Long> byId(long[] sums) {
+        Map<String, Long> result = new TreeMap<>();
+        for (int id = 0; id < sums.length; id++) {
+            if (sums[id] != 0) result.merge(String.valueOf(dict.get(id)), sums[id], Long::sum);
+        }
+        return result;
+    }
+
+    // ========== Память ==========
+
+    /** Занятая хранилищем память, байт (массивы по емкости плюс словарь). */
+    public long getHeapBytes() {
+        long bytes = MemoryLayout.array(ticketSession.length, 4) * 2 + MemoryLayout.array(ticketStatus.length, 1)
+                + MemoryLayout.array(ticketSaleTime.length, 2);
+        bytes += MemoryLayout.array(sessionKey.length, 4) * 5 + MemoryLayout.array(sessionTime.length, 2)
+                + MemoryLayout.array(sessionPriceKopecks.length, 8);
+        bytes += dict.heapBytes();
+        bytes += (long) (otherStatus.size() + otherSaleTime.size() + otherSessionTime.size()) * MemoryLayout.HASH_ENTRY;
+        return bytes;
+    }
+
+    public int getDictionarySize() { return dict.size(); }
+
+    // ========== Служебное ==========
+
+    private short encodeTime(String value, int row, Map<Integer, Integer> others) {
+        others.remove(row);
+        if (NO_TIME.equals(value)) return TIME_NONE;
+        if (value != null && value.length() == 5 && value.charAt(2) == ':') {
+            int h = digits(value, 0), m = digits(value, 3);
+            if (h >= 0 && h < 24 && m >= 0 && m < 60) return (short) (h * 60 + m);
+        }
+        others.put(row, dict.id(value));
+        return TIME_OTHER;
+    }
+
+    private static int digits(String s, int at) {
+        char a = s.charAt(at), b = s.charAt(at + 1);
+        if (a < '0' || a > '9' || b < '0' || b > '9') return -1;
+        return (a - '0') * 10 + (b - '0');
+    }
+
+    private String decodeTime(short code, int row, Map<Integer, Integer> others) {
+        if (code == TIME_NONE) return NO_TIME;
+        if (code == TIME_OTHER) return dict.get(others.get(row));
+        return dict.clock(code);
+    }
+
+    private static int check(int row, int count) {
+        if (row < 0 || row >= count) throw new IndexOutOfBoundsException("row " + row);
+        return row;
+    }
+
+    private static int grow(int current, int needed) {
+        long n = Math.max(needed, current + (current >> 1));
+        return (int) Math.min(n, Integer.MAX_VALUE - 8);
+    }
+
+    /** Словарь строк: номер присваивается при первом появлении. */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] strings = new String[INITIAL_CAPACITY];
+        private int size;
+        // Строки "ЧЧ:ММ" общие для всех строк хранилища - создаются по первому обращению
+        private final String[] clock = new String[24 * 60];
+
+        int id(String s) {
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            if (size == strings.length) strings = Arrays.copyOf(strings, grow(size, size + 1));
+            strings[size] = s;
+            ids.put(s, size);
+            return size++;
+        }
+
+        String get(int id) { return strings[id]; }
+        int size() { return size; }
+
+        String clock(int minutes) {
+            String s = clock[minutes];
+            if (s == null) {
+                s = String.format(Locale.ROOT, "%02d:%02d", minutes / 60, minutes % 60);
+                clock[minutes] = s;
+            }
+            return s;
+        }
+
+        long heapBytes() {
+            long bytes = MemoryLayout.array(strings.length, MemoryLayout.REF) + (long) ids.size() * MemoryLayout.HASH_ENTRY;
+            for (int i = 0; i < size; i++) bytes += MemoryLayout.string(strings[i]);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Массовая загрузка данных вне потока EDT. Файлы разбираются в списки
+ * сущностей, которые затем публикуются в репозиторий одним вызовом
+ * {@link CinemaRepository#replaceAll}; до публикации текущие данные не меняются,
+ * поэтому отмененная загрузка ничего не портит.
+ */
+public final class DataImport {
+
+    /** Прочитанные записи. До публикации принадлежат потоку, который их читал. */
+    public static final class Batch {
+        final List<Film> films = new ArrayList<>();
+        final List<Session> sessions = new ArrayList<>();
+        final List<Ticket> tickets = new ArrayList<>();
+        // Поколение снимка, из которого прочитаны данные (0 - не из снимка)
+        long generation;
+        // Номер участка при поэтапной загрузке (см. Part)
+        int order;
+
+        public int getFilmCount() { return films.size(); }
+        public int getSessionCount() { return sessions.size(); }
+        public int getTicketCount() { return tickets.size(); }
+        public int getRowCount() { return films.size() + sessions.size() + tickets.size(); }
+    }
+
+    /** Источник данных для фоновой загрузки. */
+    public interface Reader {
+        Batch read(XmlService.ProgressListener progress, BooleanSupplier cancelled) throws IOException, XMLStreamException;
+    }
+
+    // Меньшие участки tickets.xml не окупают запуск отдельной задачи
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+
+    private DataImport() {}
+
+    /**
+     * Читает три XML-файла; отсутствующий файл пропускается.
+     * Ход загрузки сообщается в байтах от суммарного размера файлов.
+     */
+    public static Batch readXml(File filmsFile, File sessionsFile, File ticketsFile,
+                                XmlService.ProgressListener progress, BooleanSupplier cancelled)
+            throws IOException, XMLStreamException {
+        Batch batch = new Batch();
+        long total = length(filmsFile) + length(sessionsFile) + length(ticketsFile);
+        long done = 0;
+        if (filmsFile.exists()) {
+            XmlService.readFilms(filmsFile, v -> {
+                checkCancelled(cancelled);
+                batch.films.add(new Film(v[0], v[1], v[2], v[3], v[4]));
+            }, shifted(progress, done, total, 0));
+            done += length(filmsFile);
+        }
+        if (sessionsFile.exists()) {
+            XmlService.readSessions(sessionsFile, v -> {
+                checkCancelled(cancelled);
+                batch.sessions.add(new Session(v[0], v[1], v[2], v[3], v[4]));
+            }, shifted(progress, done, total, batch.films.size()));
+            done += length(sessionsFile);
+        }
+        if (ticketsFile.exists()) {
+            XmlService.readTickets(ticketsFile, v -> {
+                checkCancelled(cancelled);
+                batch.tickets.add(new Ticket(v[0], v[1], v[2], v[3]));
+            }, shifted(progress, done, total, batch.films.size() + batch.sessions.size()));
+        }
+        return batch;
+    }
+
+    /**
+     * Параллельный вариант {@link #readXml}: фильмы, сеансы и участки
+     * tickets.xml разбираются одновременно в пуле из {@code threads} потоков.
+     * Сущности связаны по строковым ключам, поэтому связи "билет - сеанс - фильм"
+     * разрешаются уже после чтения, при публикации в репозиторий.
+     * Порядок билетов совпадает с порядком в файле.
+     * Ошибка в одной задаче останавливает остальные.
+     */
+    public static Batch readXmlParallel(File filmsFile, File sessionsFile, File ticketsFile, int threads,
+                                        XmlService.ProgressListener progress, BooleanSupplier cancelled)
+            throws IOException, XMLStreamException {
+        long total = length(filmsFile) + length(sessionsFile) + length(ticketsFile);
+        SharedProgress shared = new SharedProgress(progress, total);
+        AtomicBoolean failed = new AtomicBoolean();
+        BooleanSupplier stop = () -> failed.get() || cancelled.getAsBoolean();
+
+        int parts = (int) Math.max(1, Math.min(threads, length(ticketsFile) / MIN_CHUNK_BYTES));
+        long[] bounds = parts > 1 ? XmlService.splitTickets(ticketsFile, parts) : new long[0];
+
+        ExecutorService pool = newPool(threads);
+        try {
+            CompletableFuture<List<Film>> films = async(pool, failed, () -> {
+                List<Film> list = new ArrayList<>();
+                if (filmsFile.exists()) XmlService.readFilms(filmsFile, v -> {
+                    checkCancelled(stop);
+                    list.add(new Film(v[0], v[1], v[2], v[3], v[4]));
+                }, shared.part());
+                return list;
+            });
+            CompletableFuture<List<Session>> sessions = async(pool, failed, () -> {
+                List<Session> list = new ArrayList<>();
+                if (sessionsFile.exists()) XmlService.readSessions(sessionsFile, v -> {
+                    checkCancelled(stop);
+                    list.add(new Session(v[0], v[1], v[2], v[3], v[4]));
+                }, shared.part());
+                return list;
+            });
+            List<CompletableFuture<List<Ticket>>> chunks = new ArrayList<>();
+            if (bounds.length > 2) {
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long from = bounds[i], to = bounds[i + 1];
+                    chunks.add(async(pool, failed, () -> {
+                        List<Ticket> list = new ArrayList<>();
+                        XmlService.readTicketsRange(ticketsFile, from, to, v -> {
+                            checkCancelled(stop);
+                            list.add(new Ticket(v[0], v[1], v[2], v[3]));
+                        }, shared.part());
+                        return list;
+                    }));
+                }
+            } else {
+                chunks.add(async(pool, failed, () -> {
+                    List<Ticket> list = new ArrayList<>();
+                    if (ticketsFile.exists()) XmlService.readTickets(ticketsFile, v -> {
+                        checkCancelled(stop);
+                        list.add(new Ticket(v[0], v[1], v[2], v[3]));
+                    }, shared.part());
+                    return list;
+                }));
+            }
+
+            List<CompletableFuture<?>> all = new ArrayList<>(chunks);
+            all.add(films);
+            all.add(sessions);
+            try {
+                CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException ex) {
+                throw unwrap(all);
+            }
+
+            Batch batch = new Batch();
+            batch.films.addAll(films.join());
+            batch.sessions.addAll(sessions.join());
+            for (CompletableFuture<List<Ticket>> chunk : chunks) batch.tickets.addAll(chunk.join());
+            return batch;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newPool(int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger n = new AtomicInteger();
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "DataImport-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private interface Task<T> {
+        T call() throws IOException, XMLStreamException;
+    }
+
+    private static <T> CompletableFuture<T> async(Executor pool, AtomicBoolean failed, Task<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (CancellationException ex) {
+                throw ex;
+            } catch (IOException | XMLStreamException | RuntimeException ex) {
+                failed.set(true);
+                throw new CompletionException(ex);
+            }
+        }, pool);
+    }
+
+    /*
+     * Первая настоящая ошибка среди задач; если все упавшие задачи
+     * лишь остановлены - загрузку отменил пользователь.
+     */
+    private static CancellationException unwrap(List<? extends CompletableFuture<?>> futures) throws IOException, XMLStreamException {
+        for (CompletableFuture<?> f : futures) {
+            if (!f.isCompletedExceptionally()) continue;
+            try {
+                f.join();
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof CancellationException) continue;
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof XMLStreamException) throw (XMLStreamException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IOException(cause);
+            } catch (CancellationException ex) {
+                // задача остановлена
+            }
+        }
+        return new CancellationException("Загрузка отменена");
+    }
+
+    /** Сводный ход загрузки нескольких задач: каждая сообщает о своей части. */
+    private static final class SharedProgress {
+        private final XmlService.ProgressListener target;
+        private final long total;
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger rows = new AtomicInteger();
+
+        SharedProgress(XmlService.ProgressListener target, long total) {
+            this.target = target;
+            this.total = total;
+        }
+
+        XmlService.ProgressListener part() {
+            if (target == null) return null;
+            return new XmlService.ProgressListener() {
+                private long lastBytes;
+                private int lastRows;
+
+                @Override public void progress(long bytesRead, long totalBytes, int count) {
+                    long b = bytes.addAndGet(bytesRead - lastBytes);
+                    int r = rows.addAndGet(count - lastRows);
+                    lastBytes = bytesRead;
+                    lastRows = count;
+                    target.progress(b, total, r);
+                }
+            };
+        }
+    }
+
+    // ========== Поэтапная загрузка ==========
+
+    /** Участок XML-набора: файл фильмов, файл сеансов или диапазон tickets.xml. */
+    public static final class Part {
+        final int order;
+        final int section;
+        final File file;
+        final long from, to; // to < 0 - файл целиком
+
+        Part(int order, int section, File file, long from, long to) {
+            this.order = order;
+            this.section = section;
+            this.file = file;
+            this.from = from;
+            this.to = to;
+        }
+
+        public long getLength() { return to < 0 ? length(file) : to - from; }
+    }
+
+    /**
+     * Делит набор XML-файлов на независимые участки (не более {@code parts}
+     * для tickets.xml) - для конвейера, где разбор идет отдельным этапом.
+     * Отсутствующие файлы пропускаются.
+     */
+    public static List<Part> splitXml(File filmsFile, File sessionsFile, File ticketsFile, int parts) throws IOException {
+        List<Part> result = new ArrayList<>();
+        if (filmsFile.exists()) result.add(new Part(result.size(), TextFormat.FILMS, filmsFile, 0, -1));
+        if (sessionsFile.exists()) result.add(new Part(result.size(), TextFormat.SESSIONS, sessionsFile, 0, -1));
+        if (ticketsFile.exists()) {
+            int n = (int) Math.max(1, Math.min(parts, length(ticketsFile) / MIN_CHUNK_BYTES));
+            long[] bounds = n > 1 ? XmlService.splitTickets(ticketsFile, n) : new long[0];
+            if (bounds.length > 2) {
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    result.add(new Part(result.size(), TextFormat.TICKETS, ticketsFile, bounds[i], bounds[i + 1]));
+                }
+            } else {
+                result.add(new Part(result.size(), TextFormat.TICKETS, ticketsFile, 0, -1));
+            }
+        }
+        return result;
+    }
+
+    /** Разбирает один участок; потокобезопасно - участки читаются параллельно. */
+    public static Batch readPart(Part part, BooleanSupplier cancelled) throws IOException, XMLStreamException {
+        Batch batch = new Batch();
+        batch.order = part.order;
+        XmlService.RowHandler handler = v -> {
+            checkCancelled(cancelled);
+            addRow(batch, part.section, v);
+        };
+        switch (part.section) {
+            case TextFormat.FILMS: XmlService.readFilms(part.file, handler, null); break;
+            case TextFormat.SESSIONS: XmlService.readSessions(part.file, handler, null); break;
+            default:
+                if (part.to < 0) XmlService.readTickets(part.file, handler, null);
+                else XmlService.readTicketsRange(part.file, part.from, part.to, handler, null);
+        }
+        return batch;
+    }
+
+    /** Собирает разобранные участки в порядке файлов, независимо от порядка завершения. */
+    public static Batch merge(List<Batch> parts) {
+        List<Batch> sorted = new ArrayList<>(parts);
+        sorted.sort((a, b) -> Integer.compare(a.order, b.order));
+        Batch batch = new Batch();
+        for (Batch part : sorted) {
+            batch.films.addAll(part.films);
+            batch.sessions.addAll(part.sessions);
+            batch.tickets.addAll(part.tickets);
+        }
+        return batch;
+    }
+
+    /**
+     * Читает текстовый файл формата {@link TextFormat}. Большой файл при
+     * {@code threads > 1} делится на участки по разделам и строкам, которые
+     * разбираются параллельно; записи собираются в порядке файла.
+     */
+    public static Batch readText(File file, int threads, XmlService.ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        if (threads > 1 && file.length() >= 2 * MIN_CHUNK_BYTES) return readTextParallel(file, threads, progress, cancelled);
+        Batch batch = new Batch();
+        long total = file.length();
+        try (XmlService.CountingInputStream in = new XmlService.CountingInputStream(new FileInputStream(file));
+             java.io.Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            int[] rows = {0};
+            TextFormat.read(reader, TextFormat.NONE, (section, v) -> {
+                checkCancelled(cancelled);
+                addRow(batch, section, v);
+                if (progress != null && ++rows[0] % XmlService.PROGRESS_STEP == 0) progress.progress(in.getCount(), total, rows[0]);
+            });
+            if (progress != null) progress.progress(total, total, rows[0]);
+        }
+        return batch;
+    }
+
+    private static Batch readTextParallel(File file, int threads, XmlService.ProgressListener progress, BooleanSupplier cancelled)
+            throws IOException {
+        SharedProgress shared = new SharedProgress(progress, file.length());
+        AtomicBoolean failed = new AtomicBoolean();
+        BooleanSupplier stop = () -> failed.get() || cancelled.getAsBoolean();
+        List<CompletableFuture<Batch>> parts = new ArrayList<>();
+        ExecutorService pool = newPool(threads);
+        try {
+            for (long[] range : TextFormat.split(file, threads)) {
+                parts.add(async(pool, failed, () -> {
+                    Batch part = new Batch();
+                    TextFormat.readRange(file, range[1], range[2], (int) range[0], (section, v) -> {
+                        checkCancelled(stop);
+                        addRow(part, section, v);
+                    }, shared.part());
+                    return part;
+                }));
+            }
+            try {
+                CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException ex) {
+                try {
+                    throw unwrap(parts);
+                } catch (XMLStreamException impossible) {
+                    throw new IOException(impossible);
+                }
+            }
+            Batch batch = new Batch();
+            for (CompletableFuture<Batch> f : parts) {
+                Batch part = f.join();
+                batch.films.addAll(part.films);
+                batch.sessions.addAll(part.sessions);
+                batch.tickets.addAll(part.tickets);
+            }
+            return batch;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void addRow(Batch batch, int section, String[] v) {
+        switch (section) {
+            case TextFormat.FILMS: batch.films.add(new Film(v[0], v[1], v[2], v[3], v[4])); break;
+            case TextFormat.SESSIONS: batch.sessions.add(new Session(v[0], v[1], v[2], v[3], v[4])); break;
+            default: batch.tickets.add(new Ticket(v[0], v[1], v[2], v[3]));
+        }
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) throw new CancellationException("Загрузка отменена");
+    }
+
+    // Пересчет хода загрузки одного файла в ход загрузки всего набора
+    private static XmlService.ProgressListener shifted(XmlService.ProgressListener progress, long done, long total, int rowsBefore) {
+        if (progress == null) return null;
+        return (bytesRead, fileBytes, rows) -> progress.progress(done + bytesRead, total, rowsBefore + rows);
+    }
+
+    private static long length(File file) {
+        return file.exists() ? file.length() : 0;
+    }
+}
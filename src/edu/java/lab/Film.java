@@ -0,0 +1,35 @@
+package edu.java.lab2;
+
+import java.util.Objects;
+
+/**
+ * Фильм репертуара. Неизменяемая сущность: правка фильма в репозитории
+ * заменяет объект целиком, чтобы индексы оставались согласованными.
+ */
+public final class Film {
+    private final String title;
+    private final String director;
+    private final String year;
+    private final String genre;
+    private final String duration;
+
+    public Film(String title, String director, String year, String genre, String duration) {
+        this.title = Objects.requireNonNull(title, "title");
+        this.director = director;
+        this.year = year;
+        this.genre = genre;
+        this.duration = duration;
+    }
+
+    public String getTitle() { return title; }
+    public String getDirector() { return director; }
+    public String getYear() { return year; }
+    public String getGenre() { return genre; }
+    public String getDuration() { return duration; }
+
+    public Film withTitle(String newTitle) {
+        return new Film(newTitle, director, year, genre, duration);
+    }
+
+    @Override public String toString() { return title; }
+}
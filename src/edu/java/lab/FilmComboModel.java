@@ -0,0 +1,99 @@
+package edu.java.lab2;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+/**
+ * Модель выпадающего списка фильмов поверх общего {@link FilmTitleIndex}.
+ * Данные не копируются; изменения каталога приходят как вставка или удаление
+ * одной строки. Фильтр по началу названия сужает видимый диапазон индекса.
+ * Необязательный первый пункт (например, "Все фильмы") показывается всегда.
+ */
+@SuppressWarnings("serial")
+public class FilmComboModel extends AbstractListModel<String> implements ComboBoxModel<String>, FilmTitleIndex.Listener {
+    private final FilmTitleIndex index;
+    private final String headItem;
+    private String prefix = "";
+    private int from;
+    private int to;
+    private Object selected;
+
+    public FilmComboModel(FilmTitleIndex index, String headItem) {
+        this.index = index;
+        this.headItem = headItem;
+        this.to = index.size();
+        this.selected = headItem != null ? headItem : (to > 0 ? index.get(0) : null);
+        index.addListener(this);
+    }
+
+    /** Отписка от индекса - для моделей временных диалогов. */
+    public void dispose() { index.removeListener(this); }
+
+    public void setPrefix(String newPrefix) {
+        prefix = newPrefix == null ? "" : newPrefix.trim();
+        int[] range = index.prefixRange(prefix);
+        from = range[0];
+        to = range[1];
+        fireContentsChanged(this, 0, Integer.MAX_VALUE);
+        if (headItem == null && to > from && !isVisible(selected)) setSelectedItem(index.get(from));
+    }
+
+    private int head() { return headItem == null ? 0 : 1; }
+
+    private boolean isVisible(Object item) {
+        return item != null && (item.equals(headItem) || FilmTitleIndex.matches(item.toString(), prefix));
+    }
+
+    @Override public int getSize() { return head() + to - from; }
+
+    @Override
+    public String getElementAt(int i) {
+        if (i < head()) return headItem;
+        return index.get(from + i - head());
+    }
+
+    @Override public Object getSelectedItem() { return selected; }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item == null ? selected == null : item.equals(selected)) return;
+        selected = item;
+        fireContentsChanged(this, -1, -1);
+    }
+
+    @Override
+    public void titleAdded(int pos, String title) {
+        int cmp = FilmTitleIndex.comparePrefix(title, prefix);
+        if (cmp == 0) {
+            to++;
+            int row = head() + pos - from;
+            fireIntervalAdded(this, row, row);
+            if (selected == null) setSelectedItem(title);
+        } else if (cmp < 0) {
+            from++;
+            to++;
+        }
+    }
+
+    @Override
+    public void titleRemoved(int pos, String title) {
+        if (pos >= from && pos < to) {
+            to--;
+            int row = head() + pos - from;
+            fireIntervalRemoved(this, row, row);
+            if (title.equals(selected)) setSelectedItem(getSize() > 0 ? getElementAt(0) : null);
+        } else if (pos < from) {
+            from--;
+            to--;
+        }
+    }
+
+    @Override
+    public void titlesReset() {
+        int[] range = index.prefixRange(prefix);
+        from = range[0];
+        to = range[1];
+        selected = headItem != null ? headItem : (to > from ? index.get(from) : null);
+        fireContentsChanged(this, 0, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,29 @@
+package edu.java.lab2;
+
+/** Таблица "Фильмы"; только для чтения, правка идет через диалоги. */
+@SuppressWarnings("serial")
+public class FilmTableModel extends RepositoryTableModel {
+    public static final String[] COLUMNS = {"Название", "Режиссер", "Год", "Жанр", "Длительность"};
+
+    public FilmTableModel(CinemaRepository repository) {
+        super(repository, CinemaRepository.Entity.FILM, COLUMNS);
+    }
+
+    @Override public int getRowCount() { return repository.getFilmCount(); }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return value(repository.getFilm(row), column);
+    }
+
+    static Object value(Film f, int column) {
+        switch (column) {
+            case 0: return f.getTitle();
+            case 1: return f.getDirector();
+            case 2: return f.getYear();
+            case 3: return f.getGenre();
+            case 4: return f.getDuration();
+            default: throw new IndexOutOfBoundsException("column " + column);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.java.lab2;
+
+import java.util.*;
+
+/**
+ * Отсортированный список различных названий фильмов. Обновляется репозиторием
+ * точечно (добавление, удаление; переименование - это удаление и добавление),
+ * позиция находится двоичным поиском. Слушатели - модели выпадающих списков,
+ * которые получают событие только о затронутой строке вместо полной перестройки.
+ * Порядок без учета регистра, поэтому названия с общим началом идут подряд
+ * и фильтр по первым буквам - это диапазон, найденный за O(log n).
+ */
+public final class FilmTitleIndex {
+
+    public interface Listener {
+        void titleAdded(int index, String title);
+        void titleRemoved(int index, String title);
+        void titlesReset();
+    }
+
+    static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final List<String> titles = new ArrayList<>();
+    // Несколько фильмов могут называться одинаково: в списке название одно
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    public void addListener(Listener listener) { listeners.add(listener); }
+    public void removeListener(Listener listener) { listeners.remove(listener); }
+
+    public int size() { return titles.size(); }
+    public String get(int index) { return titles.get(index); }
+
+    void add(String title) {
+        if (counts.merge(title, 1, Integer::sum) > 1) return;
+        int pos = -(Collections.binarySearch(titles, title, ORDER) + 1);
+        titles.add(pos, title);
+        for (Listener l : listeners) l.titleAdded(pos, title);
+    }
+
+    void remove(String title) {
+        Integer count = counts.get(title);
+        if (count == null) return;
+        if (count > 1) {
+            counts.put(title, count - 1);
+            return;
+        }
+        counts.remove(title);
+        int pos = Collections.binarySearch(titles, title, ORDER);
+        titles.remove(pos);
+        for (Listener l : listeners) l.titleRemoved(pos, title);
+    }
+
+    /** Массовое пополнение (загрузка файла): одна сортировка и одно событие сброса. */
+    void addAll(Collection<String> newTitles) {
+        for (String title : newTitles) {
+            if (counts.merge(title, 1, Integer::sum) == 1) titles.add(title);
+        }
+        titles.sort(ORDER);
+        for (Listener l : listeners) l.titlesReset();
+    }
+
+    void clear() {
+        titles.clear();
+        counts.clear();
+        for (Listener l : listeners) l.titlesReset();
+    }
+
+    /** Полуинтервал [from; to) названий, начинающихся с prefix без учета регистра. */
+    public int[] prefixRange(String prefix) {
+        if (prefix.isEmpty()) return new int[]{0, titles.size()};
+        return new int[]{bound(prefix, false), bound(prefix, true)};
+    }
+
+    static boolean matches(String title, String prefix) {
+        return title.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /** Сравнение начала названия с prefix: меньше нуля - название левее диапазона. */
+    static int comparePrefix(String title, String prefix) {
+        return String.CASE_INSENSITIVE_ORDER.compare(title.substring(0, Math.min(title.length(), prefix.length())), prefix);
+    }
+
+    // Первая позиция, где начало названия >= prefix (или > prefix при upper)
+    private int bound(String prefix, boolean upper) {
+        int lo = 0, hi = titles.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePrefix(titles.get(mid), prefix);
+            if (cmp < 0 || (upper && cmp == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.java.lab2;
+
+import java.util.*;
+
+/**
+ * Схема зала: число рядов и мест в ряду. Ряды обозначаются буквами
+ * (A, B, C...), места - номерами с 1, поэтому место "B5" - пятое во втором ряду.
+ * Внутри программы место задается сквозным номером {@code ряд * местВРяду + (место - 1)}.
+ */
+public final class HallLayout {
+    private static final int MAX_ROWS = 26;
+
+    // Схемы известных залов; для прочих используется DEFAULT
+    private static final Map<String, HallLayout> KNOWN = new HashMap<>();
+    public static final HallLayout DEFAULT = new HallLayout("", 10, 12);
+
+    static {
+        register(new HallLayout("Зал 1", 12, 16));
+        register(new HallLayout("Зал 2", 10, 14));
+        register(new HallLayout("Зал 3", 8, 12));
+    }
+
+    private final String name;
+    private final int rows;
+    private final int seatsPerRow;
+
+    public HallLayout(String name, int rows, int seatsPerRow) {
+        if (rows < 1 || rows > MAX_ROWS || seatsPerRow < 1) {
+            throw new IllegalArgumentException("Недопустимая схема зала: " + rows + " x " + seatsPerRow);
+        }
+        this.name = name;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+    }
+
+    public static synchronized void register(HallLayout layout) {
+        KNOWN.put(layout.getName(), layout);
+    }
+
+    public static synchronized HallLayout forHall(String hall) {
+        return KNOWN.getOrDefault(hall, DEFAULT);
+    }
+
+    public String getName() { return name; }
+    public int getRows() { return rows; }
+    public int getSeatsPerRow() { return seatsPerRow; }
+    public int getCapacity() { return rows * seatsPerRow; }
+
+    /** Сквозной номер места по обозначению вида "A1" или -1, если такого места в зале нет. */
+    public int seatIndex(String label) {
+        if (label == null || label.length() < 2) return -1;
+        int row = Character.toUpperCase(label.charAt(0)) - 'A';
+        if (row < 0 || row >= rows) return -1;
+        int number = 0;
+        for (int i = 1; i < label.length(); i++) {
+            char ch = label.charAt(i);
+            if (ch < '0' || ch > '9' || number > seatsPerRow) return -1;
+            number = number * 10 + (ch - '0');
+        }
+        if (number < 1 || number > seatsPerRow) return -1;
+        return row * seatsPerRow + number - 1;
+    }
+
+    public String seatLabel(int index) {
+        return (char) ('A' + index / seatsPerRow) + String.valueOf(index % seatsPerRow + 1);
+    }
+}
@@ -0,0 +1,392 @@
+package edu.java.lab2;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Расписание залов. Сеанс занимает зал от начала до конца фильма (длительность
+ * вида "169 мин" или "2 ч 49 мин") плюс уборка {@link #CLEANING_MINUTES}.
+ * Для каждого зала ведется дерево интервалов: декартово дерево по началу
+ * сеанса, в узле - наибольший конец в поддереве. Сеансы, пересекающиеся с
+ * новым, находятся за O(log n + k), поэтому проверка при добавлении сеанса
+ * не зависит от длины сезона.
+ * <p>
+ * Время в дереве - минуты от 01.01.1970, а не от начала дня: сеанс,
+ * заканчивающийся после полуночи, пересекается и с утренними сеансами
+ * следующего дня. Сеанс с неразборчивой датой или временем, а также сеанс
+ * фильма без известной длительности в расписание не попадает (как и в
+ * {@link SessionSearchIndex}). Пересечения расписание не запрещает - их
+ * показывает {@link #conflicts}, решение принимает тот, кто ставит сеанс.
+ */
+public final class HallSchedule {
+    public static final int CLEANING_MINUTES = Integer.getInteger("cinema.cleaningMinutes", 15);
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Занятость зала одним сеансом: [начало; конец фильма + уборка). */
+    public static final class Slot {
+        private final Session session;
+        private final long start;
+        private final long filmEnd;
+        private final long end;
+
+        Slot(Session session, long start, int duration) {
+            this.session = session;
+            this.start = start;
+            this.filmEnd = start + duration;
+            this.end = filmEnd + CLEANING_MINUTES;
+        }
+
+        public Session getSession() { return session; }
+        public LocalDateTime getStart() { return toDateTime(start); }
+        public LocalDateTime getFilmEnd() { return toDateTime(filmEnd); }
+        /** Конец занятости зала - после уборки. */
+        public LocalDateTime getEnd() { return toDateTime(end); }
+
+        @Override
+        public String toString() {
+            return session.getFilm() + " " + session.getDate() + " " + session.getTime() + "-" + clock(filmEnd);
+        }
+    }
+
+    /** Два сеанса одного зала, занятость которых пересекается. */
+    public static final class Conflict {
+        private final Slot first;
+        private final Slot second;
+
+        Conflict(Slot first, Slot second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        public Slot getFirst() { return first; }
+        public Slot getSecond() { return second; }
+        public String getHall() { return first.session.getHall(); }
+
+        /** На сколько минут второй сеанс начинается раньше, чем зал освободится после первого. */
+        public long getOverlapMinutes() {
+            return Math.min(first.end, second.end) - Math.max(first.start, second.start);
+        }
+
+        @Override
+        public String toString() {
+            return getHall() + ": " + first + " и " + second + " (пересечение " + getOverlapMinutes() + " мин)";
+        }
+    }
+
+    /** Итог проверки всего расписания. */
+    public static final class Validation {
+        private final List<Conflict> conflicts;
+        private final int checked;
+        private final int skipped;
+        private final int halls;
+
+        Validation(List<Conflict> conflicts, int checked, int skipped, int halls) {
+            this.conflicts = Collections.unmodifiableList(conflicts);
+            this.checked = checked;
+            this.skipped = skipped;
+            this.halls = halls;
+        }
+
+        /** Пересечения по залам, в зале - по времени начала. */
+        public List<Conflict> getConflicts() { return conflicts; }
+        public int getCheckedCount() { return checked; }
+        /** Сеансы, не попавшие в проверку: нет даты, времени или длительности фильма. */
+        public int getSkippedCount() { return skipped; }
+        public int getHallCount() { return halls; }
+    }
+
+    private final Map<String, IntervalTree> byHall = new HashMap<>();
+    // Занятость запоминается при добавлении: удаление не зависит от нынешней длительности фильма
+    private final Map<Session, Slot> slots = new IdentityHashMap<>();
+
+    /** Длительность в минутах ("169 мин", "2 ч 49 мин", "169") или -1, если ее нет. */
+    public static int durationMinutes(String text) {
+        if (text == null) return -1;
+        int total = 0;
+        boolean found = false;
+        for (int i = 0, n = text.length(); i < n; ) {
+            if (!Character.isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int number = 0;
+            for (; i < n && Character.isDigit(text.charAt(i)); i++) {
+                number = number * 10 + Character.digit(text.charAt(i), 10);
+                if (number >= MINUTES_PER_DAY) return -1;
+            }
+            while (i < n && Character.isWhitespace(text.charAt(i))) i++;
+            // число перед "ч" - часы, иначе минуты
+            total += i < n && Character.toLowerCase(text.charAt(i)) == 'ч' ? number * 60 : number;
+            found = true;
+        }
+        return found && total > 0 && total < MINUTES_PER_DAY ? total : -1;
+    }
+
+    /** Занятость зала сеансом или null, если ее нельзя определить. */
+    public static Slot slot(Session session, Film film) {
+        int duration = film == null ? -1 : durationMinutes(film.getDuration());
+        if (duration < 0) return null;
+        LocalDate date = SessionSearchIndex.parseDate(session.getDate());
+        LocalTime time = SessionSearchIndex.parseTime(session.getTime());
+        if (date == null || time == null) return null;
+        return new Slot(session, date.toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute(), duration);
+    }
+
+    void add(Session session, Film film) {
+        Slot slot = slot(session, film);
+        if (slot == null) return;
+        slots.put(session, slot);
+        byHall.computeIfAbsent(session.getHall(), k -> new IntervalTree()).insert(slot);
+    }
+
+    void remove(Session session) {
+        Slot slot = slots.remove(session);
+        if (slot == null) return;
+        IntervalTree tree = byHall.get(session.getHall());
+        tree.delete(slot);
+        if (tree.size == 0) byHall.remove(session.getHall());
+    }
+
+    void clear() {
+        byHall.clear();
+        slots.clear();
+    }
+
+    /** Число сеансов в расписании. */
+    public int size() { return slots.size(); }
+
+    /** Занятость сеанса из расписания или null, если сеанса в нем нет. */
+    public Slot getSlot(Session session) { return slots.get(session); }
+
+    /**
+     * Сеансы того же зала, пересекающиеся с сеансом (сам сеанс, если он уже
+     * в расписании, не учитывается), по времени начала; O(log n + k).
+     * Пустой список и для сеанса, занятость которого определить нельзя.
+     */
+    public List<Slot> conflicts(Session session, Film film) {
+        Slot slot = slot(session, film);
+        IntervalTree tree = slot == null ? null : byHall.get(session.getHall());
+        if (tree == null) return Collections.emptyList();
+        List<Slot> result = new ArrayList<>();
+        tree.overlapping(tree.root, slot.start, slot.end, result);
+        result.removeIf(s -> s.session == session);
+        return result;
+    }
+
+    /**
+     * Проверка всего расписания: сеансы группируются по залам, залы
+     * проверяются одновременно в {@code threads} потоках. В зале сеансы
+     * упорядочиваются по началу и просматриваются один раз; начатые сеансы
+     * лежат в куче по концу, и к очередному сеансу из нее уходят те, что
+     * закончились до его начала, - O(n log n + k) на зал при k пересечениях.
+     * Сообщается каждая пересекающаяся пара, в том числе два коротких сеанса
+     * внутри длинного.
+     */
+    public static Validation validate(Collection<Session> sessions, Function<String, Film> films, int threads, BooleanSupplier cancelled) {
+        Map<String, List<Slot>> halls = new HashMap<>();
+        int skipped = 0;
+        for (Session s : sessions) {
+            Slot slot = slot(s, films.apply(s.getFilm()));
+            if (slot == null) skipped++;
+            else halls.computeIfAbsent(s.getHall(), k -> new ArrayList<>()).add(slot);
+        }
+        List<String> names = new ArrayList<>(halls.keySet());
+        Collections.sort(names);
+
+        ExecutorService pool = newPool(Math.max(1, Math.min(threads, names.size())));
+        try {
+            List<CompletableFuture<List<Conflict>>> parts = new ArrayList<>(names.size());
+            for (String hall : names) {
+                List<Slot> list = halls.get(hall);
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    if (cancelled.getAsBoolean()) throw new CancellationException();
+                    return sweep(list);
+                }, pool));
+            }
+            List<Conflict> conflicts = new ArrayList<>();
+            for (CompletableFuture<List<Conflict>> part : parts) conflicts.addAll(join(part));
+            return new Validation(conflicts, sessions.size() - skipped, skipped, names.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static List<Conflict> sweep(List<Slot> slots) {
+        Comparator<Slot> byStart = Comparator.comparingLong(s -> s.start);
+        slots.sort(byStart);
+        List<Conflict> conflicts = new ArrayList<>();
+        PriorityQueue<Slot> open = new PriorityQueue<>(Comparator.comparingLong(s -> s.end));
+        List<Slot> overlapping = new ArrayList<>();
+        for (Slot slot : slots) {
+            while (!open.isEmpty() && open.peek().end <= slot.start) open.poll();
+            overlapping.addAll(open);
+            // пары сеанса - по началу первого сеанса
+            overlapping.sort(byStart);
+            for (Slot earlier : overlapping) conflicts.add(new Conflict(earlier, slot));
+            overlapping.clear();
+            open.add(slot);
+        }
+        return conflicts;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private static ExecutorService newPool(int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger n = new AtomicInteger();
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "HallSchedule-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private static LocalDateTime toDateTime(long minutes) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minutes, MINUTES_PER_DAY)).atStartOfDay().plusMinutes(Math.floorMod(minutes, MINUTES_PER_DAY));
+    }
+
+    private static String clock(long minutes) {
+        int m = Math.floorMod(minutes, MINUTES_PER_DAY);
+        return String.format(Locale.ROOT, "%02d:%02d", m / 60, m % 60);
+    }
+
+    /**
+     * Дерево интервалов зала: декартово дерево по (начало, порядковый номер),
+     * приоритет узла - перемешанный порядковый номер, поэтому высота дерева
+     * O(log n) в среднем при любом порядке вставки.
+     */
+    private static final class IntervalTree {
+        private Node root;
+        private int size;
+        private long sequence;
+
+        private static final class Node {
+            final Slot slot;
+            final long id;
+            final int priority;
+            long maxEnd;
+            Node left, right;
+
+            Node(Slot slot, long id) {
+                this.slot = slot;
+                this.id = id;
+                this.priority = Long.hashCode(id * 0x9E3779B97F4A7C15L);
+                this.maxEnd = slot.end;
+            }
+
+            int compareTo(long start, long otherId) {
+                int c = Long.compare(slot.start, start);
+                return c != 0 ? c : Long.compare(id, otherId);
+            }
+        }
+
+        void insert(Slot slot) {
+            root = insert(root, new Node(slot, sequence++));
+            size++;
+        }
+
+        private static Node insert(Node node, Node added) {
+            if (node == null) return added;
+            if (added.compareTo(node.slot.start, node.id) < 0) {
+                node.left = insert(node.left, added);
+                if (node.left.priority > node.priority) node = rotateRight(node);
+            } else {
+                node.right = insert(node.right, added);
+                if (node.right.priority > node.priority) node = rotateLeft(node);
+            }
+            update(node);
+            return node;
+        }
+
+        void delete(Slot slot) {
+            Node node = find(root, slot);
+            if (node == null) return;
+            root = delete(root, node);
+            size--;
+        }
+
+        // Узел слота: среди узлов с тем же началом - по ссылке на слот
+        private static Node find(Node node, Slot slot) {
+            if (node == null || node.maxEnd <= slot.start) return null;
+            if (node.slot == slot) return node;
+            if (slot.start < node.slot.start) return find(node.left, slot);
+            if (slot.start > node.slot.start) return find(node.right, slot);
+            Node found = find(node.left, slot);
+            return found != null ? found : find(node.right, slot);
+        }
+
+        private static Node delete(Node node, Node removed) {
+            int c = removed.compareTo(node.slot.start, node.id);
+            if (c < 0) {
+                node.left = delete(node.left, removed);
+            } else if (c > 0) {
+                node.right = delete(node.right, removed);
+            } else {
+                if (node.left == null) return node.right;
+                if (node.right == null) return node.left;
+                if (node.left.priority > node.right.priority) {
+                    node = rotateRight(node);
+                    node.right = delete(node.right, removed);
+                } else {
+                    node = rotateLeft(node);
+                    node.left = delete(node.left, removed);
+                }
+            }
+            update(node);
+            return node;
+        }
+
+        // Слоты, пересекающие [start; end): поддерево пропускается, если все его слоты кончаются раньше
+        void overlapping(Node node, long start, long end, List<Slot> out) {
+            if (node == null || node.maxEnd <= start) return;
+            overlapping(node.left, start, end, out);
+            if (node.slot.start >= end) return;
+            if (node.slot.end > start) out.add(node.slot);
+            overlapping(node.right, start, end, out);
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            long max = node.slot.end;
+            if (node.left != null) max = Math.max(max, node.left.maxEnd);
+            if (node.right != null) max = Math.max(max, node.right.maxEnd);
+            node.maxEnd = max;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+import javax.swing.table.TableModel;
+
+/**
+ * Потоковый HTML-отчет из нескольких таблиц.
+ * Пока все строки помещаются на одну страницу, отчет - один файл, как раньше,
+ * и формируется прямо в вызывающем потоке; иначе каждая страница раздела
+ * пишется в свой файл, а исходный файл становится оглавлением со ссылками -
+ * браузер открывает отчет и при миллионах билетов. Страницы формируются
+ * параллельно в общем для всех отчетов пуле, каждая в свой буфер заранее
+ * оцененного размера: выгрузка сотен маленьких отчетов не создает потоков.
+ * Файлы можно сжимать gzip (.html.gz). С {@link ReportCache} готовые
+ * таблицы разделов (уже в UTF-8) переиспользуются, пока не изменилась
+ * версия данных раздела: при изменении только билетов фильмы и сеансы
+ * не формируются заново.
+ * Модели таблиц читаются из рабочих потоков, поэтому передавать нужно
+ * неизменяемые данные ({@link ViewTableModel}), а не таблицы окна.
+ */
+public final class HtmlReport {
+
+    /** Строк на странице по умолчанию; -Dcinema.htmlPageRows=N */
+    public static final int DEFAULT_PAGE_ROWS = Integer.getInteger("cinema.htmlPageRows", 10_000);
+
+    // Символов текста, кодируемых в UTF-8 за один шаг при записи
+    private static final int ENCODE_CHUNK = 8192;
+
+    private static final String STYLE = "<style>body{font-family:Arial, sans-serif;padding:20px;}table{border-collapse:collapse;width:100%}th,td{border:1px solid #ddd;padding:8px}</style>";
+
+    // Замены для символов ASCII; null - символ выводится как есть
+    private static final String[] ESCAPES = new String[128];
+    static {
+        ESCAPES['&'] = "&amp;";
+        ESCAPES['<'] = "&lt;";
+        ESCAPES['>'] = "&gt;";
+        ESCAPES['"'] = "&quot;";
+        ESCAPES['\''] = "&#39;";
+    }
+
+    /** Раздел отчета: заголовок, часть имени файла страниц и таблица. */
+    private static final class Section {
+        final String name;
+        final String slug;
+        final TableModel model;
+        final long version;
+        final int rows;
+        final int pages;
+
+        Section(String name, String slug, TableModel model, long version, int pageRows) {
+            this.name = name;
+            this.slug = slug;
+            this.model = model;
+            this.version = version;
+            this.rows = model.getRowCount();
+            this.pages = Math.max(1, (rows + pageRows - 1) / pageRows);
+        }
+    }
+
+    private final String title;
+    private final int pageRows;
+    private final boolean gzip;
+    private final int threads;
+    private final List<Section> sections = new ArrayList<>();
+    private ReportCache cache;
+
+    /**
+     * @param pageRows строк на странице раздела
+     * @param gzip     сжимать файлы отчета
+     * @param threads  1 - страницы формируются в вызывающем потоке, больше -
+     *                 в общем пуле отчетов (по потоку на процессор)
+     */
+    public HtmlReport(String title, int pageRows, boolean gzip, int threads) {
+        if (pageRows < 1 || threads < 1) throw new IllegalArgumentException("pageRows и threads должны быть >= 1");
+        this.title = title;
+        this.pageRows = pageRows;
+        this.gzip = gzip;
+        this.threads = threads;
+    }
+
+    /** @param slug латинская часть имени файлов страниц раздела, например "tickets" */
+    public HtmlReport addSection(String name, String slug, TableModel model) {
+        return addSection(name, slug, model, -1);
+    }
+
+    /**
+     * Раздел, таблицу которого можно взять из кеша.
+     *
+     * @param version версия данных раздела; slug и версия вместе однозначно
+     *                определяют содержимое таблицы (-1 - не кешировать)
+     */
+    public HtmlReport addSection(String name, String slug, TableModel model, long version) {
+        sections.add(new Section(name, slug, model, version, pageRows));
+        return this;
+    }
+
+    public HtmlReport withCache(ReportCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public boolean isPaged() {
+        for (Section s : sections) if (s.pages > 1) return true;
+        return false;
+    }
+
+    /**
+     * Пишет отчет; {@code file} - оглавление (или весь отчет, если страниц нет).
+     * При {@code gzip} к именам всех файлов добавляется ".gz".
+     *
+     * @return записанные файлы, оглавление - первым
+     */
+    public List<File> write(File file, BooleanSupplier cancelled) throws IOException {
+        File index = gzip ? new File(file.getPath() + ".gz") : file;
+        boolean paged = isPaged();
+        ExecutorService pool = paged && threads > 1 ? SharedPool.POOL : null;
+        List<Future<?>> started = new ArrayList<>();
+        try {
+            List<File> written = new ArrayList<>();
+            written.add(index);
+            List<Future<Table>> inline = new ArrayList<>();
+            List<Future<?>> pages = new ArrayList<>();
+            for (Section s : sections) {
+                if (!paged) {
+                    inline.add(start(pool, () -> table(s, 0, s.rows, cancelled), started));
+                    continue;
+                }
+                for (int p = 0; p < s.pages; p++) {
+                    int page = p;
+                    File out = pageFile(file, s, page);
+                    written.add(out);
+                    pages.add(start(pool, () -> {
+                        writePage(out, s, page, file.getName(), cancelled);
+                        return null;
+                    }, started));
+                }
+            }
+
+            StringBuilder head = new StringBuilder(4096);
+            head.append("<!DOCTYPE html>\n<html lang='ru'><head><meta charset='utf-8'><title>");
+            escape(title, head);
+            head.append("</title>\n").append(STYLE).append("\n</head><body>\n<h1>");
+            escape(title, head);
+            head.append("</h1>\n<p>Дата: ").append(new Date()).append("</p>\n");
+            if (paged) {
+                for (Section s : sections) {
+                    head.append("<h2>");
+                    escape(s.name, head);
+                    head.append("</h2>\n<p>Строк: ").append(s.rows).append("</p>\n<p>");
+                    for (int p = 0; p < s.pages; p++) {
+                        head.append("<a href='").append(pageFile(file, s, p).getName()).append("'>").append(p + 1).append("</a> ");
+                    }
+                    head.append("</p>\n");
+                }
+            }
+            try (OutputStream w = open(index)) {
+                write(w, head);
+                for (int i = 0; i < inline.size(); i++) {
+                    StringBuilder part = new StringBuilder(64);
+                    part.append("<h2>");
+                    escape(sections.get(i).name, part);
+                    part.append("</h2>\n");
+                    write(w, part);
+                    join(inline.get(i)).writeTo(w);
+                }
+                write(w, "</body></html>\n");
+            }
+            for (Future<?> page : pages) join(page);
+            return written;
+        } finally {
+            // при ошибке или отмене недоделанные страницы общего пула прерываются
+            for (Future<?> f : started) f.cancel(true);
+        }
+    }
+
+    // В пуле или сразу в вызывающем потоке (pool == null); ошибка - при join, как у пула
+    private static <T> Future<T> start(ExecutorService pool, Callable<T> task, List<Future<?>> started) {
+        Future<T> future;
+        if (pool != null) {
+            future = pool.submit(task);
+        } else {
+            FutureTask<T> inline = new FutureTask<>(task);
+            inline.run();
+            future = inline;
+        }
+        started.add(future);
+        return future;
+    }
+
+    private void writePage(File file, Section s, int page, String indexName, BooleanSupplier cancelled) throws IOException {
+        int from = page * pageRows, to = Math.min(s.rows, from + pageRows);
+        Table table = table(s, from, to, cancelled);
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("<!DOCTYPE html>\n<html lang='ru'><head><meta charset='utf-8'><title>");
+        escape(title, sb);
+        sb.append("</title>\n").append(STYLE).append("\n</head><body>\n<h2>");
+        escape(s.name, sb);
+        sb.append("</h2>\n<p>Страница ").append(page + 1).append(" из ").append(s.pages)
+                .append(", строки ").append(from + 1).append('-').append(to).append(" из ").append(s.rows).append("</p>\n<p>");
+        String suffix = gzip ? ".html.gz" : ".html";
+        String base = baseName(indexName);
+        if (page > 0) sb.append("<a href='").append(base).append('_').append(s.slug).append('_').append(page).append(suffix).append("'>&larr; назад</a> ");
+        sb.append("<a href='").append(indexName).append(gzip ? ".gz" : "").append("'>оглавление</a>");
+        if (page + 1 < s.pages) sb.append(" <a href='").append(base).append('_').append(s.slug).append('_').append(page + 2).append(suffix).append("'>вперед &rarr;</a>");
+        sb.append("</p>\n");
+        try (OutputStream out = open(file)) {
+            write(out, sb);
+            table.writeTo(out);
+            write(out, "</body></html>\n");
+        }
+    }
+
+    /** Таблица раздела: байты UTF-8 из кеша или текст, который кодируется прямо при записи. */
+    private static final class Table {
+        final byte[] bytes;
+        final StringBuilder text;
+
+        Table(byte[] bytes, StringBuilder text) {
+            this.bytes = bytes;
+            this.text = text;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (bytes != null) out.write(bytes);
+            else write(out, text);
+        }
+    }
+
+    // Таблица строк [from; to) - из кеша, если данные раздела не менялись; массив байт - только для кеша
+    private Table table(Section s, int from, int to, BooleanSupplier cancelled) throws IOException {
+        if (cache == null || s.version < 0) return new Table(null, renderTable(s, from, to, cancelled));
+        ReportCache.Key key = new ReportCache.Key("html-table", s.slug + ":" + from + "-" + to, s.version);
+        return new Table(cache.computeIfAbsent(key, bytes -> bytes.length, () -> encode(renderTable(s, from, to, cancelled))), null);
+    }
+
+    // UTF-8 сразу в массив точного размера: без промежуточной строки
+    static byte[] encode(CharSequence text) throws IOException {
+        byte[] bytes = new byte[utf8Length(text)];
+        ByteBuffer target = ByteBuffer.wrap(bytes);
+        encode(text, target, buf -> {});
+        return target.position() == bytes.length ? bytes : Arrays.copyOf(bytes, target.position());
+    }
+
+    // Длина в UTF-8; одиночный суррогат заменяется одним байтом '?', как в String.getBytes
+    private static int utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) length++;
+            else if (ch < 0x800) length += 2;
+            else if (Character.isHighSurrogate(ch) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) { length += 4; i++; }
+            else if (Character.isSurrogate(ch)) length++;
+            else length += 3;
+        }
+        if (length > Integer.MAX_VALUE - 16) throw new OutOfMemoryError("Таблица больше 2 ГБ в UTF-8");
+        return (int) length;
+    }
+
+    private interface Sink {
+        void drain(ByteBuffer buf) throws IOException;
+    }
+
+    /**
+     * Кодирует текст в UTF-8 порциями по {@link #ENCODE_CHUNK} символов; после
+     * каждой порции sink забирает байты из target. Символ, который кодировщик
+     * оставил до следующей порции (начало суррогатной пары), в нее и переносится.
+     */
+    private static void encode(CharSequence text, ByteBuffer target, Sink sink) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        char[] chunk = new char[ENCODE_CHUNK];
+        CharBuffer in = CharBuffer.wrap(chunk);
+        String string = text instanceof StringBuilder ? null : text.toString();
+        for (int start = 0, n = text.length(); start < n; ) {
+            int end = Math.min(n, start + ENCODE_CHUNK);
+            if (string == null) ((StringBuilder) text).getChars(start, end, chunk, 0);
+            else string.getChars(start, end, chunk, 0);
+            in.clear().limit(end - start);
+            check(encoder.encode(in, target, end == n));
+            sink.drain(target);
+            start += in.position();
+        }
+        check(encoder.flush(target));
+        sink.drain(target);
+    }
+
+    private static void check(CoderResult result) {
+        // буфер вмещает любую порцию, а ошибки кодирования заменяются
+        if (result.isOverflow()) throw new IllegalStateException("Буфер кодирования переполнен");
+    }
+
+    // Таблица строк [from; to): буфер сразу нужного размера по длине первых строк
+    private static StringBuilder renderTable(Section s, int from, int to, BooleanSupplier cancelled) {
+        TableModel m = s.model;
+        int columns = m.getColumnCount();
+        StringBuilder sb = new StringBuilder(estimate(m, from, to));
+        sb.append("<table><tr>");
+        for (int c = 0; c < columns; c++) {
+            sb.append("<th>");
+            escape(m.getColumnName(c), sb);
+            sb.append("</th>");
+        }
+        sb.append("</tr>\n");
+        for (int r = from; r < to; r++) {
+            if ((r & 1023) == 0 && cancelled.getAsBoolean()) throw new CancellationException("Отчет отменен");
+            sb.append("<tr>");
+            for (int c = 0; c < columns; c++) {
+                sb.append("<td>");
+                escape(String.valueOf(m.getValueAt(r, c)), sb);
+                sb.append("</td>");
+            }
+            sb.append("</tr>\n");
+        }
+        sb.append("</table>\n");
+        return sb;
+    }
+
+    private static int estimate(TableModel m, int from, int to) {
+        int sample = Math.min(to - from, 64);
+        if (sample <= 0) return 256;
+        long chars = 0;
+        for (int r = from; r < from + sample; r++) {
+            for (int c = 0; c < m.getColumnCount(); c++) chars += String.valueOf(m.getValueAt(r, c)).length() + 9;
+            chars += 10;
+        }
+        long total = chars * (to - from) / sample * 11 / 10 + 256;
+        return (int) Math.min(total, Integer.MAX_VALUE - 16);
+    }
+
+    /**
+     * Дописывает текст с заменой специальных символов HTML. Таблица замен
+     * по коду символа; строка без таких символов копируется целиком, без
+     * промежуточных объектов.
+     */
+    public static void escape(String s, StringBuilder out) {
+        if (s == null) return;
+        int start = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char ch = s.charAt(i);
+            String replacement = ch < 128 ? ESCAPES[ch] : null;
+            if (replacement == null) continue;
+            out.append(s, start, i).append(replacement);
+            start = i + 1;
+        }
+        out.append(s, start, s.length());
+    }
+
+    public static String escape(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        escape(s, sb);
+        return sb.toString();
+    }
+
+    private OutputStream open(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out = gzip ? new GZIPOutputStream(out, 1 << 16) : new BufferedOutputStream(out, 1 << 16);
+        } catch (IOException ex) {
+            out.close();
+            throw ex;
+        }
+        return out;
+    }
+
+    // Порция в UTF-8 занимает не больше трех байт на символ
+    private static void write(OutputStream out, CharSequence text) throws IOException {
+        encode(text, ByteBuffer.allocate(ENCODE_CHUNK * 3), buf -> {
+            out.write(buf.array(), 0, buf.position());
+            buf.clear();
+        });
+    }
+
+    private File pageFile(File index, Section s, int page) {
+        File dir = index.getAbsoluteFile().getParentFile();
+        return new File(dir, baseName(index.getName()) + "_" + s.slug + "_" + (page + 1) + (gzip ? ".html.gz" : ".html"));
+    }
+
+    private static String baseName(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static <T> T join(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Отчет отменен");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /** Пул страниц, общий для всех отчетов; создается при первом многостраничном отчете. */
+    private static final class SharedPool {
+        static final ExecutorService POOL;
+        static {
+            AtomicInteger n = new AtomicInteger();
+            POOL = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "HtmlReport-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package edu.java.lab2;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выполнение фоновых заданий (отчеты, выгрузки) вне потока EDT.
+ * Два режима: виртуальный поток на каждое задание - тысячи одновременных
+ * выгрузок не расходуют потоки ОС, - и пул из фиксированного числа потоков
+ * с очередью заданий. Виртуальные потоки появились в Java 21; на более старой
+ * JVM режим VIRTUAL заменяется пулом, фактический режим возвращает {@link #getMode()}.
+ * У каждого задания есть состояние, время ожидания и выполнения; задание
+ * можно отменить и в очереди, и во время работы (через прерывание потока).
+ * Задание может занимать цель (файл): пока оно не завершено, второе задание
+ * с той же целью не запускается и сразу завершается с ошибкой.
+ */
+public final class JobExecutor {
+
+    public enum Mode { VIRTUAL, PLATFORM }
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    /** Работа задания; долгие задания проверяют {@link Job#isCancelled()}. */
+    public interface Task<T> {
+        T run(Job<T> job) throws Exception;
+    }
+
+    /** Смена состояния задания; вызывается в потоке задания. */
+    public interface Listener {
+        void jobChanged(Job<?> job);
+    }
+
+    /** Задание: состояние, результат и время. */
+    public static final class Job<T> {
+        private final long id;
+        private final String name;
+        private final String target;
+        private final Task<T> task;
+        private final JobExecutor owner;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long submitted = System.nanoTime();
+        private volatile Status status = Status.QUEUED;
+        private volatile long started, finished;
+        private volatile Thread runner;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        Job(long id, String name, String target, Task<T> task, JobExecutor owner) {
+            this.id = id;
+            this.name = name;
+            this.target = target;
+            this.task = task;
+            this.owner = owner;
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public String getTarget() { return target; }
+        public Status getStatus() { return status; }
+        public Throwable getError() { return error; }
+        public boolean isCancelled() { return cancelled; }
+        public boolean isDone() { return result.isDone(); }
+        public CompletableFuture<T> result() { return result; }
+
+        /** Время в очереди до начала работы, мс. */
+        public long getQueueMillis() {
+            long start = started != 0 ? started : System.nanoTime();
+            return (start - submitted) / 1_000_000;
+        }
+
+        /** Время выполнения, мс (для идущего задания - на текущий момент). */
+        public long getRunMillis() {
+            if (started == 0) return 0;
+            return ((finished != 0 ? finished : System.nanoTime()) - started) / 1_000_000;
+        }
+
+        /** Отменяет задание; ожидающее в очереди уже не запустится, идущее прерывается. */
+        public void cancel() {
+            cancelled = true;
+            synchronized (this) {
+                // под блокировкой: поток пула не успеет перейти к следующему заданию
+                if (runner != null) {
+                    runner.interrupt();
+                    return;
+                }
+            }
+            if (status == Status.QUEUED) owner.finish(this, Status.CANCELLED, null, null);
+        }
+
+        void run() {
+            synchronized (this) {
+                if (cancelled || status != Status.QUEUED) return;
+                runner = Thread.currentThread();
+                started = System.nanoTime();
+                status = Status.RUNNING;
+                owner.running.incrementAndGet();
+            }
+            owner.changed(this);
+            try {
+                T value = task.run(this);
+                if (cancelled) owner.finish(this, Status.CANCELLED, null, null);
+                else owner.finish(this, Status.DONE, value, null);
+            } catch (Throwable ex) {
+                if (cancelled) owner.finish(this, Status.CANCELLED, null, null);
+                else owner.finish(this, Status.FAILED, null, ex);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    Thread.interrupted(); // прерывание отмены не должно достаться следующему заданию пула
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "#" + id + " " + name + " [" + status + ", очередь " + getQueueMillis() + " мс, работа " + getRunMillis() + " мс]";
+        }
+    }
+
+    private final Mode mode;
+    private final ExecutorService executor;
+    private final Map<Long, Job<?>> active = new ConcurrentHashMap<>();
+    // Незавершенное задание каждой занятой цели
+    private final Map<String, Job<?>> targets = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    private JobExecutor(Mode mode, ExecutorService executor) {
+        this.mode = mode;
+        this.executor = executor;
+    }
+
+    /**
+     * @param poolSize число потоков пула (режим PLATFORM или замена VIRTUAL на старой JVM)
+     */
+    public static JobExecutor create(Mode mode, int poolSize) {
+        if (mode == Mode.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null) return new JobExecutor(Mode.VIRTUAL, virtual);
+        }
+        AtomicInteger n = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "Job-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return new JobExecutor(Mode.PLATFORM, pool);
+    }
+
+    public static boolean isVirtualThreadsAvailable() {
+        ExecutorService probe = newVirtualThreadPerTaskExecutor();
+        if (probe == null) return false;
+        probe.shutdown();
+        return true;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() есть только с Java 21 - ищем через отражение
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    public Mode getMode() { return mode; }
+
+    public void addListener(Listener listener) { listeners.add(listener); }
+    public void removeListener(Listener listener) { listeners.remove(listener); }
+
+    public <T> Job<T> submit(String name, Task<T> task) {
+        return submit(name, null, task);
+    }
+
+    /**
+     * Задание, которое пишет в {@code target} (например, путь файла; null - без цели).
+     * Если цель занята незавершенным заданием, новое завершается с
+     * {@link RejectedExecutionException} и не запускается: два задания не пишут один файл.
+     */
+    public <T> Job<T> submit(String name, String target, Task<T> task) {
+        Job<T> job = new Job<>(nextId.incrementAndGet(), name, target, task, this);
+        active.put(job.id, job);
+        changed(job);
+        Job<?> busy = target == null ? null : targets.putIfAbsent(target, job);
+        if (busy != null) {
+            finish(job, Status.FAILED, null, new RejectedExecutionException("уже выполняется задание \"" + busy.name + "\" для " + target));
+            return job;
+        }
+        try {
+            executor.execute(job::run);
+        } catch (RejectedExecutionException ex) {
+            finish(job, Status.FAILED, null, ex);
+        }
+        return job;
+    }
+
+    /** Незавершенные задания (в очереди и выполняемые), по порядку постановки. */
+    public List<Job<?>> getActiveJobs() {
+        List<Job<?>> jobs = new ArrayList<>(active.values());
+        jobs.sort((a, b) -> Long.compare(a.id, b.id));
+        return jobs;
+    }
+
+    public int getRunningCount() { return running.get(); }
+    public int getQueuedCount() { return Math.max(0, active.size() - running.get()); }
+    public long getCompletedCount() { return completed.get(); }
+
+    public void cancelAll() {
+        for (Job<?> job : active.values()) job.cancel();
+    }
+
+    /** Новые задания не принимаются, идущие прерываются. */
+    public void shutdown() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void finish(Job<T> job, Status status, Object value, Throwable error) {
+        synchronized (job) {
+            if (job.result.isDone()) return;
+            if (job.status == Status.RUNNING) running.decrementAndGet();
+            job.status = status;
+            job.error = error;
+            job.finished = System.nanoTime();
+        }
+        active.remove(job.id);
+        if (job.target != null) targets.remove(job.target, job);
+        completed.incrementAndGet();
+        changed(job);
+        if (status == Status.DONE) job.result.complete((T) value);
+        else if (status == Status.CANCELLED) job.result.cancel(false);
+        else job.result.completeExceptionally(error);
+    }
+
+    private void changed(Job<?> job) {
+        for (Listener l : listeners) l.jobChanged(job);
+    }
+}
@@ -0,0 +1,77 @@
+package edu.java.lab2;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Оценка памяти, занятой объектами, для отчета о памяти. Раскладка -
+ * 64-битная JVM со сжатыми ссылками: заголовок объекта 12 байт, массива 16,
+ * ссылка 4, выравнивание 8; строки компактные (Latin-1 по байту на символ,
+ * иначе по два). Оценка, а не замер: кучу точно меряет только профилировщик.
+ */
+final class MemoryLayout {
+    static final int HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REF = 4;
+    // HashMap.Node (32) + ячейка таблицы при заполнении 0.75 + Integer ключа и значения
+    static final int HASH_ENTRY = 32 + 6 + 2 * 16;
+    // Vector: заголовок, ссылка на массив, elementCount, capacityIncrement, modCount
+    private static final long VECTOR = align(HEADER + REF + 3 * 4);
+    // String: заголовок, ссылка на value, hash, coder, hashIsZero
+    private static final long STRING = align(HEADER + REF + 4 + 1 + 1);
+
+    private MemoryLayout() {}
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long object(int refs, int primitiveBytes) {
+        return align(HEADER + (long) refs * REF + primitiveBytes);
+    }
+
+    static long array(long length, int elemBytes) {
+        return align(ARRAY_HEADER + length * elemBytes);
+    }
+
+    static long string(String s) {
+        if (s == null) return 0;
+        boolean latin1 = true;
+        for (int i = 0, n = s.length(); i < n && latin1; i++) latin1 = s.charAt(i) < 256;
+        return STRING + array(latin1 ? s.length() : 2L * s.length(), 1);
+    }
+
+    /**
+     * Построчная таблица как у DefaultTableModel: Vector строк, в каждой
+     * строке Vector ячеек, в каждой ячейке своя строка (так ее заполняют
+     * {@code addRow} из прочитанного файла).
+     */
+    static <T> long vectorTable(List<T> rows, int columns, BiFunction<T, Integer, Object> value) {
+        long bytes = VECTOR + array(rows.size(), REF);
+        long row = VECTOR + array(columns, REF);
+        for (T r : rows) {
+            bytes += row;
+            for (int c = 0; c < columns; c++) bytes += string(String.valueOf(value.apply(r, c)));
+        }
+        return bytes;
+    }
+
+    /**
+     * Список неизменяемых объектов (ArrayList) с {@code columns} строковыми
+     * полями и {@code primitiveBytes} байтами прочих полей; строка, на которую
+     * ссылаются несколько объектов, считается один раз.
+     */
+    static <T> long objectList(List<T> rows, int columns, int primitiveBytes, BiFunction<T, Integer, Object> value) {
+        long bytes = object(1, 8) + array(rows.size(), REF) + (long) rows.size() * object(columns, primitiveBytes);
+        Map<Object, Boolean> seen = new IdentityHashMap<>();
+        for (T r : rows) {
+            for (int c = 0; c < columns; c++) {
+                Object v = value.apply(r, c);
+                if (v instanceof String && seen.put(v, Boolean.TRUE) == null) bytes += string((String) v);
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,245 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Встроенные замеры: для каждой операции (загрузка, сохранение, отчет,
+ * этап конвейера) - число вызовов, гистограмма длительности, строки и байты.
+ * Замер - один {@link Sample} на операцию целиком, а не на строку; запись -
+ * несколько {@link LongAdder} и атомарное увеличение ячейки гистограммы, без
+ * блокировок, поэтому на горячих путях расходы незаметны. Каждая операция
+ * также отправляется событием JFR {@link OperationEvent} (если запись JFR
+ * включена).
+ * <p>
+ * Гистограмма логарифмическая: по {@value #SUB_BUCKETS} ячеек на каждую
+ * степень двойки, поэтому процентили оцениваются с погрешностью не больше 7%.
+ */
+public final class Metrics {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // До 2^42 нс (больше часа); все, что длиннее, - в последней ячейке
+    private static final int BUCKETS = (42 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final List<Timer> ORDER = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    private Metrics() {}
+
+    /** Счетчик операции по имени; создается при первом обращении, порядок сохраняется. */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> {
+            Timer t = new Timer(n);
+            ORDER.add(t);
+            return t;
+        });
+    }
+
+    /** Операция с замером: длительность, строки и байты, плюс событие JFR. */
+    public static final class Timer {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        /** Начало замера; результат фиксирует {@link Sample#close()}. */
+        public Sample start() {
+            return new Sample(this);
+        }
+
+        public void record(long nanos, long rowCount, long byteCount) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (rowCount > 0) rows.add(rowCount);
+            if (byteCount > 0) bytes.add(byteCount);
+            buckets.incrementAndGet(bucket(nanos));
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            rows.reset();
+            bytes.reset();
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        }
+
+        public Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) counts[i] = buckets.get(i);
+            return new Snapshot(name, count.sum(), totalNanos.sum(), maxNanos.get(), rows.sum(), bytes.sum(), counts);
+        }
+    }
+
+    /**
+     * Один замер. Используется в try-with-resources; строки и байты
+     * указываются по ходу операции, если известны.
+     */
+    public static final class Sample implements AutoCloseable {
+        private final Timer timer;
+        private final OperationEvent event = new OperationEvent();
+        private final long start;
+        private long rows, bytes;
+        private boolean closed;
+
+        private Sample(Timer timer) {
+            this.timer = timer;
+            event.begin();
+            start = System.nanoTime();
+        }
+
+        public Sample rows(long n) { rows += n; return this; }
+        public Sample bytes(long n) { bytes += n; return this; }
+
+        /** Завершает замер (повторный вызов ничего не делает); возвращает длительность, нс. */
+        public long stop() {
+            long nanos = System.nanoTime() - start;
+            if (closed) return nanos;
+            closed = true;
+            timer.record(nanos, rows, bytes);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = timer.name;
+                event.rows = rows;
+                event.bytes = bytes;
+                event.commit();
+            }
+            return nanos;
+        }
+
+        @Override
+        public void close() { stop(); }
+    }
+
+    /** Неизменяемые значения счетчика на момент снимка. */
+    public static final class Snapshot {
+        private final String name;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long rows;
+        private final long bytes;
+        private final long[] buckets;
+
+        Snapshot(String name, long count, long totalNanos, long maxNanos, long rows, long bytes, long[] buckets) {
+            this.name = name;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.rows = rows;
+            this.bytes = bytes;
+            this.buckets = buckets;
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getRows() { return rows; }
+        public long getBytes() { return bytes; }
+        public double getMeanMillis() { return count == 0 ? 0 : totalNanos / 1e6 / count; }
+        public double getMaxMillis() { return maxNanos / 1e6; }
+        public double getTotalMillis() { return totalNanos / 1e6; }
+
+        /** Оценка процентиля длительности (q от 0 до 1), мс: середина ячейки гистограммы. */
+        public double percentileMillis(double q) {
+            long total = 0;
+            for (long c : buckets) total += c;
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return Math.min((lowerBound(i) + lowerBound(i + 1)) / 2.0, maxNanos) / 1e6;
+            }
+            return maxNanos / 1e6;
+        }
+
+        /** Строк в секунду по суммарному времени операции. */
+        public double getRowsPerSecond() { return totalNanos == 0 ? 0 : rows * 1e9 / totalNanos; }
+
+        /** МБ в секунду по суммарному времени операции. */
+        public double getMegabytesPerSecond() { return totalNanos == 0 ? 0 : bytes * 1e9 / totalNanos / (1 << 20); }
+    }
+
+    // Ячейка: показатель степени двойки и следующие SUB_BITS бит длительности
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) Math.max(0, nanos);
+        int exp = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (exp - SUB_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (1L << exp) + ((long) sub << (exp - SUB_BITS));
+    }
+
+    /** Снимки всех счетчиков в порядке их создания. */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> result = new ArrayList<>(ORDER.size());
+        for (Timer t : ORDER) result.add(t.snapshot());
+        return result;
+    }
+
+    public static void reset() {
+        for (Timer t : ORDER) t.reset();
+    }
+
+    /** Таблица счетчиков в текстовом виде - для файла и для журнала. */
+    public static String format(List<Snapshot> snapshots) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-28s %8s %10s %10s %10s %10s %10s %12s %12s %10s %10s%n",
+                "Операция", "Вызовов", "Средн, мс", "p50, мс", "p95, мс", "p99, мс", "Макс, мс", "Строк", "Байт", "Строк/с", "МБ/с"));
+        for (Snapshot s : snapshots) {
+            out.append(String.format(Locale.ROOT, "%-28s %8d %10.2f %10.2f %10.2f %10.2f %10.2f %12d %12d %10.0f %10.2f%n",
+                    s.getName(), s.getCount(), s.getMeanMillis(), s.percentileMillis(0.5), s.percentileMillis(0.95),
+                    s.percentileMillis(0.99), s.getMaxMillis(), s.getRows(), s.getBytes(), s.getRowsPerSecond(), s.getMegabytesPerSecond()));
+        }
+        return out.toString();
+    }
+
+    /** Записывает снимок всех счетчиков в текстовый файл. */
+    public static void dump(File file) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write("Снимок счетчиков: " + new java.util.Date() + System.lineSeparator());
+            out.write(format(snapshot()));
+        }
+    }
+
+    /** Событие JFR на каждую замеренную операцию (категория "Cinema"). */
+    @jdk.jfr.Name("edu.java.lab2.Operation")
+    @jdk.jfr.Label("Cinema Operation")
+    @jdk.jfr.Category("Cinema")
+    @jdk.jfr.StackTrace(false)
+    static final class OperationEvent extends jdk.jfr.Event {
+        @jdk.jfr.Label("Operation")
+        String operation;
+
+        @jdk.jfr.Label("Rows")
+        long rows;
+
+        @jdk.jfr.Label("Bytes")
+        @jdk.jfr.DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,104 @@
+package edu.java.lab2;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Панель "Производительность": счетчики {@link Metrics}, обновляемые раз в
+ * секунду, пока панель на экране; сброс и запись снимка в файл.
+ */
+@SuppressWarnings("serial")
+public class MetricsPanel extends JPanel {
+    private static final String[] COLUMNS = {"Операция", "Вызовов", "Средн, мс", "p50, мс", "p95, мс", "p99, мс", "Макс, мс",
+            "Строк", "МБ", "Строк/с", "МБ/с"};
+
+    private final SnapshotModel model = new SnapshotModel();
+    private final Timer refresh = new Timer(1000, e -> model.update(Metrics.snapshot()));
+
+    public MetricsPanel() {
+        super(new BorderLayout());
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton reset = new JButton("Сбросить");
+        JButton dump = new JButton("Сохранить в файл...");
+        reset.addActionListener(e -> {
+            Metrics.reset();
+            model.update(Metrics.snapshot());
+        });
+        dump.addActionListener(e -> dump());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(reset);
+        buttons.add(dump);
+        add(buttons, BorderLayout.SOUTH);
+
+        // опрос только пока панель видна
+        addHierarchyListener(e -> {
+            if (isShowing()) {
+                model.update(Metrics.snapshot());
+                refresh.start();
+            } else {
+                refresh.stop();
+            }
+        });
+    }
+
+    private void dump() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Сохранить снимок счетчиков");
+        chooser.setSelectedFile(new File("cinema_metrics.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            Metrics.dump(chooser.getSelectedFile());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Ошибка записи: " + ex.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SnapshotModel extends AbstractTableModel {
+        private List<Metrics.Snapshot> rows = Collections.emptyList();
+
+        void update(List<Metrics.Snapshot> snapshots) {
+            boolean sameRows = snapshots.size() == rows.size();
+            rows = snapshots;
+            if (sameRows && !rows.isEmpty()) fireTableRowsUpdated(0, rows.size() - 1);
+            else if (!sameRows) fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return rows.size(); }
+        @Override public int getColumnCount() { return COLUMNS.length; }
+        @Override public String getColumnName(int column) { return COLUMNS[column]; }
+        @Override public Class<?> getColumnClass(int column) { return column == 0 ? String.class : Number.class; }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Metrics.Snapshot s = rows.get(row);
+            switch (column) {
+                case 0: return s.getName();
+                case 1: return s.getCount();
+                case 2: return round(s.getMeanMillis());
+                case 3: return round(s.percentileMillis(0.5));
+                case 4: return round(s.percentileMillis(0.95));
+                case 5: return round(s.percentileMillis(0.99));
+                case 6: return round(s.getMaxMillis());
+                case 7: return s.getRows();
+                case 8: return round(s.getBytes() / (double) (1 << 20));
+                case 9: return Math.round(s.getRowsPerSecond());
+                case 10: return round(s.getMegabytesPerSecond());
+                default: throw new IndexOutOfBoundsException("column " + column);
+            }
+        }
+
+        private static Double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package edu.java.lab2;
+
+import java.awt.Cursor;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+
+/**
+ * Таблица только для чтения над большим источником строк (миллионы билетов).
+ * Строки не хранятся в модели: они читаются из {@link Source} страницами
+ * по {@code pageRows} строк, в памяти держится лишь несколько последних
+ * страниц (LRU). Поэтому прокрутка таблицы любой длины требует памяти на
+ * окно страниц, а не на все строки.
+ * <p>
+ * Сортировка - перестановка номеров строк, построенная подсчетом по
+ * целочисленным ключам, которые дает источник ({@link Source#key}): равные
+ * значения - равные ключи, порядок ключей - порядок значений. Компаратор
+ * на каждую строку не вызывается, сортировка линейна, а сортировка с
+ * равными ключами устойчива. Страницы нумеруются в порядке отображения,
+ * так что и после сортировки видимая область читается одной-двумя страницами.
+ * Щелчок по заголовку столбца (см. {@link #attach}) переключает порядок:
+ * по возрастанию, по убыванию, исходный. Источник читается и из фонового
+ * потока сортировки, поэтому его методы должны быть безопасны для чтения
+ * из нескольких потоков.
+ */
+@SuppressWarnings("serial")
+public class PagedTableModel extends AbstractTableModel {
+
+    /** Источник строк с произвольным доступом по номеру. */
+    public interface Source {
+        String[] getColumns();
+
+        int getRowCount();
+
+        /**
+         * Читает {@code count} строк в {@code out[i][column]}: строки
+         * {@code rows[from + i]} или, если {@code rows == null}, строки {@code from + i}.
+         */
+        void read(int[] rows, int from, int count, Object[][] out);
+
+        /** Число различных ключей сортировки столбца: ключи лежат в [0, keyCount). */
+        int keyCount(int column);
+
+        /** Ключ сортировки значения строки в столбце. */
+        int key(int row, int column);
+    }
+
+    public static final int DEFAULT_PAGE_ROWS = 512;
+    public static final int DEFAULT_MAX_PAGES = 16;
+
+    private final Source source;
+    private final String[] columns;
+    private final int pageRows;
+    private final Map<Integer, Object[][]> pages;
+    private int[] order;
+    private int sortColumn = -1;
+    private boolean descending;
+    private long pageLoads;
+    private boolean sorting;
+
+    public PagedTableModel(Source source) {
+        this(source, DEFAULT_PAGE_ROWS, DEFAULT_MAX_PAGES);
+    }
+
+    public PagedTableModel(Source source, int pageRows, int maxPages) {
+        if (pageRows < 1 || maxPages < 1) throw new IllegalArgumentException("pageRows и maxPages должны быть >= 1");
+        this.source = source;
+        this.columns = source.getColumns().clone();
+        this.pageRows = pageRows;
+        this.pages = new LinkedHashMap<Integer, Object[][]>(maxPages * 2, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    @Override public int getRowCount() { return source.getRowCount(); }
+    @Override public int getColumnCount() { return columns.length; }
+    @Override public String getColumnName(int column) { return columns[column]; }
+    @Override public Class<?> getColumnClass(int column) { return String.class; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / pageRows;
+        Object[][] rows = pages.get(page);
+        if (rows == null) {
+            int first = page * pageRows;
+            rows = new Object[Math.min(pageRows, getRowCount() - first)][columns.length];
+            source.read(order, first, rows.length, rows);
+            pages.put(page, rows);
+            pageLoads++;
+        }
+        return rows[row - page * pageRows][column];
+    }
+
+    /** Номер строки источника для строки таблицы. */
+    public int toSourceRow(int row) {
+        return order == null ? row : order[row];
+    }
+
+    /** Сортировка по столбцу; {@code column < 0} - исходный порядок. */
+    public void sort(int column, boolean descending) {
+        setOrder(column, descending, sortOrder(column, descending));
+    }
+
+    /**
+     * Перестановка строк для сортировки по столбцу (null - исходный порядок).
+     * Только читает источник, поэтому может считаться вне EDT.
+     */
+    public int[] sortOrder(int column, boolean descending) {
+        if (column < 0) return null;
+        return SortIndex.byKeys(getRowCount(), source.keyCount(column), row -> source.key(row, column), descending);
+    }
+
+    /** Применяет перестановку, посчитанную {@link #sortOrder}; вызывать на EDT. */
+    public void setOrder(int column, boolean descending, int[] order) {
+        this.order = order;
+        this.sortColumn = order == null ? -1 : column;
+        this.descending = order != null && descending;
+        pages.clear();
+        fireTableDataChanged();
+    }
+
+    public int getSortColumn() { return sortColumn; }
+    public boolean isDescending() { return descending; }
+
+    /** Сколько раз страницы читались из источника (промахи окна страниц). */
+    public long getPageLoads() { return pageLoads; }
+
+    /**
+     * Подключает модель к таблице: щелчок по заголовку сортирует по столбцу,
+     * направление показывается стрелкой в заголовке. Перестановка считается
+     * в фоновом потоке, таблица до ее готовности остается в прежнем порядке.
+     */
+    public void attach(JTable table) {
+        table.setModel(this);
+        table.setAutoCreateRowSorter(false);
+        table.setRowSorter(null);
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) {
+                int viewColumn = header.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) return;
+                if (sorting) return;
+                int clicked = table.convertColumnIndexToModel(viewColumn);
+                int column = clicked != sortColumn || !descending ? clicked : -1;
+                boolean desc = clicked == sortColumn && !descending;
+                sorting = true;
+                header.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                new SwingWorker<int[], Void>() {
+                    @Override protected int[] doInBackground() { return sortOrder(column, desc); }
+
+                    @Override protected void done() {
+                        sorting = false;
+                        header.setCursor(null);
+                        try {
+                            setOrder(column, desc, get());
+                        } catch (InterruptedException | ExecutionException ex) {
+                            throw new IllegalStateException("Ошибка сортировки", ex);
+                        }
+                        for (int i = 0; i < table.getColumnModel().getColumnCount(); i++) {
+                            TableColumn c = table.getColumnModel().getColumn(i);
+                            int m = c.getModelIndex();
+                            c.setHeaderValue(m == sortColumn ? columns[m] + (descending ? " ▼" : " ▲") : columns[m]);
+                        }
+                        header.repaint();
+                    }
+                }.execute();
+            }
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import javax.swing.table.TableModel;
+
+/**
+ * PDF-отчет: титульная страница со сводкой и полные таблицы, разбитые
+ * на страницы (шапка таблицы повторяется на каждой). Документ пишется
+ * через {@link PdfWriter} постранично, поэтому и реестр из миллиона
+ * билетов не требует памяти сверх одной страницы.
+ * Шрифт: -Dcinema.pdfFont=путь.ttf или DejaVu Sans / Arial, если найден;
+ * иначе Helvetica с транслитерацией кириллицы. Шрифт, который не удалось
+ * прочитать, пропускается с предупреждением ({@link #onWarning}).
+ */
+public final class PdfReport {
+
+    private static final float MARGIN = 40;
+    private static final float TABLE_SIZE = 8.5f;
+    private static final float ROW_HEIGHT = 12;
+    private static final float CELL_PADDING = 3;
+    private static final float BOTTOM = MARGIN + 20;
+
+    private static final String[] REGULAR_FONTS = {
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
+            "/usr/share/fonts/TTF/DejaVuSans.ttf",
+            "C:\\Windows\\Fonts\\arial.ttf",
+            "/Library/Fonts/Arial.ttf",
+            "/System/Library/Fonts/Supplemental/Arial.ttf"};
+    private static final String[] BOLD_FONTS = {
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans-Bold.ttf",
+            "/usr/share/fonts/TTF/DejaVuSans-Bold.ttf",
+            "C:\\Windows\\Fonts\\arialbd.ttf",
+            "/Library/Fonts/Arial Bold.ttf",
+            "/System/Library/Fonts/Supplemental/Arial Bold.ttf"};
+
+    private static final class Section {
+        final String name;
+        final TableModel model;
+
+        Section(String name, TableModel model) {
+            this.name = name;
+            this.model = model;
+        }
+    }
+
+    private final String title;
+    private final List<String> summary = new ArrayList<>();
+    private final List<Section> sections = new ArrayList<>();
+    private Consumer<String> warnings = System.err::println;
+
+    private PdfWriter pdf;
+    private PdfWriter.Font regular, bold;
+    private float y;
+
+    public PdfReport(String title) {
+        this.title = title;
+    }
+
+    /** Строка сводки на первой странице. */
+    public PdfReport addLine(String line) {
+        summary.add(line);
+        return this;
+    }
+
+    public PdfReport addSection(String name, TableModel model) {
+        sections.add(new Section(name, model));
+        return this;
+    }
+
+    /** Куда сообщать о пропущенных шрифтах (по умолчанию - System.err); вызывается в потоке записи. */
+    public PdfReport onWarning(Consumer<String> warnings) {
+        this.warnings = warnings;
+        return this;
+    }
+
+    /** @return число страниц */
+    public int write(File file, BooleanSupplier cancelled) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            pdf = new PdfWriter(out);
+            PdfWriter.Font embedded = font(REGULAR_FONTS, System.getProperty("cinema.pdfFont"));
+            regular = embedded != null ? embedded : pdf.standardFont("Helvetica");
+            bold = font(BOLD_FONTS, System.getProperty("cinema.pdfBoldFont"));
+            // без полужирного TrueType лучше обычный шрифт с кириллицей, чем Helvetica-Bold без нее
+            if (bold == null) bold = embedded != null ? embedded : pdf.standardFont("Helvetica-Bold");
+
+            newPage();
+            pdf.text(bold, 20, MARGIN, y - 20, title);
+            y -= 40;
+            pdf.text(regular, 10, MARGIN, y, "Сформирован: " + new Date());
+            y -= 24;
+            for (String line : summary) {
+                pdf.text(regular, 11, MARGIN, y, line);
+                y -= 16;
+            }
+            y -= 10;
+            for (Section s : sections) writeTable(s, cancelled);
+            pdf.endPage();
+            int pages = pdf.getPageCount();
+            pdf.close();
+            return pages;
+        } finally {
+            pdf = null;
+        }
+    }
+
+    private PdfWriter.Font font(String[] candidates, String preferred) {
+        List<String> paths = new ArrayList<>();
+        if (preferred != null) paths.add(preferred);
+        for (String p : candidates) paths.add(p);
+        for (String p : paths) {
+            File f = new File(p);
+            if (!f.isFile()) continue;
+            try {
+                return pdf.loadFont(f);
+            } catch (IOException ex) {
+                warnings.accept("PDF: шрифт " + f + " не подходит: " + ex.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void newPage() throws IOException {
+        pdf.beginPage();
+        y = PdfWriter.PAGE_HEIGHT - MARGIN;
+        String footer = title + " - страница " + pdf.getPageCount();
+        pdf.text(regular, 8, (PdfWriter.PAGE_WIDTH - regular.width(footer, 8)) / 2, MARGIN - 10, footer);
+    }
+
+    private void writeTable(Section s, BooleanSupplier cancelled) throws IOException {
+        TableModel m = s.model;
+        float[] widths = columnWidths(m);
+        if (y - 3 * ROW_HEIGHT - 20 < BOTTOM) newPage();
+        pdf.text(bold, 14, MARGIN, y - 14, s.name + " (" + m.getRowCount() + ")");
+        y -= 24;
+        header(m, widths);
+        for (int r = 0; r < m.getRowCount(); r++) {
+            if (y - ROW_HEIGHT < BOTTOM) {
+                if (cancelled.getAsBoolean()) throw new CancellationException("Отчет отменен");
+                newPage();
+                pdf.text(bold, 10, MARGIN, y - 10, s.name + " (продолжение)");
+                y -= 18;
+                header(m, widths);
+            }
+            if (r % 2 == 1) pdf.fillRect(MARGIN, y - ROW_HEIGHT, sum(widths), ROW_HEIGHT, 0.95f);
+            row(m, r, widths, regular);
+        }
+        y -= 16;
+    }
+
+    private void header(TableModel m, float[] widths) throws IOException {
+        pdf.fillRect(MARGIN, y - ROW_HEIGHT, sum(widths), ROW_HEIGHT, 0.85f);
+        float x = MARGIN;
+        for (int c = 0; c < widths.length; c++) {
+            pdf.text(bold, TABLE_SIZE, x + CELL_PADDING, y - ROW_HEIGHT + 3, fit(bold, m.getColumnName(c), widths[c] - 2 * CELL_PADDING));
+            x += widths[c];
+        }
+        y -= ROW_HEIGHT;
+    }
+
+    private void row(TableModel m, int r, float[] widths, PdfWriter.Font font) throws IOException {
+        float x = MARGIN;
+        for (int c = 0; c < widths.length; c++) {
+            Object value = m.getValueAt(r, c);
+            pdf.text(font, TABLE_SIZE, x + CELL_PADDING, y - ROW_HEIGHT + 3, fit(font, value == null ? "" : value.toString(), widths[c] - 2 * CELL_PADDING));
+            x += widths[c];
+        }
+        y -= ROW_HEIGHT;
+    }
+
+    // Ширины столбцов по шапке и первым строкам, приведенные к ширине страницы
+    private float[] columnWidths(TableModel m) {
+        int columns = m.getColumnCount();
+        float[] widths = new float[columns];
+        int sample = Math.min(m.getRowCount(), 500);
+        for (int c = 0; c < columns; c++) {
+            float w = bold.width(m.getColumnName(c), TABLE_SIZE);
+            for (int r = 0; r < sample; r++) {
+                Object value = m.getValueAt(r, c);
+                if (value != null) w = Math.max(w, regular.width(value.toString(), TABLE_SIZE));
+            }
+            widths[c] = w + 2 * CELL_PADDING;
+        }
+        float available = PdfWriter.PAGE_WIDTH - 2 * MARGIN;
+        // один длинный столбец не должен сжать остальные до многоточий
+        for (int c = 0; c < columns; c++) widths[c] = Math.min(widths[c], available * 0.4f);
+        float scale = available / sum(widths);
+        for (int c = 0; c < columns; c++) widths[c] *= scale;
+        return widths;
+    }
+
+    private static float sum(float[] values) {
+        float total = 0;
+        for (float v : values) total += v;
+        return total;
+    }
+
+    // Обрезка текста по ширине ячейки с многоточием
+    private static String fit(PdfWriter.Font font, String text, float width) {
+        if (font.width(text, TABLE_SIZE) <= width) return text;
+        String ellipsis = "...";
+        float room = width - font.width(ellipsis, TABLE_SIZE);
+        int end = text.length();
+        while (end > 0 && font.width(text.substring(0, end), TABLE_SIZE) > room) end--;
+        return text.substring(0, end) + ellipsis;
+    }
+}
@@ -0,0 +1,575 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Потоковая запись PDF 1.4. Объекты пишутся в выходной поток сразу,
+ * по мере формирования страниц; смещения для таблицы xref считаются
+ * по числу записанных байт, а длина каждого потока (сжатого Flate)
+ * пишется отдельным объектом после него. В памяти остаются только
+ * смещения объектов и номера страниц, поэтому документ из десятков
+ * тысяч страниц пишется в постоянном объеме памяти.
+ * Кириллица выводится шрифтом TrueType, встроенным как CID-шрифт
+ * (Identity-H, с таблицей ToUnicode для поиска и копирования текста);
+ * без файла шрифта - стандартный Helvetica с транслитерацией.
+ */
+public final class PdfWriter implements Closeable {
+
+    // A4 в пунктах
+    public static final float PAGE_WIDTH = 595;
+    public static final float PAGE_HEIGHT = 842;
+
+    /** Шрифт документа; создается writer-ом до первой страницы. */
+    public abstract static class Font {
+        final String resource;
+
+        Font(String resource) {
+            this.resource = resource;
+        }
+
+        /** Ширина строки в пунктах при заданном кегле. */
+        public abstract float width(String s, float size);
+
+        // Операнд оператора Tj
+        abstract void encode(String s, StringBuilder out);
+
+        abstract void writeObjects(PdfWriter pdf) throws IOException;
+
+        abstract int objectId();
+    }
+
+    private final CountingOutputStream out;
+    private long[] offsets = new long[64];
+    private int nextId = 1;
+    private final int catalogId = reserve();
+    private final int pagesId = reserve();
+    private final int resourcesId = reserve();
+    private int[] pageIds = new int[64];
+    private int pageCount;
+    private final List<Font> fonts = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private DeflaterOutputStream stream;
+    private int streamObjectId;
+    private int streamLengthId;
+    private long streamStart;
+    private int pageId = -1;
+    private final StringBuilder op = new StringBuilder(256);
+    private byte[] opBytes = new byte[256];
+
+    public PdfWriter(OutputStream target) throws IOException {
+        out = new CountingOutputStream(new BufferedOutputStream(target, 1 << 16));
+        // двоичная строка-комментарий: признак для программ передачи файлов
+        write("%PDF-1.4\n%âãÏÓ\n");
+    }
+
+    // ========== Шрифты ==========
+
+    /** Встраивает шрифт TrueType (нужна таблица cmap формата 4). */
+    public Font loadFont(File ttf) throws IOException {
+        checkNoPages();
+        TrueTypeFont font = TrueTypeFont.load(ttf, "F" + (fonts.size() + 1));
+        fonts.add(font);
+        return font;
+    }
+
+    /** Стандартный шрифт Type1 (Helvetica, Helvetica-Bold...), только латиница. */
+    public Font standardFont(String baseFont) {
+        checkNoPages();
+        Font font = new StandardFont("F" + (fonts.size() + 1), baseFont);
+        fonts.add(font);
+        return font;
+    }
+
+    private void checkNoPages() {
+        if (pageCount > 0) throw new IllegalStateException("Шрифты добавляются до первой страницы");
+    }
+
+    // ========== Страницы ==========
+
+    public void beginPage() throws IOException {
+        if (pageId >= 0) endPage();
+        int contentId = reserve();
+        pageId = reserve();
+        if (pageCount == pageIds.length) pageIds = Arrays.copyOf(pageIds, pageCount * 2);
+        pageIds[pageCount++] = pageId;
+        beginStream(contentId, "");
+    }
+
+    public void endPage() throws IOException {
+        if (pageId < 0) return;
+        int contentId = streamObjectId;
+        endStream();
+        beginObject(pageId);
+        write("<< /Type /Page /Parent " + pagesId + " 0 R /MediaBox [0 0 " + (int) PAGE_WIDTH + " " + (int) PAGE_HEIGHT + "] /Resources "
+                + resourcesId + " 0 R /Contents " + contentId + " 0 R >>\n");
+        endObject();
+        pageId = -1;
+    }
+
+    public int getPageCount() { return pageCount; }
+
+    /** Текст от точки (x, y) - левый край базовой линии; начало координат внизу слева. */
+    public void text(Font font, float size, float x, float y, String s) throws IOException {
+        op.setLength(0);
+        op.append("BT /").append(font.resource).append(' ');
+        num(size).append(" Tf ");
+        num(x).append(' ');
+        num(y).append(" Td ");
+        font.encode(s, op);
+        op.append(" Tj ET\n");
+        writeOp();
+    }
+
+    public void line(float x1, float y1, float x2, float y2, float width) throws IOException {
+        op.setLength(0);
+        num(width).append(" w ");
+        num(x1).append(' ');
+        num(y1).append(" m ");
+        num(x2).append(' ');
+        num(y2).append(" l S\n");
+        writeOp();
+    }
+
+    /** Прямоугольник, залитый серым (0 - черный, 1 - белый). */
+    public void fillRect(float x, float y, float w, float h, float gray) throws IOException {
+        op.setLength(0);
+        op.append("q ");
+        num(gray).append(" g ");
+        num(x).append(' ');
+        num(y).append(' ');
+        num(w).append(' ');
+        num(h).append(" re f Q\n");
+        writeOp();
+    }
+
+    // ========== Завершение документа ==========
+
+    /** Дописывает шрифты, дерево страниц, xref и trailer. */
+    @Override
+    public void close() throws IOException {
+        if (pageId >= 0) endPage();
+        if (pageCount == 0) {
+            beginPage();
+            endPage();
+        }
+        for (Font font : fonts) font.writeObjects(this);
+
+        beginObject(resourcesId);
+        StringBuilder res = new StringBuilder("<< /Font << ");
+        for (Font font : fonts) res.append('/').append(font.resource).append(' ').append(font.objectId()).append(" 0 R ");
+        write(res.append(">> >>\n").toString());
+        endObject();
+
+        beginObject(pagesId);
+        write("<< /Type /Pages /Count " + pageCount + " /Kids [");
+        StringBuilder kids = new StringBuilder(1024);
+        for (int i = 0; i < pageCount; i++) {
+            kids.append(i % 10 == 0 ? '\n' : ' ').append(pageIds[i]).append(" 0 R");
+            if (kids.length() > 900) {
+                write(kids.toString());
+                kids.setLength(0);
+            }
+        }
+        write(kids.append("\n] >>\n").toString());
+        endObject();
+
+        beginObject(catalogId);
+        write("<< /Type /Catalog /Pages " + pagesId + " 0 R >>\n");
+        endObject();
+
+        long xref = out.count;
+        StringBuilder table = new StringBuilder(20 * 64);
+        table.append("xref\n0 ").append(nextId).append("\n0000000000 65535 f \n");
+        for (int id = 1; id < nextId; id++) {
+            if (offsets[id] == 0) throw new IllegalStateException("Объект " + id + " не записан");
+            String offset = Long.toString(offsets[id]);
+            for (int i = offset.length(); i < 10; i++) table.append('0');
+            table.append(offset).append(" 00000 n \n");
+            if (table.length() > 16_000) {
+                write(table.toString());
+                table.setLength(0);
+            }
+        }
+        write(table.toString());
+        write("trailer\n<< /Size " + nextId + " /Root " + catalogId + " 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        deflater.end();
+        out.close();
+    }
+
+    // ========== Объекты и потоки ==========
+
+    int reserve() {
+        if (nextId == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        return nextId++;
+    }
+
+    void beginObject(int id) throws IOException {
+        offsets[id] = out.count;
+        write(id + " 0 obj\n");
+    }
+
+    void endObject() throws IOException {
+        write("endobj\n");
+    }
+
+    /**
+     * Открывает сжатый поток объекта {@code id}; длина пока неизвестна,
+     * поэтому /Length - ссылка на объект, который пишется после потока.
+     */
+    OutputStream beginStream(int id, String dictEntries) throws IOException {
+        streamObjectId = id;
+        streamLengthId = reserve();
+        beginObject(id);
+        write("<< /Length " + streamLengthId + " 0 R /Filter /FlateDecode" + dictEntries + " >>\nstream\n");
+        streamStart = out.count;
+        deflater.reset();
+        stream = new DeflaterOutputStream(new FilterOutputStream(out) {
+            @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); }
+            @Override public void close() {}
+        }, deflater, 1 << 14);
+        return stream;
+    }
+
+    void endStream() throws IOException {
+        stream.finish();
+        stream = null;
+        long length = out.count - streamStart;
+        write("\nendstream\n");
+        endObject();
+        beginObject(streamLengthId);
+        write(length + "\n");
+        endObject();
+    }
+
+    void write(String s) throws IOException {
+        out.write(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void writeOp() throws IOException {
+        if (stream == null) throw new IllegalStateException("Нет открытой страницы");
+        int n = op.length();
+        if (opBytes.length < n) opBytes = new byte[Math.max(n, opBytes.length * 2)];
+        for (int i = 0; i < n; i++) opBytes[i] = (byte) op.charAt(i);
+        stream.write(opBytes, 0, n);
+    }
+
+    // Число без экспоненты и не больше двух знаков после точки - независимо от локали
+    private StringBuilder num(float v) {
+        long r = Math.round(v * 100.0);
+        if (r < 0) {
+            op.append('-');
+            r = -r;
+        }
+        op.append(r / 100);
+        long frac = r % 100;
+        if (frac != 0) {
+            op.append('.').append(frac / 10);
+            if (frac % 10 != 0) op.append(frac % 10);
+        }
+        return op;
+    }
+
+    /** Счетчик записанных байт - из него берутся смещения xref. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    // ========== Стандартный шрифт ==========
+
+    /** Helvetica в WinAnsiEncoding; кириллица транслитерируется, ширина - приближенная. */
+    private static final class StandardFont extends Font {
+        private static final String[] CYRILLIC = {
+                "A", "B", "V", "G", "D", "E", "Zh", "Z", "I", "Y", "K", "L", "M", "N", "O", "P",
+                "R", "S", "T", "U", "F", "Kh", "Ts", "Ch", "Sh", "Shch", "\"", "Y", "'", "E", "Yu", "Ya"};
+        private final String baseFont;
+        private int id;
+
+        StandardFont(String resource, String baseFont) {
+            super(resource);
+            this.baseFont = baseFont;
+        }
+
+        @Override
+        public float width(String s, float size) {
+            return transliterate(s).length() * size * 0.52f;
+        }
+
+        @Override
+        void encode(String s, StringBuilder out) {
+            String t = transliterate(s);
+            out.append('(');
+            for (int i = 0; i < t.length(); i++) {
+                char ch = t.charAt(i);
+                if (ch == '(' || ch == ')' || ch == '\\') out.append('\\').append(ch);
+                else if (ch < 32 || ch > 126) out.append('?');
+                else out.append(ch);
+            }
+            out.append(')');
+        }
+
+        static String transliterate(String s) {
+            StringBuilder sb = null;
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                String r = null;
+                if (ch >= 'А' && ch <= 'Я') r = CYRILLIC[ch - 'А'];
+                else if (ch >= 'а' && ch <= 'я') r = CYRILLIC[ch - 'а'].toLowerCase();
+                else if (ch == 'Ё') r = "Yo";
+                else if (ch == 'ё') r = "yo";
+                if (r == null && sb == null) continue;
+                if (sb == null) sb = new StringBuilder(s.length() + 8).append(s, 0, i);
+                sb.append(r != null ? r : String.valueOf(ch));
+            }
+            return sb == null ? s : sb.toString();
+        }
+
+        @Override
+        void writeObjects(PdfWriter pdf) throws IOException {
+            id = pdf.reserve();
+            pdf.beginObject(id);
+            pdf.write("<< /Type /Font /Subtype /Type1 /BaseFont /" + baseFont + " /Encoding /WinAnsiEncoding >>\n");
+            pdf.endObject();
+        }
+
+        @Override int objectId() { return id; }
+    }
+
+    // ========== Встроенный TrueType ==========
+
+    /**
+     * Шрифт TrueType целиком (без выделения подмножества), глифы адресуются
+     * номерами (CIDToGIDMap /Identity). Из файла читаются head, hhea, hmtx,
+     * maxp, OS/2 и cmap формата 4 - этого хватает для ширин и кодирования BMP.
+     */
+    private static final class TrueTypeFont extends Font {
+        private final byte[] data;
+        private final String name;
+        private final int unitsPerEm;
+        private final int[] bbox;
+        private final int ascent, descent, capHeight;
+        private final int[] advances;
+        private final char[] glyphs = new char[65536];
+        private final char[] unicode;
+        private final BitSet used = new BitSet();
+        private int id;
+
+        private TrueTypeFont(String resource, byte[] data, String name, int unitsPerEm, int[] bbox,
+                             int ascent, int descent, int capHeight, int[] advances) {
+            super(resource);
+            this.data = data;
+            this.name = name;
+            this.unitsPerEm = unitsPerEm;
+            this.bbox = bbox;
+            this.ascent = ascent;
+            this.descent = descent;
+            this.capHeight = capHeight;
+            this.advances = advances;
+            this.unicode = new char[advances.length];
+        }
+
+        static TrueTypeFont load(File file, String resource) throws IOException {
+            byte[] data = Files.readAllBytes(file.toPath());
+            ByteBuffer b = ByteBuffer.wrap(data);
+            try {
+                int head = -1, hhea = -1, hmtx = -1, maxp = -1, cmap = -1, os2 = -1;
+                int numTables = b.getShort(4) & 0xFFFF;
+                for (int i = 0; i < numTables; i++) {
+                    int rec = 12 + 16 * i;
+                    String tag = new String(data, rec, 4, StandardCharsets.ISO_8859_1);
+                    int offset = b.getInt(rec + 8);
+                    switch (tag) {
+                        case "head": head = offset; break;
+                        case "hhea": hhea = offset; break;
+                        case "hmtx": hmtx = offset; break;
+                        case "maxp": maxp = offset; break;
+                        case "cmap": cmap = offset; break;
+                        case "OS/2": os2 = offset; break;
+                        default:
+                    }
+                }
+                if (head < 0 || hhea < 0 || hmtx < 0 || maxp < 0 || cmap < 0) throw new IOException("Не шрифт TrueType: " + file);
+                int unitsPerEm = u16(b, head + 18);
+                int[] bbox = {b.getShort(head + 36), b.getShort(head + 38), b.getShort(head + 40), b.getShort(head + 42)};
+                int ascent = b.getShort(hhea + 4), descent = b.getShort(hhea + 6);
+                int metrics = u16(b, hhea + 34);
+                int numGlyphs = u16(b, maxp + 4);
+                int[] advances = new int[numGlyphs];
+                for (int g = 0; g < numGlyphs; g++) advances[g] = u16(b, hmtx + 4 * Math.min(g, metrics - 1));
+                int capHeight = os2 >= 0 && u16(b, os2) >= 2 ? b.getShort(os2 + 88) : ascent;
+
+                String base = file.getName().replaceFirst("\\.[^.]*$", "").replaceAll("[^A-Za-z0-9-]", "");
+                TrueTypeFont font = new TrueTypeFont(resource, data, base.isEmpty() ? "Embedded" : base, unitsPerEm, bbox,
+                        ascent, descent, capHeight, advances);
+                font.readCmap(b, cmap);
+                return font;
+            } catch (IndexOutOfBoundsException ex) {
+                throw new IOException("Поврежденный шрифт: " + file, ex);
+            }
+        }
+
+        // Подтаблица Unicode BMP формата 4: сегменты кодов с дельтой или массивом глифов
+        private void readCmap(ByteBuffer b, int cmap) throws IOException {
+            int tables = u16(b, cmap + 2);
+            int table = -1;
+            for (int i = 0; i < tables; i++) {
+                int rec = cmap + 4 + 8 * i;
+                int platform = u16(b, rec), encoding = u16(b, rec + 2);
+                int offset = cmap + b.getInt(rec + 4);
+                if (u16(b, offset) != 4) continue;
+                if (platform == 3 && encoding == 1) {
+                    table = offset;
+                    break;
+                }
+                if (platform == 0 && table < 0) table = offset;
+            }
+            if (table < 0) throw new IOException("В шрифте нет таблицы cmap формата 4");
+            int segX2 = u16(b, table + 6);
+            int ends = table + 14, starts = ends + segX2 + 2, deltas = starts + segX2, ranges = deltas + segX2;
+            for (int s = 0; s < segX2 / 2; s++) {
+                int end = u16(b, ends + 2 * s), start = u16(b, starts + 2 * s);
+                int delta = u16(b, deltas + 2 * s), rangeOffset = u16(b, ranges + 2 * s);
+                for (int c = start; c <= end && c != 0xFFFF; c++) {
+                    int g;
+                    if (rangeOffset == 0) {
+                        g = (c + delta) & 0xFFFF;
+                    } else {
+                        g = u16(b, ranges + 2 * s + rangeOffset + 2 * (c - start));
+                        if (g != 0) g = (g + delta) & 0xFFFF;
+                    }
+                    if (g < advances.length) glyphs[c] = (char) g;
+                }
+            }
+        }
+
+        private static int u16(ByteBuffer b, int pos) {
+            return b.getShort(pos) & 0xFFFF;
+        }
+
+        @Override
+        public float width(String s, float size) {
+            long units = 0;
+            for (int i = 0; i < s.length(); i++) units += advances[glyphs[s.charAt(i)]];
+            return units * size / unitsPerEm;
+        }
+
+        @Override
+        void encode(String s, StringBuilder out) {
+            out.append('<');
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                int g = glyphs[ch];
+                if (g != 0) {
+                    used.set(g);
+                    if (unicode[g] == 0) unicode[g] = ch;
+                }
+                hex4(out, g);
+            }
+            out.append('>');
+        }
+
+        private static void hex4(StringBuilder out, int v) {
+            final String digits = "0123456789ABCDEF";
+            out.append(digits.charAt((v >> 12) & 15)).append(digits.charAt((v >> 8) & 15))
+                    .append(digits.charAt((v >> 4) & 15)).append(digits.charAt(v & 15));
+        }
+
+        private int scale(int units) {
+            return Math.round(units * 1000f / unitsPerEm);
+        }
+
+        @Override
+        void writeObjects(PdfWriter pdf) throws IOException {
+            id = pdf.reserve();
+            int cidFont = pdf.reserve(), descriptor = pdf.reserve(), fontFile = pdf.reserve(), toUnicode = pdf.reserve();
+
+            pdf.beginObject(id);
+            pdf.write("<< /Type /Font /Subtype /Type0 /BaseFont /" + name + " /Encoding /Identity-H /DescendantFonts [" + cidFont
+                    + " 0 R] /ToUnicode " + toUnicode + " 0 R >>\n");
+            pdf.endObject();
+
+            // Ширины только использованных глифов, подряд идущие - одним массивом
+            pdf.beginObject(cidFont);
+            StringBuilder w = new StringBuilder("<< /Type /Font /Subtype /CIDFontType2 /BaseFont /" + name
+                    + " /CIDSystemInfo << /Registry (Adobe) /Ordering (Identity) /Supplement 0 >> /FontDescriptor " + descriptor
+                    + " 0 R /CIDToGIDMap /Identity /DW " + scale(advances[0]) + " /W [");
+            for (int g = used.nextSetBit(0); g >= 0; ) {
+                w.append('\n').append(g).append(" [");
+                int next = g;
+                while (next >= 0 && next < advances.length && used.get(next)) {
+                    w.append(scale(advances[next])).append(' ');
+                    next++;
+                }
+                w.append(']');
+                g = used.nextSetBit(next);
+                if (w.length() > 16_000) {
+                    pdf.write(w.toString());
+                    w.setLength(0);
+                }
+            }
+            pdf.write(w.append("\n] >>\n").toString());
+            pdf.endObject();
+
+            pdf.beginObject(descriptor);
+            pdf.write("<< /Type /FontDescriptor /FontName /" + name + " /Flags 32 /FontBBox [" + scale(bbox[0]) + " " + scale(bbox[1]) + " "
+                    + scale(bbox[2]) + " " + scale(bbox[3]) + "] /ItalicAngle 0 /Ascent " + scale(ascent) + " /Descent " + scale(descent)
+                    + " /CapHeight " + scale(capHeight) + " /StemV 80 /FontFile2 " + fontFile + " 0 R >>\n");
+            pdf.endObject();
+
+            OutputStream file = pdf.beginStream(fontFile, " /Length1 " + data.length);
+            file.write(data);
+            pdf.endStream();
+
+            OutputStream cmap = pdf.beginStream(toUnicode, "");
+            StringBuilder sb = new StringBuilder(4096);
+            sb.append("/CIDInit /ProcSet findresource begin\n12 dict begin\nbegincmap\n")
+                    .append("/CIDSystemInfo << /Registry (Adobe) /Ordering (UCS) /Supplement 0 >> def\n")
+                    .append("/CMapName /Adobe-Identity-UCS def\n/CMapType 2 def\n")
+                    .append("1 begincodespacerange\n<0000> <FFFF>\nendcodespacerange\n");
+            int[] list = used.stream().toArray();
+            for (int from = 0; from < list.length; from += 100) {
+                int to = Math.min(list.length, from + 100);
+                sb.append(to - from).append(" beginbfchar\n");
+                for (int i = from; i < to; i++) {
+                    sb.append('<');
+                    hex4(sb, list[i]);
+                    sb.append("> <");
+                    hex4(sb, unicode[list[i]]);
+                    sb.append(">\n");
+                }
+                sb.append("endbfchar\n");
+                cmap.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+                sb.setLength(0);
+            }
+            sb.append("endcmap\nCMapName currentdict /CMap defineresource pop\nend\nend\n");
+            cmap.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+            pdf.endStream();
+        }
+
+        @Override int objectId() { return id; }
+    }
+}
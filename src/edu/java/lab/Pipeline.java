@@ -0,0 +1,263 @@
+package edu.java.lab2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Конвейер обработки: источник и цепочка этапов, связанных ограниченными
+ * очередями. У каждого этапа свое число потоков; если очередь следующего
+ * этапа заполнена, этап ждет (обратное давление), поэтому расход памяти
+ * ограничен емкостью очередей, а все этапы работают одновременно.
+ * Конвейер можно отменить; по каждому этапу собираются счетчики и время,
+ * которые интерфейс опрашивает сам - рабочие потоки окна не ждут.
+ * Длительность обработки каждого элемента попадает также в {@link Metrics}
+ * (операция "Конвейер: этап").
+ *
+ * <pre>
+ *   Pipeline p = Pipeline.from("Загрузка", source)
+ *           .then("Разбор", 4, 8, parser)
+ *           .then("Отчет", 1, 1, reporter)
+ *           .start();
+ * </pre>
+ */
+public final class Pipeline {
+
+    /** Передача результата следующему этапу; блокируется, пока в очереди нет места. */
+    public interface Emitter<T> {
+        void emit(T item) throws InterruptedException;
+    }
+
+    /** Первый этап: порождает элементы. */
+    public interface Source<T> {
+        void run(Emitter<T> out) throws Exception;
+    }
+
+    /** Этап обработки: из одного элемента - ноль или больше результатов. */
+    public interface Stage<I, O> {
+        void process(I item, Emitter<O> out) throws Exception;
+
+        /** Вызывается один раз, когда входные элементы этапа закончились (сборка результатов). */
+        default void finish(Emitter<O> out) throws Exception {}
+    }
+
+    /** Снимок счетчиков этапа. */
+    public static final class StageMetrics {
+        private final String name;
+        private final int parallelism;
+        private final long received;
+        private final long emitted;
+        private final long busyNanos;
+        private final long blockedNanos;
+        private final int queued;
+
+        StageMetrics(String name, int parallelism, long received, long emitted, long busyNanos, long blockedNanos, int queued) {
+            this.name = name;
+            this.parallelism = parallelism;
+            this.received = received;
+            this.emitted = emitted;
+            this.busyNanos = busyNanos;
+            this.blockedNanos = blockedNanos;
+            this.queued = queued;
+        }
+
+        public String getName() { return name; }
+        public int getParallelism() { return parallelism; }
+        public long getReceived() { return received; }
+        public long getEmitted() { return emitted; }
+        /** Время обработки без ожидания места в следующей очереди, сумма по потокам. */
+        public long getWorkMillis() { return (busyNanos - blockedNanos) / 1_000_000; }
+        /** Время, проведенное в ожидании следующего этапа (обратное давление). */
+        public long getBlockedMillis() { return blockedNanos / 1_000_000; }
+        public int getQueued() { return queued; }
+
+        @Override
+        public String toString() {
+            return name + " x" + parallelism + ": вход " + received + ", выход " + emitted + ", в очереди " + queued
+                    + ", работа " + getWorkMillis() + " мс, ожидание " + getBlockedMillis() + " мс";
+        }
+    }
+
+    // Признак конца данных: каждый поток этапа получает свой
+    private static final Object END = new Object();
+
+    private final String name;
+    private final List<Node> nodes;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicInteger alive = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+    private volatile boolean cancelled;
+
+    private Pipeline(String name, List<Node> nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Builder<T> from(String name, Source<T> source) {
+        Node node = new Node(name, 1, 0);
+        node.source = (Source<Object>) source;
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(node);
+        return new Builder<>(nodes);
+    }
+
+    /** Построитель цепочки; тип T - элементы, которые получит следующий этап. */
+    public static final class Builder<T> {
+        private final List<Node> nodes;
+
+        private Builder(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        /**
+         * Добавляет этап из {@code parallelism} потоков с входной очередью
+         * емкостью {@code capacity}.
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<R> then(String name, int parallelism, int capacity, Stage<? super T, R> stage) {
+            if (parallelism < 1 || capacity < 1) throw new IllegalArgumentException("parallelism и capacity должны быть >= 1");
+            Node node = new Node(name, parallelism, capacity);
+            node.stage = (Stage<Object, Object>) stage;
+            nodes.get(nodes.size() - 1).next = node;
+            nodes.add(node);
+            return new Builder<>(nodes);
+        }
+
+        public Pipeline start() {
+            Pipeline pipeline = new Pipeline(nodes.get(0).name, Collections.unmodifiableList(new ArrayList<>(nodes)));
+            pipeline.launch();
+            return pipeline;
+        }
+    }
+
+    private void launch() {
+        for (Node node : nodes) {
+            node.active.set(node.parallelism);
+            for (int i = 0; i < node.parallelism; i++) {
+                Thread t = new Thread(() -> runWorker(node), "Pipeline-" + node.name + "-" + (i + 1));
+                t.setDaemon(true);
+                threads.add(t);
+            }
+        }
+        alive.set(threads.size());
+        for (Thread t : threads) t.start();
+    }
+
+    private void runWorker(Node node) {
+        Emitter<Object> out = node::emit;
+        try {
+            if (node.source != null) {
+                Metrics.Sample sample = node.timer.start();
+                try {
+                    node.source.run(out);
+                } finally {
+                    node.busy.add(sample.rows(node.emitted.sum()).stop());
+                }
+            } else {
+                while (!cancelled) {
+                    Object item = node.input.take();
+                    if (item == END) break;
+                    node.received.increment();
+                    Metrics.Sample sample = node.timer.start().rows(1);
+                    try {
+                        node.stage.process(item, out);
+                    } finally {
+                        node.busy.add(sample.stop());
+                    }
+                }
+            }
+            if (node.active.decrementAndGet() == 0 && !cancelled) {
+                if (node.stage != null) {
+                    Metrics.Sample sample = node.timer.start();
+                    node.stage.finish(out);
+                    node.busy.add(sample.stop());
+                }
+                if (node.next != null) {
+                    for (int i = 0; i < node.next.parallelism; i++) node.next.input.put(END);
+                }
+            }
+        } catch (InterruptedException ex) {
+            // отмена конвейера
+        } catch (Throwable ex) {
+            // после отмены ошибки прерванного ввода-вывода - следствие, а не причина
+            if (!cancelled && failure.compareAndSet(null, ex)) cancel();
+        } finally {
+            if (alive.decrementAndGet() == 0) complete();
+        }
+    }
+
+    private void complete() {
+        endNanos = System.nanoTime();
+        Throwable error = failure.get();
+        if (error != null) completion.completeExceptionally(error);
+        else if (cancelled) completion.completeExceptionally(new CancellationException("Конвейер остановлен"));
+        else completion.complete(null);
+    }
+
+    /** Останавливает все этапы; элементы в очередях отбрасываются. */
+    public void cancel() {
+        cancelled = true;
+        for (Thread t : threads) t.interrupt();
+    }
+
+    public boolean isDone() { return completion.isDone(); }
+
+    /** Завершение конвейера: успешно, с ошибкой этапа или CancellationException. */
+    public CompletableFuture<Void> completion() { return completion; }
+
+    public String getName() { return name; }
+
+    public long getElapsedMillis() {
+        long end = completion.isDone() ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+
+    public List<StageMetrics> getMetrics() {
+        List<StageMetrics> result = new ArrayList<>(nodes.size());
+        for (Node n : nodes) {
+            result.add(new StageMetrics(n.name, n.parallelism, n.source != null ? n.emitted.sum() : n.received.sum(),
+                    n.emitted.sum(), n.busy.sum(), n.blocked.sum(), n.input == null ? 0 : n.input.size()));
+        }
+        return result;
+    }
+
+    /** Этап конвейера: входная очередь, потоки и счетчики. */
+    private static final class Node {
+        final String name;
+        final int parallelism;
+        final BlockingQueue<Object> input;
+        Source<Object> source;
+        Stage<Object, Object> stage;
+        Node next;
+        final AtomicInteger active = new AtomicInteger();
+        final LongAdder received = new LongAdder();
+        final LongAdder emitted = new LongAdder();
+        final LongAdder busy = new LongAdder();
+        final LongAdder blocked = new LongAdder();
+        // Длительность каждого элемента (и сборки в finish) - в общих замерах и JFR
+        final Metrics.Timer timer;
+
+        Node(String name, int parallelism, int capacity) {
+            this.name = name;
+            this.timer = Metrics.timer("Конвейер: " + name);
+            this.parallelism = parallelism;
+            this.input = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : null;
+        }
+
+        void emit(Object item) throws InterruptedException {
+            emitted.increment();
+            if (next == null) return;
+            long start = System.nanoTime();
+            next.input.put(item);
+            blocked.add(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package edu.java.lab2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+
+/**
+ * Сортировка и фильтр строк JTable без компаратора на каждую пару строк
+ * (замена TableRowSorter для больших живых таблиц). Значения столбца
+ * сводятся в словарь различных значений, словарь ранжируется Collator'ом
+ * ({@link SortIndex#ranks}), а строки упорядочиваются подсчетом по рангам
+ * ({@link SortIndex#byKeys}): O(n + число значений) вместо O(n log n) сравнений строк.
+ * Как у TableRowSorter, порядок устойчивый, предыдущие щелчки по заголовку
+ * остаются дополнительными ключами (до {@link #MAX_SORT_KEYS}), порядок
+ * пересчитывается при вставке и удалении строк, а изменение значений
+ * существующих строк его не меняет.
+ * Без сортировки и фильтра строки отображаются как есть, без перестановки.
+ */
+public class RankRowSorter<M extends TableModel> extends RowSorter<M> {
+    public static final int MAX_SORT_KEYS = 3;
+
+    private final M model;
+    private RowFilter<? super M, ? super Integer> filter;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    // null - строки модели как есть
+    private int[] viewToModel;
+    private int[] modelToView;
+    private int modelRowCount;
+
+    public RankRowSorter(M model) {
+        this.model = model;
+        modelRowCount = model.getRowCount();
+    }
+
+    @Override public M getModel() { return model; }
+
+    public void setRowFilter(RowFilter<? super M, ? super Integer> filter) {
+        this.filter = filter;
+        sort();
+    }
+
+    public RowFilter<? super M, ? super Integer> getRowFilter() { return filter; }
+
+    /** Щелчок по заголовку: столбец становится первым ключом, повторный щелчок меняет направление. */
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder order = !keys.isEmpty() && keys.get(0).getColumn() == column
+                && keys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+        keys.removeIf(k -> k.getColumn() == column);
+        keys.add(0, new SortKey(column, order));
+        setSortKeys(keys.size() > MAX_SORT_KEYS ? keys.subList(0, MAX_SORT_KEYS) : keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> copy = keys == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(keys));
+        for (SortKey key : copy) checkColumn(key.getColumn());
+        if (copy.equals(sortKeys)) return;
+        sortKeys = copy;
+        fireSortOrderChanged();
+        sort();
+    }
+
+    @Override public List<? extends SortKey> getSortKeys() { return sortKeys; }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+            return index;
+        }
+        if (index < 0 || index >= viewToModel.length) throw new IndexOutOfBoundsException("Invalid index " + index);
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= modelRowCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+        return modelToView == null ? index : modelToView[index];
+    }
+
+    @Override public int getViewRowCount() { return viewToModel == null ? modelRowCount : viewToModel.length; }
+    @Override public int getModelRowCount() { return modelRowCount; }
+
+    @Override
+    public void modelStructureChanged() {
+        if (!sortKeys.isEmpty()) {
+            sortKeys = Collections.emptyList();
+            fireSortOrderChanged();
+        }
+        sort();
+    }
+
+    @Override public void allRowsChanged() { sort(); }
+    @Override public void rowsInserted(int firstRow, int endRow) { sort(); }
+    @Override public void rowsDeleted(int firstRow, int endRow) { sort(); }
+    @Override public void rowsUpdated(int firstRow, int endRow) {}
+    @Override public void rowsUpdated(int firstRow, int endRow, int column) {}
+
+    private void sort() {
+        int[] previous = viewToModel;
+        if (previous == null) {
+            previous = new int[modelRowCount];
+            for (int i = 0; i < previous.length; i++) previous[i] = i;
+        }
+        modelRowCount = model.getRowCount();
+        // Устойчивая сортировка по ключам от последнего к первому: первый ключ - главный
+        int[] order = null;
+        for (int i = sortKeys.size() - 1; i >= 0; i--) {
+            SortKey key = sortKeys.get(i);
+            if (key.getSortOrder() != SortOrder.UNSORTED) order = order(order, key.getColumn(), key.getSortOrder() == SortOrder.DESCENDING);
+        }
+        if (filter != null) order = filter(order);
+        viewToModel = order;
+        if (order == null) {
+            modelToView = null;
+        } else {
+            modelToView = new int[modelRowCount];
+            Arrays.fill(modelToView, -1);
+            for (int view = 0; view < order.length; view++) modelToView[order[view]] = view;
+        }
+        fireRowSorterChanged(previous);
+    }
+
+    // Строки порядка rows (null - строки модели), переставленные по рангу значения столбца:
+    // словарь значений, ранги словаря, подсчет; равные остаются в порядке rows
+    private int[] order(int[] rows, int column, boolean descending) {
+        Map<Object, Integer> ids = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] rowIds = new int[modelRowCount];
+        for (int row = 0; row < modelRowCount; row++) {
+            Object value = model.getValueAt(row, column);
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value == null ? "" : value.toString());
+            }
+            rowIds[row] = id;
+        }
+        int[] ranks = SortIndex.ranks(values.toArray(new String[0]));
+        int rankCount = 0;
+        for (int r : ranks) rankCount = Math.max(rankCount, r + 1);
+        if (rows == null) return SortIndex.byKeys(modelRowCount, rankCount, row -> ranks[rowIds[row]], descending);
+        int[] positions = SortIndex.byKeys(rows.length, rankCount, i -> ranks[rowIds[rows[i]]], descending);
+        for (int i = 0; i < positions.length; i++) positions[i] = rows[positions[i]];
+        return positions;
+    }
+
+    private int[] filter(int[] order) {
+        int rows = order == null ? modelRowCount : order.length;
+        int[] kept = new int[rows];
+        int count = 0;
+        RowEntry entry = new RowEntry();
+        for (int i = 0; i < rows; i++) {
+            entry.row = order == null ? i : order[i];
+            if (filter.include(entry)) kept[count++] = entry.row;
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= model.getColumnCount()) throw new IndexOutOfBoundsException("column " + column);
+    }
+
+    private final class RowEntry extends RowFilter.Entry<M, Integer> {
+        int row;
+
+        @Override public M getModel() { return model; }
+        @Override public int getValueCount() { return model.getColumnCount(); }
+        @Override public Object getValue(int index) { return model.getValueAt(row, index); }
+        @Override public Integer getIdentifier() { return row; }
+    }
+}
@@ -0,0 +1,174 @@
+package edu.java.lab2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Кеш готовых отчетов и их частей. Ключ - тип отчета, параметры и версии
+ * данных ({@link CinemaRepository#getVersion}), от которых зависит результат:
+ * любое изменение сущности увеличивает ее версию, и старые записи просто
+ * перестают совпадать с новыми ключами, а затем вытесняются. Размер
+ * ограничен суммарным весом записей (обычно - байтами), вытесняются давно
+ * не использованные (LRU). Кешем пользуются фоновые задания, поэтому
+ * доступ синхронизирован; вычисление идет вне блокировки.
+ */
+public final class ReportCache {
+
+    /** Ключ записи: тип, параметры и версии данных. */
+    public static final class Key {
+        private final String type;
+        private final String params;
+        private final long[] versions;
+
+        public Key(String type, String params, long... versions) {
+            this.type = type;
+            this.params = params;
+            this.versions = versions.clone();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return type.equals(k.type) && params.equals(k.params) && Arrays.equals(versions, k.versions);
+        }
+
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + params.hashCode()) * 31 + Arrays.hashCode(versions);
+        }
+
+        @Override
+        public String toString() {
+            return type + "(" + params + ")@" + Arrays.toString(versions);
+        }
+    }
+
+    public interface Computation<V> {
+        V compute() throws IOException;
+    }
+
+    public interface Weigher<V> {
+        long weigh(V value);
+    }
+
+    /**
+     * Файлы отчета с размером и временем изменения на момент записи:
+     * если их никто не трогал, отчет можно не формировать заново.
+     */
+    public static final class FileSet {
+        private final List<File> files;
+        private final long[] lengths;
+        private final long[] modified;
+
+        FileSet(List<File> files) {
+            this.files = Collections.unmodifiableList(new ArrayList<>(files));
+            lengths = new long[files.size()];
+            modified = new long[files.size()];
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] = files.get(i).length();
+                modified[i] = files.get(i).lastModified();
+            }
+        }
+
+        public List<File> getFiles() { return files; }
+
+        boolean isIntact() {
+            for (int i = 0; i < lengths.length; i++) {
+                File f = files.get(i);
+                if (!f.isFile() || f.length() != lengths[i] || f.lastModified() != modified[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long weight;
+
+        Entry(Object value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long maxWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+    private long hits, misses, evictions;
+
+    public ReportCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <V> V get(Key key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (V) e.value;
+    }
+
+    /** Запись тяжелее всего кеша не сохраняется. */
+    public synchronized void put(Key key, Object value, long valueWeight) {
+        if (valueWeight > maxWeight) return;
+        Entry old = entries.put(key, new Entry(value, valueWeight));
+        if (old != null) weight -= old.weight;
+        weight += valueWeight;
+        Iterator<Entry> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Значение из кеша или вычисленное и сохраненное. Два потока с одним
+     * ключом могут посчитать значение оба - результат одинаков.
+     */
+    public <V> V computeIfAbsent(Key key, Weigher<? super V> weigher, Computation<V> computation) throws IOException {
+        V value = get(key);
+        if (value != null) return value;
+        value = computation.compute();
+        put(key, value, weigher.weigh(value));
+        return value;
+    }
+
+    /**
+     * Файлы отчета: если отчет с таким ключом уже записан и файлы не менялись,
+     * возвращаются они, иначе отчет формируется заново.
+     */
+    public List<File> files(Key key, Computation<List<File>> computation) throws IOException {
+        FileSet cached = get(key);
+        if (cached != null && cached.isIntact()) return cached.getFiles();
+        List<File> files = computation.compute();
+        put(key, new FileSet(files), 64L * files.size());
+        return files;
+    }
+
+    public synchronized void remove(Key key) {
+        Entry old = entries.remove(key);
+        if (old != null) weight -= old.weight;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized long getWeight() { return weight; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    @Override
+    public synchronized String toString() {
+        return "записей " + entries.size() + ", вес " + weight + "/" + maxWeight + ", попаданий " + hits + ", промахов " + misses + ", вытеснено " + evictions;
+    }
+}
@@ -0,0 +1,37 @@
+package edu.java.lab2;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Тонкое табличное представление одной сущности репозитория.
+ * Данные не копируются: модель читает строки прямо из {@link CinemaRepository}
+ * и переводит его события в точечные события JTable.
+ */
+@SuppressWarnings("serial")
+public abstract class RepositoryTableModel extends AbstractTableModel implements CinemaRepository.Listener {
+    protected final CinemaRepository repository;
+    private final CinemaRepository.Entity entity;
+    private final String[] columns;
+
+    protected RepositoryTableModel(CinemaRepository repository, CinemaRepository.Entity entity, String[] columns) {
+        this.repository = repository;
+        this.entity = entity;
+        this.columns = columns.clone();
+        repository.addListener(this);
+    }
+
+    @Override public int getColumnCount() { return columns.length; }
+    @Override public String getColumnName(int column) { return columns[column]; }
+    @Override public Class<?> getColumnClass(int column) { return String.class; }
+
+    @Override
+    public void repositoryChanged(CinemaRepository.Entity changed, CinemaRepository.ChangeType type, int firstRow, int lastRow) {
+        if (changed != entity) return;
+        switch (type) {
+            case INSERT: fireTableRowsInserted(firstRow, lastRow); break;
+            case UPDATE: fireTableRowsUpdated(firstRow, lastRow); break;
+            case DELETE: fireTableRowsDeleted(firstRow, lastRow); break;
+            default: fireTableDataChanged();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package edu.java.lab2;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Снятие просроченных броней. Каждая бронь через {@link BookingService}
+ * ставится в {@link DelayQueue} со своим сроком; фоновый поток забирает
+ * из очереди только истекшие брони (O(log n) на бронь), таблица билетов
+ * при этом не просматривается. Бронь, которую успели выкупить или снять,
+ * из очереди не удаляется: при извлечении она просто не найдется среди активных.
+ * При замене всех данных брони сбрасываются ({@link #clear}); брони новых
+ * данных ставятся заново.
+ */
+public class ReservationExpiry implements BookingService.Listener {
+
+    private static final class Hold implements Delayed {
+        final String sessionKey;
+        final String seat;
+        final long deadline;
+
+        Hold(String sessionKey, String seat, long deadline) {
+            this.sessionKey = sessionKey;
+            this.seat = seat;
+            this.deadline = deadline;
+        }
+
+        @Override public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Hold) other).deadline);
+        }
+    }
+
+    private final BookingService bookingService;
+    private final long holdNanos;
+    private final DelayQueue<Hold> queue = new DelayQueue<>();
+    // Действующая бронь каждого места; устаревшие записи очереди сюда не попадают
+    private final Map<String, Hold> active = new ConcurrentHashMap<>();
+    // Снятие брони и сброс всех броней не пересекаются
+    private final Object expiryLock = new Object();
+    private volatile Thread worker;
+
+    public ReservationExpiry(BookingService bookingService, long holdTime, TimeUnit unit) {
+        this.bookingService = bookingService;
+        this.holdNanos = unit.toNanos(holdTime);
+        bookingService.addListener(this);
+    }
+
+    public synchronized void start() {
+        if (worker != null) return;
+        worker = new Thread(this::run, "ReservationExpiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void shutdown() {
+        if (worker == null) return;
+        worker.interrupt();
+        worker = null;
+    }
+
+    /** Поставить на отсчет бронь, сделанную в обход сервиса (например, загруженную из файла). */
+    public void hold(String sessionKey, String seat) {
+        Hold h = new Hold(sessionKey, seat, System.nanoTime() + holdNanos);
+        active.put(seatId(sessionKey, seat), h);
+        queue.add(h);
+    }
+
+    public int getPendingCount() { return active.size(); }
+
+    /** Забывает все брони: данные заменены целиком, их брони поставит загрузка. */
+    public void clear() {
+        synchronized (expiryLock) {
+            active.clear();
+            queue.clear();
+        }
+    }
+
+    @Override
+    public void seatChanged(String sessionKey, String seat, int oldState, int newState, String time) {
+        if (newState == SeatMap.RESERVED) hold(sessionKey, seat);
+        else if (oldState == SeatMap.RESERVED) active.remove(seatId(sessionKey, seat));
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Hold h = queue.take();
+                // Снимаем только если это все еще действующая бронь места;
+                // CAS RESERVED -> FREE не тронет место, которое уже выкуплено
+                synchronized (expiryLock) {
+                    if (active.remove(seatId(h.sessionKey, h.seat), h)) {
+                        bookingService.cancelReservation(h.sessionKey, h.seat);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String seatId(String sessionKey, String seat) {
+        return sessionKey + '\u0000' + seat;
+    }
+}
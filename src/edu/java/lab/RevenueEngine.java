@@ -0,0 +1,106 @@
+package edu.java.lab2;
+
+import java.util.*;
+
+/**
+ * Агрегатор выручки. Цена сеанса разбирается один раз (см. {@link Session#getPriceKopecks()}),
+ * а суммы в копейках по фильмам, залам, датам и жанрам ведутся нарастающим итогом:
+ * репозиторий вызывает {@link #add}/{@link #remove} для каждого затронутого билета.
+ * Отчетам не нужно ни просматривать таблицу, ни разбирать строки цен.
+ */
+public final class RevenueEngine {
+    private long soldTotal;
+    private long reservedTotal;
+    private final Map<String, long[]> byFilm = new HashMap<>();
+    private final Map<String, long[]> byHall = new HashMap<>();
+    private final Map<String, long[]> byDate = new HashMap<>();
+    private final Map<String, long[]> byGenre = new HashMap<>();
+
+    /**
+     * Учесть билет. Сеанс и фильм передает репозиторий (найдены по индексам);
+     * билет без сеанса в выручку не попадает.
+     */
+    void add(Ticket ticket, Session session, Film film) { apply(ticket, session, film, 1); }
+
+    void remove(Ticket ticket, Session session, Film film) { apply(ticket, session, film, -1); }
+
+    private void apply(Ticket ticket, Session session, Film film, int sign) {
+        if (session == null) return;
+        int status = TicketCounters.statusIndex(ticket.getStatus());
+        long amount = sign * session.getPriceKopecks();
+        if (status == TicketCounters.RESERVED) {
+            reservedTotal += amount;
+        } else if (status == TicketCounters.SOLD) {
+            soldTotal += amount;
+            addTo(byFilm, session.getFilm(), amount);
+            addTo(byHall, session.getHall(), amount);
+            addTo(byDate, session.getDate(), amount);
+            addTo(byGenre, film == null ? "" : film.getGenre(), amount);
+        }
+    }
+
+    private static void addTo(Map<String, long[]> map, String key, long amount) {
+        long[] sum = map.computeIfAbsent(String.valueOf(key), k -> new long[1]);
+        sum[0] += amount;
+        if (sum[0] == 0) map.remove(String.valueOf(key));
+    }
+
+    void clear() {
+        soldTotal = 0;
+        reservedTotal = 0;
+        byFilm.clear();
+        byHall.clear();
+        byDate.clear();
+        byGenre.clear();
+    }
+
+    /** Выручка от проданных билетов, коп. */
+    public long getSoldRevenue() { return soldTotal; }
+
+    /** Сумма забронированных, но еще не выкупленных билетов, коп. */
+    public long getReservedRevenue() { return reservedTotal; }
+
+    public Map<String, Long> getRevenueByFilm() { return snapshot(byFilm); }
+    public Map<String, Long> getRevenueByHall() { return snapshot(byHall); }
+    public Map<String, Long> getRevenueByDate() { return snapshot(byDate); }
+    public Map<String, Long> getRevenueByGenre() { return snapshot(byGenre); }
+
+    private static Map<String, Long> snapshot(Map<String, long[]> map) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, long[]> e : map.entrySet()) result.put(e.getKey(), e.getValue()[0]);
+        return result;
+    }
+
+    /** Совпадают ли все суммы с другим агрегатором (используется при сверке с пересчетом). */
+    boolean sameTotals(RevenueEngine other) {
+        return soldTotal == other.soldTotal && reservedTotal == other.reservedTotal
+                && snapshot(byFilm).equals(snapshot(other.byFilm)) && snapshot(byHall).equals(snapshot(other.byHall))
+                && snapshot(byDate).equals(snapshot(other.byDate)) && snapshot(byGenre).equals(snapshot(other.byGenre));
+    }
+
+    /**
+     * Разбор цены вида "400 руб", "350.50 руб" или "299,9" в копейки.
+     * Берется первое число в строке; строка без цифр дает 0.
+     */
+    public static long parsePriceKopecks(String price) {
+        if (price == null) return 0;
+        int n = price.length();
+        int i = 0;
+        while (i < n && !Character.isDigit(price.charAt(i))) i++;
+        long rubles = 0;
+        while (i < n && Character.isDigit(price.charAt(i))) rubles = rubles * 10 + (price.charAt(i++) - '0');
+        long kopecks = 0;
+        if (i + 1 < n && (price.charAt(i) == '.' || price.charAt(i) == ',') && Character.isDigit(price.charAt(i + 1))) {
+            kopecks = (price.charAt(i + 1) - '0') * 10;
+            if (i + 2 < n && Character.isDigit(price.charAt(i + 2))) kopecks += price.charAt(i + 2) - '0';
+        }
+        return rubles * 100 + kopecks;
+    }
+
+    /** Копейки в строку рублей: 40000 -> "400", 35050 -> "350.50". */
+    public static String formatRubles(long kopecks) {
+        long abs = Math.abs(kopecks);
+        String rubles = (kopecks < 0 ? "-" : "") + abs / 100;
+        return abs % 100 == 0 ? rubles : rubles + String.format(".%02d", abs % 100);
+    }
+}
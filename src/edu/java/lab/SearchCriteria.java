@@ -0,0 +1,36 @@
+package edu.java.lab2;
+
+import java.time.LocalDate;
+
+/**
+ * Условия поиска сеансов и билетов. Пустое (null) поле означает "любое значение".
+ * Даты - границы диапазона включительно; для одной даты from == to.
+ */
+public final class SearchCriteria {
+    private final String film;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final String hall;
+    private final String status;
+
+    public SearchCriteria(String film, LocalDate from, LocalDate to, String hall, String status) {
+        this.film = film;
+        this.from = from;
+        this.to = to;
+        this.hall = hall;
+        this.status = status;
+    }
+
+    public String getFilm() { return film; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public String getHall() { return hall; }
+    public String getStatus() { return status; }
+
+    public boolean hasDateRange() { return from != null || to != null; }
+
+    /** Задано ли хоть одно условие на сеанс (без них подходят все сеансы). */
+    public boolean restrictsSessions() { return film != null || hasDateRange() || hall != null; }
+
+    public boolean isEmpty() { return !restrictsSessions() && status == null; }
+}
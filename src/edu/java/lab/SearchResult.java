@@ -0,0 +1,36 @@
+package edu.java.lab2;
+
+import java.util.Set;
+
+/**
+ * Результат поиска: найденные сеансы (сравнение по ссылке) и ключи их сеансов.
+ * Используется фильтрами строк таблиц: проверка строки - O(1). Билет
+ * подходит, если ключ его сеанса среди найденных и статус совпадает, поэтому
+ * набор билетов не строится, а их число берется из счетчиков репозитория.
+ * Если условия на сеанс не заданы, подходят все сеансы и наборы не строятся.
+ */
+public final class SearchResult {
+    private final Set<Session> sessions;
+    private final Set<String> sessionKeys;
+    private final int sessionCount;
+    private final String status;
+    private final int ticketCount;
+
+    SearchResult(Set<Session> sessions, Set<String> sessionKeys, int sessionCount, String status, int ticketCount) {
+        this.sessions = sessions;
+        this.sessionKeys = sessionKeys;
+        this.sessionCount = sessionCount;
+        this.status = status;
+        this.ticketCount = ticketCount;
+    }
+
+    public boolean contains(Session session) { return sessions == null || sessions.contains(session); }
+
+    public boolean contains(Ticket ticket) {
+        return (sessionKeys == null || sessionKeys.contains(ticket.getSession()))
+                && (status == null || status.equals(ticket.getStatus()));
+    }
+
+    public int getSessionCount() { return sessionCount; }
+    public int getTicketCount() { return ticketCount; }
+}
@@ -0,0 +1,151 @@
+package edu.java.lab2;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Состояние мест одного сеанса: два бита на место в массиве long
+ * (32 места на слово). Зал на 200 мест занимает 7 слов вместо 200 строк билетов.
+ * Проверка места - O(1), процент заполнения - O(1) по счетчикам.
+ * Слова меняются только через CAS, поэтому несколько касс могут бронировать
+ * и продавать места одного сеанса одновременно без блокировок: из двух
+ * конкурирующих переходов FREE -> SOLD успешен ровно один.
+ * <p>
+ * Карта, которую репозиторий заменил (сменилась схема зала, удален сеанс),
+ * закрывается ({@link #close}): все места атомарно переводятся в CLOSED,
+ * после чего ни один переход на ней не удается, а прежние состояния
+ * переносятся в новую карту. Поэтому продажа, прошедшая до закрытия, не
+ * теряется, а после закрытия - повторяется по новой карте.
+ */
+public final class SeatMap {
+    // Коды совпадают с номерами счетчиков TicketCounters
+    public static final int FREE = TicketCounters.FREE;
+    public static final int RESERVED = TicketCounters.RESERVED;
+    public static final int SOLD = TicketCounters.SOLD;
+
+    // Четвертое значение двух бит: место закрытой карты
+    private static final int CLOSED = 3;
+    private static final int SEATS_PER_WORD = 32;
+
+    private final HallLayout layout;
+    private final AtomicLongArray words;
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger sold = new AtomicInteger();
+    private volatile boolean closed;
+
+    public SeatMap(HallLayout layout) {
+        this.layout = layout;
+        this.words = new AtomicLongArray((layout.getCapacity() + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+    }
+
+    public HallLayout getLayout() { return layout; }
+
+    public int getState(int seat) {
+        return stateIn(words.get(seat >>> 5), seat);
+    }
+
+    public int getState(String label) {
+        int seat = layout.seatIndex(label);
+        return seat < 0 ? -1 : getState(seat);
+    }
+
+    private static int stateIn(long word, int seat) {
+        return (int) (word >>> ((seat & 31) << 1)) & 3;
+    }
+
+    /** Безусловная установка состояния - только для карты, которую еще никто не видит. */
+    void setState(int seat, int state) {
+        while (true) {
+            int old = getState(seat);
+            if (old == state || compareAndSetState(seat, old, state)) return;
+        }
+    }
+
+    /**
+     * Атомарный переход места из {@code expected} в {@code state}.
+     * Соседние места в том же слове не затрагиваются: при конкурентном
+     * изменении соседа CAS повторяется, а при смене самого места - отклоняется.
+     */
+    public boolean compareAndSetState(int seat, int expected, int state) {
+        int index = seat >>> 5;
+        int shift = (seat & 31) << 1;
+        while (true) {
+            long word = words.get(index);
+            int current = (int) (word >>> shift) & 3;
+            if (current != expected) return false;
+            if (expected == state) return true;
+            long updated = (word & ~(3L << shift)) | ((long) state << shift);
+            if (words.compareAndSet(index, word, updated)) {
+                count(expected, -1);
+                count(state, 1);
+                return true;
+            }
+        }
+    }
+
+    private void count(int state, int delta) {
+        if (state == RESERVED) reserved.addAndGet(delta);
+        else if (state == SOLD) sold.addAndGet(delta);
+    }
+
+    public boolean isFree(int seat) { return getState(seat) == FREE; }
+
+    public int getReservedCount() { return reserved.get(); }
+    public int getSoldCount() { return sold.get(); }
+    public int getFreeCount() { return layout.getCapacity() - reserved.get() - sold.get(); }
+
+    public double getOccupancyPercent() {
+        return (reserved.get() + sold.get()) * 100.0 / layout.getCapacity();
+    }
+
+    /**
+     * Первые {@code count} свободных мест подряд в одном ряду.
+     * Возвращает сквозной номер первого места или -1, если таких нет.
+     * Слово, в котором все 32 места свободны, пропускается целиком.
+     * При параллельных продажах результат - подсказка: места нужно
+     * затем занять через {@link #compareAndSetState}.
+     */
+    public int findAdjacentFree(int count) {
+        int perRow = layout.getSeatsPerRow();
+        if (count < 1 || count > perRow) return -1;
+        for (int row = 0; row < layout.getRows(); row++) {
+            int start = row * perRow;
+            int end = start + perRow;
+            int run = 0;
+            int seat = start;
+            while (seat < end) {
+                if ((seat & 31) == 0 && end - seat >= SEATS_PER_WORD && words.get(seat >>> 5) == 0) {
+                    run += SEATS_PER_WORD;
+                    seat += SEATS_PER_WORD;
+                    if (run >= count) return seat - run;
+                    continue;
+                }
+                run = isFree(seat) ? run + 1 : 0;
+                seat++;
+                if (run == count) return seat - count;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Закрывает карту и возвращает последние состояния мест. Каждое место
+     * переводится в CLOSED своим CAS, так что переход, успевший раньше,
+     * попадает в результат, а начатый позже - отклоняется.
+     */
+    int[] close() {
+        closed = true;
+        int[] states = new int[layout.getCapacity()];
+        for (int seat = 0; seat < states.length; seat++) {
+            int state;
+            do {
+                state = getState(seat);
+            } while (state != CLOSED && !compareAndSetState(seat, state, CLOSED));
+            states[seat] = state == CLOSED ? FREE : state;
+        }
+        return states;
+    }
+
+    /** Карта заменена другой: переходы нужно повторять по новой карте. */
+    public boolean isClosed() { return closed; }
+}
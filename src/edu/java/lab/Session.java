@@ -0,0 +1,50 @@
+package edu.java.lab2;
+
+import java.util.Objects;
+
+/**
+ * Сеанс показа фильма. Билеты ссылаются на сеанс по ключу "фильм время"
+ * (например, "Интерстеллар 18:00") - см. {@link #getKey()}.
+ * <p>
+ * Ограничение формата данных: дата в ключ не входит, потому что в файлах
+ * (XML, текст, снимок, журнал) билет хранит только "фильм время". Поэтому
+ * показы одного фильма в одно время в разные дни неразличимы для билетов:
+ * у них общие билеты, карта мест, счетчики и выручка (по цене и залу первого
+ * из таких сеансов). Чтобы показы были разными сеансами, у них должно
+ * отличаться время; генератор данных так и составляет расписание.
+ */
+public final class Session {
+    private final String film;
+    private final String date;
+    private final String time;
+    private final String hall;
+    private final String price;
+    private final long priceKopecks;
+
+    public Session(String film, String date, String time, String hall, String price) {
+        this.film = Objects.requireNonNull(film, "film");
+        this.date = date;
+        this.time = time;
+        this.hall = hall;
+        this.price = price;
+        this.priceKopecks = RevenueEngine.parsePriceKopecks(price);
+    }
+
+    public String getFilm() { return film; }
+    public String getDate() { return date; }
+    public String getTime() { return time; }
+    public String getHall() { return hall; }
+    public String getPrice() { return price; }
+
+    /** Цена, разобранная один раз при создании сеанса, в копейках. */
+    public long getPriceKopecks() { return priceKopecks; }
+
+    /** Ключ сеанса, по которому на него ссылаются билеты; без даты - см. описание класса. */
+    public String getKey() { return key(film, time); }
+
+    public static String key(String film, String time) {
+        return film + " " + time;
+    }
+
+    @Override public String toString() { return getKey(); }
+}
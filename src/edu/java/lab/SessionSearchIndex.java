@@ -0,0 +1,80 @@
+package edu.java.lab2;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.*;
+
+/**
+ * Упорядоченный индекс сеансов по дате и времени начала.
+ * Строки "дд.мм.гггг" и "чч:мм" разбираются один раз при добавлении сеанса;
+ * выборка за дату или диапазон дат - это подкарта TreeMap, O(log n + k).
+ * Сеансы с неразборчивой датой в индекс не попадают.
+ */
+public final class SessionSearchIndex {
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.uuuu").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("H:mm").withResolverStyle(ResolverStyle.STRICT);
+
+    private final TreeMap<LocalDateTime, List<Session>> byStart = new TreeMap<>();
+
+    void add(Session session) {
+        LocalDateTime start = startOf(session);
+        if (start != null) byStart.computeIfAbsent(start, k -> new ArrayList<>(2)).add(session);
+    }
+
+    void remove(Session session) {
+        LocalDateTime start = startOf(session);
+        List<Session> list = start == null ? null : byStart.get(start);
+        if (list == null) return;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == session) { list.remove(i); break; }
+        }
+        if (list.isEmpty()) byStart.remove(start);
+    }
+
+    void clear() { byStart.clear(); }
+
+    /**
+     * Сеансы с датой в [from; to] (границы включительно, null - без ограничения) по порядку начала;
+     * при from позже to диапазон пуст.
+     */
+    public List<Session> between(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) return new ArrayList<>();
+        NavigableMap<LocalDateTime, List<Session>> range = byStart;
+        if (from != null && to != null) range = byStart.subMap(from.atStartOfDay(), true, to.plusDays(1).atStartOfDay(), false);
+        else if (from != null) range = byStart.tailMap(from.atStartOfDay(), true);
+        else if (to != null) range = byStart.headMap(to.plusDays(1).atStartOfDay(), false);
+        List<Session> result = new ArrayList<>();
+        for (List<Session> list : range.values()) result.addAll(list);
+        return result;
+    }
+
+    static LocalDateTime startOf(Session session) {
+        LocalDate date = parseDate(session.getDate());
+        if (date == null) return null;
+        LocalTime time = parseTime(session.getTime());
+        return date.atTime(time == null ? LocalTime.MIDNIGHT : time);
+    }
+
+    /** Дата "дд.мм.гггг" или null, если строка не является датой. */
+    public static LocalDate parseDate(String text) {
+        if (text == null) return null;
+        try {
+            return LocalDate.parse(text.trim(), DATE_FORMAT);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    public static LocalTime parseTime(String text) {
+        if (text == null) return null;
+        try {
+            return LocalTime.parse(text.trim(), TIME_FORMAT);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
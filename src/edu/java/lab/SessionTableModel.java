@@ -0,0 +1,42 @@
+package edu.java.lab2;
+
+/** Таблица "Сеансы"; ячейки редактируются, изменение заменяет сеанс в репозитории. */
+@SuppressWarnings("serial")
+public class SessionTableModel extends RepositoryTableModel {
+    public static final String[] COLUMNS = {"Фильм", "Дата", "Время", "Зал", "Цена"};
+
+    public SessionTableModel(CinemaRepository repository) {
+        super(repository, CinemaRepository.Entity.SESSION, COLUMNS);
+    }
+
+    @Override public int getRowCount() { return repository.getSessionCount(); }
+    @Override public boolean isCellEditable(int row, int column) { return true; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return value(repository.getSession(row), column);
+    }
+
+    static Object value(Session s, int column) {
+        switch (column) {
+            case 0: return s.getFilm();
+            case 1: return s.getDate();
+            case 2: return s.getTime();
+            case 3: return s.getHall();
+            case 4: return s.getPrice();
+            default: throw new IndexOutOfBoundsException("column " + column);
+        }
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        Session s = repository.getSession(row);
+        String v = String.valueOf(value);
+        repository.updateSession(row, new Session(
+                column == 0 ? v : s.getFilm(),
+                column == 1 ? v : s.getDate(),
+                column == 2 ? v : s.getTime(),
+                column == 3 ? v : s.getHall(),
+                column == 4 ? v : s.getPrice()));
+    }
+}
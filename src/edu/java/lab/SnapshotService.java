@@ -0,0 +1,385 @@
+package edu.java.lab2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * СЛОЙ СЕРВИСОВ: двоичный снимок всего состояния кинотеатра.
+ * Снимок открывается за время чтения столбцов, без разбора текста:
+ * файл отображается в память (MappedByteBuffer), столбцы читаются
+ * пакетно через IntBuffer. XML и TXT остаются форматами импорта и экспорта.
+ *
+ * Формат (big-endian), версия 2:
+ * <pre>
+ *   заголовок: "CINEMASN", int версия, long поколение, int число разделов,
+ *              оглавление - long смещение и long длина каждого раздела
+ *   словарь:   int n, int[n + 1] смещения строк, байты строк в UTF-8
+ *   фильмы:    int rows, столбцы title, director, year, genre, duration
+ *   сеансы:    int rows, столбцы film, date, time, hall, price
+ *   билеты:    int rows, столбцы session, seat, status, saleTime
+ * </pre>
+ * Столбец - это int[rows]. Строковые столбцы хранят номер строки в словаре.
+ * Год, длительность, цена и статус хранятся числом (минуты, рубли, код статуса);
+ * значение, которое не восстанавливается из числа побайтно, кодируется
+ * как -(номер в словаре + 1).
+ * Поколение связывает снимок с журналом изменений ({@link ChangeJournal});
+ * в версии 1 его не было, такие снимки читаются с поколением 0.
+ */
+public final class SnapshotService {
+
+    private static final byte[] MAGIC = "CINEMASN".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+    private static final int SECTIONS = 4;
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 8 + 4 + SECTIONS * 16;
+    private static final int HEADER_SIZE_V1 = HEADER_SIZE - 8;
+
+    private static final String MINUTES = " мин";
+    private static final String RUBLES = " руб";
+    private static final String[] STATUSES = {Ticket.STATUS_FREE, Ticket.STATUS_RESERVED, Ticket.STATUS_SOLD};
+
+    private SnapshotService() {}
+
+    // ========== Запись ==========
+
+    /** Записывает снимок во временный файл и атомарно подменяет им целевой. */
+    public static void write(File file, CinemaRepository repository, long generation) throws IOException {
+        Dictionary dict = new Dictionary();
+
+        int filmCount = repository.getFilmCount();
+        int[][] films = new int[5][filmCount];
+        for (int i = 0; i < filmCount; i++) {
+            Film f = repository.getFilm(i);
+            films[0][i] = dict.id(f.getTitle());
+            films[1][i] = dict.id(f.getDirector());
+            films[2][i] = number(dict, f.getYear(), "");
+            films[3][i] = dict.id(f.getGenre());
+            films[4][i] = number(dict, f.getDuration(), MINUTES);
+        }
+        int sessionCount = repository.getSessionCount();
+        int[][] sessions = new int[5][sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            Session s = repository.getSession(i);
+            sessions[0][i] = dict.id(s.getFilm());
+            sessions[1][i] = dict.id(s.getDate());
+            sessions[2][i] = dict.id(s.getTime());
+            sessions[3][i] = dict.id(s.getHall());
+            sessions[4][i] = number(dict, s.getPrice(), RUBLES);
+        }
+        int ticketCount = repository.getTicketCount();
+        int[][] tickets = new int[4][ticketCount];
+        for (int i = 0; i < ticketCount; i++) {
+            Ticket t = repository.getTicket(i);
+            tickets[0][i] = dict.id(t.getSession());
+            tickets[1][i] = dict.id(t.getSeat());
+            int status = TicketCounters.statusIndex(t.getStatus());
+            tickets[2][i] = status >= 0 ? status : -(dict.id(t.getStatus()) + 1);
+            tickets[3][i] = dict.id(t.getSaleTime());
+        }
+
+        byte[][] strings = dict.encode();
+        long dictBytes = 0;
+        for (byte[] s : strings) dictBytes += s.length;
+        long[] lengths = {
+            4 + 4L * (strings.length + 1) + dictBytes,
+            4 + 4L * 5 * filmCount,
+            4 + 4L * 5 * sessionCount,
+            4 + 4L * 4 * ticketCount
+        };
+
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+                buf.put(MAGIC).putInt(VERSION).putLong(generation).putInt(SECTIONS);
+                long offset = HEADER_SIZE;
+                for (long length : lengths) {
+                    buf.putLong(offset).putLong(length);
+                    offset += length;
+                }
+
+                buf.putInt(strings.length);
+                int pos = 0;
+                for (byte[] s : strings) {
+                    putInt(channel, buf, pos);
+                    pos += s.length;
+                }
+                putInt(channel, buf, pos);
+                for (byte[] s : strings) putBytes(channel, buf, s);
+
+                putColumns(channel, buf, films);
+                putColumns(channel, buf, sessions);
+                putColumns(channel, buf, tickets);
+                drain(channel, buf);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Число, если строка восстанавливается из него в точности, иначе ссылка на словарь
+    private static int number(Dictionary dict, String value, String suffix) {
+        if (value.endsWith(suffix)) {
+            String digits = value.substring(0, value.length() - suffix.length());
+            if (!digits.isEmpty() && digits.length() <= 9 && (digits.length() == 1 || digits.charAt(0) != '0')) {
+                boolean ok = true;
+                for (int i = 0; i < digits.length() && ok; i++) ok = digits.charAt(i) >= '0' && digits.charAt(i) <= '9';
+                if (ok) return Integer.parseInt(digits);
+            }
+        }
+        return -(dict.id(value) + 1);
+    }
+
+    private static void putColumns(FileChannel channel, ByteBuffer buf, int[][] columns) throws IOException {
+        putInt(channel, buf, columns[0].length);
+        for (int[] column : columns) {
+            for (int v : column) putInt(channel, buf, v);
+        }
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buf, int v) throws IOException {
+        if (buf.remaining() < 4) drain(channel, buf);
+        buf.putInt(v);
+    }
+
+    private static void putBytes(FileChannel channel, ByteBuffer buf, byte[] bytes) throws IOException {
+        int off = 0;
+        while (off < bytes.length) {
+            if (!buf.hasRemaining()) drain(channel, buf);
+            int n = Math.min(buf.remaining(), bytes.length - off);
+            buf.put(bytes, off, n);
+            off += n;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        buf.clear();
+    }
+
+    // ========== Чтение ==========
+
+    /**
+     * Открывает снимок. Одинаковые значения становятся одним объектом String,
+     * поэтому повторяющиеся ключи сеансов, места и статусы не занимают память повторно.
+     */
+    public static DataImport.Batch read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Mapping m = map(channel, file);
+            MappedByteBuffer map = m.map;
+            long[] offsets = m.offsets;
+            String[] dict = readDictionary(section(map, offsets[0]));
+
+            DataImport.Batch batch = new DataImport.Batch();
+            batch.generation = m.generation;
+            int[][] f = readColumns(section(map, offsets[1]), 5);
+            for (int i = 0; i < f[0].length; i++) {
+                batch.films.add(new Film(dict[f[0][i]], dict[f[1][i]], text(dict, f[2][i], ""), dict[f[3][i]], text(dict, f[4][i], MINUTES)));
+            }
+            int[][] s = readColumns(section(map, offsets[2]), 5);
+            for (int i = 0; i < s[0].length; i++) {
+                batch.sessions.add(new Session(dict[s[0][i]], dict[s[1][i]], dict[s[2][i]], dict[s[3][i]], text(dict, s[4][i], RUBLES)));
+            }
+            int[][] t = readColumns(section(map, offsets[3]), 4);
+            for (int i = 0; i < t[0].length; i++) {
+                int status = t[2][i];
+                batch.tickets.add(new Ticket(dict[t[0][i]], dict[t[1][i]], status >= 0 ? STATUSES[status] : dict[-status - 1], dict[t[3][i]]));
+            }
+            return batch;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | java.nio.BufferUnderflowException | NegativeArraySizeException ex) {
+            throw new IOException("Поврежден снимок: " + file, ex);
+        }
+    }
+
+    /**
+     * Билеты снимка для просмотра без загрузки в репозиторий: в памяти только
+     * словарь, столбцы читаются прямо из отображенного файла при обращении.
+     */
+    public static TicketColumns openTickets(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Mapping m = map(channel, file);
+            String[] dict = readDictionary(section(m.map, m.offsets[0]));
+            ByteBuffer tickets = section(m.map, m.offsets[3]);
+            int rows = tickets.getInt();
+            IntBuffer ints = tickets.asIntBuffer();
+            if (rows < 0 || ints.remaining() < 4L * rows) throw new IOException("Поврежден снимок: " + file);
+            IntBuffer[] columns = new IntBuffer[4];
+            for (int c = 0; c < columns.length; c++) {
+                IntBuffer column = ints.duplicate();
+                column.position(c * rows).limit((c + 1) * rows);
+                columns[c] = column.slice();
+            }
+            return new TicketColumns(dict, columns, rows);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | java.nio.BufferUnderflowException | NegativeArraySizeException ex) {
+            throw new IOException("Поврежден снимок: " + file, ex);
+        }
+    }
+
+    /**
+     * Столбцы билетов в отображенном файле. Отображение остается действительным
+     * и после закрытия канала; файл освобождается, когда объект собран сборщиком мусора.
+     * Ключи сортировки - ранги строк словаря (статусы, хранимые кодом, - в конце словаря).
+     */
+    public static final class TicketColumns implements PagedTableModel.Source {
+        private final String[] dict;
+        private final IntBuffer[] columns;
+        private final int rows;
+        private int[] ranks;
+        private int rankCount;
+
+        TicketColumns(String[] dict, IntBuffer[] columns, int rows) {
+            this.dict = dict;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        @Override public String[] getColumns() { return TicketTableModel.COLUMNS; }
+        @Override public int getRowCount() { return rows; }
+
+        @Override
+        public void read(int[] order, int from, int count, Object[][] out) {
+            for (int i = 0; i < count; i++) {
+                int row = order == null ? from + i : order[from + i];
+                for (int c = 0; c < columns.length; c++) out[i][c] = string(entry(row, c));
+            }
+        }
+
+        @Override
+        public int keyCount(int column) {
+            ensureRanks();
+            return rankCount;
+        }
+
+        @Override
+        public int key(int row, int column) {
+            return ranks[entry(row, column)];
+        }
+
+        // Номер строки в словаре, дополненном статусами: dict.length + код статуса
+        private int entry(int row, int column) {
+            int v = columns[column].get(row);
+            if (column == 2) return v >= 0 ? dict.length + v : -v - 1;
+            return v;
+        }
+
+        private String string(int entry) {
+            return entry < dict.length ? dict[entry] : STATUSES[entry - dict.length];
+        }
+
+        private synchronized void ensureRanks() {
+            if (ranks != null) return;
+            String[] values = Arrays.copyOf(dict, dict.length + STATUSES.length);
+            System.arraycopy(STATUSES, 0, values, dict.length, STATUSES.length);
+            ranks = SortIndex.ranks(values);
+            int max = -1;
+            for (int r : ranks) max = Math.max(max, r);
+            rankCount = max + 1;
+        }
+    }
+
+    /** Отображенный файл снимка: поколение и начала разделов. */
+    private static final class Mapping {
+        final MappedByteBuffer map;
+        final long generation;
+        final long[] offsets;
+
+        Mapping(MappedByteBuffer map, long generation, long[] offsets) {
+            this.map = map;
+            this.generation = generation;
+            this.offsets = offsets;
+        }
+    }
+
+    private static Mapping map(FileChannel channel, File file) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE_V1) throw new IOException("Файл не является снимком кинотеатра: " + file);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        byte[] magic = new byte[MAGIC.length];
+        map.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Файл не является снимком кинотеатра: " + file);
+        int version = map.getInt();
+        if (version != 1 && version != VERSION) throw new IOException("Неподдерживаемая версия снимка: " + version);
+        long generation = version == 1 ? 0 : map.getLong();
+        int headerSize = version == 1 ? HEADER_SIZE_V1 : HEADER_SIZE;
+        int sections = map.getInt();
+        if (sections != SECTIONS) throw new IOException("Поврежден снимок: разделов " + sections);
+        long[] offsets = new long[SECTIONS];
+        for (int i = 0; i < SECTIONS; i++) {
+            offsets[i] = map.getLong();
+            long length = map.getLong();
+            if (offsets[i] < headerSize || length < 4 || offsets[i] + length > size || offsets[i] + length > Integer.MAX_VALUE) {
+                throw new IOException("Поврежден снимок: раздел " + i + " вне файла");
+            }
+        }
+        return new Mapping(map, generation, offsets);
+    }
+
+    private static ByteBuffer section(MappedByteBuffer map, long offset) {
+        ByteBuffer buf = map.duplicate();
+        buf.position((int) offset);
+        return buf.slice();
+    }
+
+    private static String[] readDictionary(ByteBuffer buf) {
+        int n = buf.getInt();
+        int[] offsets = new int[n + 1];
+        buf.asIntBuffer().get(offsets);
+        int base = 4 + 4 * (n + 1);
+        String[] strings = new String[n];
+        byte[] bytes = new byte[offsets[n]];
+        buf.position(base);
+        buf.get(bytes);
+        for (int i = 0; i < n; i++) {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static int[][] readColumns(ByteBuffer buf, int columns) {
+        int rows = buf.getInt();
+        IntBuffer ints = buf.asIntBuffer();
+        int[][] result = new int[columns][rows];
+        for (int[] column : result) ints.get(column);
+        return result;
+    }
+
+    private static String text(String[] dict, int value, String suffix) {
+        return value >= 0 ? value + suffix : dict[-value - 1];
+    }
+
+    /** Словарь строк снимка: номер присваивается при первом появлении. */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int id(String s) {
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = strings.size();
+                ids.put(s, id);
+                strings.add(s);
+            }
+            return id;
+        }
+
+        byte[][] encode() {
+            byte[][] result = new byte[strings.size()][];
+            for (int i = 0; i < result.length; i++) result[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            return result;
+        }
+    }
+}
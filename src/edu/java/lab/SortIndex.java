@@ -0,0 +1,58 @@
+package edu.java.lab2;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Перестановки для сортировки больших таблиц. Строка сравнивается не
+ * компаратором, а целым ключом - рангом ее значения среди всех различных
+ * значений столбца (ранги считаются один раз по словарю значений).
+ * Тогда порядок строк строится подсчетом за два прохода: O(n + число ключей).
+ */
+public final class SortIndex {
+
+    private SortIndex() {}
+
+    /**
+     * Номера строк {@code 0..rows-1}, упорядоченные по ключу; строки с
+     * равными ключами остаются в исходном порядке (и при убывании тоже).
+     */
+    public static int[] byKeys(int rows, int keyCount, IntUnaryOperator key, boolean descending) {
+        int[] start = new int[keyCount + 1];
+        for (int row = 0; row < rows; row++) start[slot(key.applyAsInt(row), keyCount, descending) + 1]++;
+        for (int k = 0; k < keyCount; k++) start[k + 1] += start[k];
+        int[] order = new int[rows];
+        for (int row = 0; row < rows; row++) order[start[slot(key.applyAsInt(row), keyCount, descending)]++] = row;
+        return order;
+    }
+
+    private static int slot(int key, int keyCount, boolean descending) {
+        return descending ? keyCount - 1 - key : key;
+    }
+
+    /**
+     * Ранги строк словаря в порядке, в каком их сортирует таблица (Collator
+     * текущей локали): {@code rank[i]} - место {@code values[i]}; равные строки
+     * получают равный ранг. Возвращает массив рангов, число рангов -
+     * {@code max(rank) + 1}.
+     */
+    public static int[] ranks(String[] values) {
+        Collator collator = Collator.getInstance();
+        CollationKey[] keys = new CollationKey[values.length];
+        Integer[] byValue = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = collator.getCollationKey(values[i] == null ? "" : values[i]);
+            byValue[i] = i;
+        }
+        Arrays.sort(byValue, (a, b) -> keys[a].compareTo(keys[b]));
+        int[] rank = new int[values.length];
+        int r = -1;
+        for (int i = 0; i < byValue.length; i++) {
+            if (i == 0 || keys[byValue[i]].compareTo(keys[byValue[i - 1]]) != 0) r++;
+            rank[byValue[i]] = r;
+        }
+        return rank;
+    }
+}
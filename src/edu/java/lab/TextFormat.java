@@ -0,0 +1,383 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * СЛОЙ СЕРВИСОВ: текстовый формат cinema_data.txt.
+ * Разделы "=== ФИЛЬМЫ ===", "=== СЕАНСЫ ===", "=== БИЛЕТЫ ===", в строке
+ * поля через '|' (после последнего поля тоже стоит '|').
+ * Символы '|' и '\' внутри значения экранируются обратной косой чертой,
+ * переводы строк - как \n и \r, поэтому строка файла - всегда одна запись.
+ * Незнакомая последовательность "\x" читается как есть: старые файлы без
+ * экранирования загружаются так же, как раньше.
+ *
+ * Разбор - один проход по буферу символов без регулярных выражений:
+ * поля копируются в общий буфер, и String создается только для нужных полей.
+ */
+public final class TextFormat {
+
+    static final int NONE = -1;
+    static final int FILMS = 0;
+    static final int SESSIONS = 1;
+    static final int TICKETS = 2;
+
+    private static final String[] HEADERS = {"=== ФИЛЬМЫ ===", "=== СЕАНСЫ ===", "=== БИЛЕТЫ ==="};
+    // Сколько полей берется из строки раздела (лишние поля игнорируются)
+    private static final int[] FIELDS = {5, 5, 4};
+
+    /** Получатель записи: раздел и значения полей. */
+    public interface RowHandler {
+        void row(int section, String[] values);
+    }
+
+    private TextFormat() {}
+
+    /** Раздел по строке заголовка; как и раньше, достаточно ключевого слова. */
+    static int sectionOf(CharSequence header) {
+        String h = header.toString();
+        if (h.contains("ФИЛЬМЫ")) return FILMS;
+        if (h.contains("СЕАНСЫ")) return SESSIONS;
+        if (h.contains("БИЛЕТЫ")) return TICKETS;
+        return NONE;
+    }
+
+    // ========== Чтение ==========
+
+    /**
+     * Разбирает текст, начиная с раздела {@code section} (для участка файла,
+     * который начинается внутри раздела), и возвращает число записей.
+     * Пустые строки и строки, где полей меньше нужного, пропускаются.
+     */
+    public static int read(Reader in, int section, RowHandler handler) throws IOException {
+        return new Tokenizer(in, section).run(handler);
+    }
+
+    /**
+     * Делит файл на участки для параллельного разбора: сначала по разделам,
+     * затем каждый раздел - примерно на {@code parts} частей по границам строк.
+     * Перевод строки внутри значения экранирован, поэтому граница строки -
+     * всегда граница записи. Результат: {раздел, начало, конец} в порядке файла.
+     */
+    public static List<long[]> split(File file, int parts) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<long[]> sections = new ArrayList<>();
+            int current = NONE;
+            long start = 0;
+            for (long header : findHeaders(channel)) {
+                if (header > start) sections.add(new long[]{current, start, header});
+                long lineEnd = findLineEnd(channel, header);
+                long end = lineEnd < 0 ? size : lineEnd + 1;
+                ByteBuffer line = ByteBuffer.allocate((int) Math.min(end - header, 4096));
+                channel.read(line, header);
+                current = sectionOf(new String(line.array(), 0, line.position(), StandardCharsets.UTF_8));
+                start = end;
+            }
+            if (start < size) sections.add(new long[]{current, start, size});
+
+            long total = 0;
+            for (long[] s : sections) if (s[0] != NONE) total += s[2] - s[1];
+            long step = Math.max(1, total / Math.max(1, parts));
+            for (long[] s : sections) {
+                if (s[0] == NONE) continue;
+                long from = s[1];
+                while (s[2] - from > step) {
+                    long nl = findByte(channel, from + step, (byte) '\n');
+                    if (nl < 0 || nl + 1 >= s[2]) break;
+                    ranges.add(new long[]{s[0], from, nl + 1});
+                    from = nl + 1;
+                }
+                ranges.add(new long[]{s[0], from, s[2]});
+            }
+        }
+        return ranges;
+    }
+
+    /** Разбирает участок [from; to) файла внутри раздела {@code section}. */
+    public static int readRange(File file, long from, long to, int section, RowHandler handler, XmlService.ProgressListener progress)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel.position(from);
+            long length = to - from;
+            XmlService.CountingInputStream in = new XmlService.CountingInputStream(
+                    new XmlService.LimitedInputStream(Channels.newInputStream(channel), length));
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            int[] rows = {0};
+            new Tokenizer(reader, section).run((s, values) -> {
+                handler.row(s, values);
+                if (progress != null && ++rows[0] % XmlService.PROGRESS_STEP == 0) progress.progress(Math.min(in.getCount(), length), length, rows[0]);
+            });
+            if (progress != null) progress.progress(length, length, rows[0]);
+            return rows[0];
+        }
+    }
+
+    // Начала строк, которые начинаются с "===" - один проход по файлу
+    private static List<Long> findHeaders(FileChannel channel) throws IOException {
+        List<Long> headers = new ArrayList<>();
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        long pos = 0;
+        int equals = 0; // '=' в начале текущей строки; -1 - строка не заголовок
+        while (true) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) return headers;
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (b == '\n' || b == '\r') {
+                    equals = 0;
+                } else if (equals >= 0) {
+                    equals = b == '=' ? equals + 1 : -1;
+                    if (equals == 3) {
+                        headers.add(pos + i - 2);
+                        equals = -1;
+                    }
+                }
+            }
+            pos += n;
+        }
+    }
+
+    private static long findLineEnd(FileChannel channel, long from) throws IOException {
+        return findByte(channel, from, (byte) '\n', (byte) '\r');
+    }
+
+    private static long findByte(FileChannel channel, long from, byte b) throws IOException {
+        return findByte(channel, from, b, b);
+    }
+
+    // Позиция первого из байтов b1, b2 начиная с from, или -1
+    private static long findByte(FileChannel channel, long from, byte b1, byte b2) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        long pos = from;
+        while (true) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) return -1;
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (b == b1 || b == b2) return pos + i;
+            }
+            pos += n;
+        }
+    }
+
+    /**
+     * Конечный автомат разбора: строка за строкой, поле за полем.
+     * Символы поля копируются в буфер field; String создается только для
+     * полей, которые войдут в запись. Для строк, как и у split("\\|"),
+     * пустые поля в конце строки не считаются.
+     */
+    private static final class Tokenizer {
+        private final Reader in;
+        private final char[] buf = new char[1 << 16];
+        private int pos;
+        private int end;
+        private int section;
+
+        private char[] field = new char[128];
+        private int fieldLength;
+        private final String[] values = new String[5];
+        private int fieldCount;
+        private int nonEmptyCount;
+        private int leadingEquals;
+        private boolean blank;
+        private final StringBuilder header = new StringBuilder();
+
+        Tokenizer(Reader in, int section) {
+            this.in = in;
+            this.section = section;
+        }
+
+        // Концы строк - как у BufferedReader.readLine: \n, \r или \r\n
+        int run(RowHandler handler) throws IOException {
+            int rows = 0;
+            startLine();
+            boolean escape = false;
+            boolean skipLF = false;
+            while (pos < end || fill()) {
+                if (skipLF) {
+                    skipLF = false;
+                    if (buf[pos] == '\n') {
+                        pos++;
+                        continue;
+                    }
+                }
+                if (escape) {
+                    escape = false;
+                    char c = buf[pos];
+                    if (c == '|' || c == '\\') { append(c); pos++; continue; }
+                    if (c == 'n') { append('\n'); pos++; continue; }
+                    if (c == 'r') { append('\r'); pos++; continue; }
+                    append('\\');
+                }
+                // Обычные символы копируются в поле одним блоком
+                int start = pos;
+                while (pos < end) {
+                    char c = buf[pos];
+                    if (c == '|' || c == '\\' || c == '\n' || c == '\r') break;
+                    pos++;
+                }
+                if (pos > start) appendRun(start, pos);
+                if (pos == end) continue;
+
+                char c = buf[pos++];
+                if (c == '|' || c == '\\') {
+                    blank = false;
+                    if (leadingEquals == 3) header.append(c);
+                    else leadingEquals = -1;
+                }
+                if (c == '|') {
+                    endField();
+                } else if (c == '\\') {
+                    escape = true;
+                } else {
+                    if (endLine(handler)) rows++;
+                    startLine();
+                    skipLF = c == '\r';
+                }
+            }
+            if (escape) append('\\');
+            if (endLine(handler)) rows++;
+            return rows;
+        }
+
+        private void appendRun(int from, int to) {
+            if (leadingEquals >= 0) {
+                for (int i = from; i < to && leadingEquals >= 0 && leadingEquals < 3; i++) {
+                    leadingEquals = buf[i] == '=' ? leadingEquals + 1 : -1;
+                }
+                if (leadingEquals == 3) header.append(buf, from, to - from);
+            }
+            if (blank) {
+                for (int i = from; i < to && blank; i++) blank = buf[i] <= ' ';
+            }
+            int n = to - from;
+            if (fieldLength + n > field.length) field = java.util.Arrays.copyOf(field, Math.max(field.length * 2, fieldLength + n));
+            System.arraycopy(buf, from, field, fieldLength, n);
+            fieldLength += n;
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buf, 0, buf.length);
+            if (n <= 0) return false;
+            pos = 0;
+            end = n;
+            return true;
+        }
+
+        private void startLine() {
+            fieldLength = 0;
+            fieldCount = 0;
+            nonEmptyCount = 0;
+            leadingEquals = 0;
+            blank = true;
+            header.setLength(0);
+        }
+
+        private void append(char c) {
+            if (fieldLength == field.length) field = java.util.Arrays.copyOf(field, field.length * 2);
+            field[fieldLength++] = c;
+        }
+
+        private void endField() {
+            int needed = section == NONE ? 0 : FIELDS[section];
+            if (fieldCount < needed) values[fieldCount] = new String(field, 0, fieldLength);
+            fieldCount++;
+            if (fieldLength > 0) nonEmptyCount = fieldCount;
+            fieldLength = 0;
+        }
+
+        // true - строка дала запись
+        private boolean endLine(RowHandler handler) {
+            if (leadingEquals == 3) {
+                section = sectionOf(header);
+                return false;
+            }
+            if (fieldLength > 0) endField();
+            if (blank || section == NONE) return false;
+            int needed = FIELDS[section];
+            if (nonEmptyCount < needed) return false;
+            String[] row = new String[needed];
+            System.arraycopy(values, 0, row, 0, needed);
+            handler.row(section, row);
+            return true;
+        }
+    }
+
+    // ========== Запись ==========
+
+    /**
+     * Записывает все данные репозитория. Значения экранируются прямо в буфер
+     * символов, который уходит в файл большими блоками.
+     */
+    public static void write(File file, CinemaRepository repository) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            CharSink sink = new CharSink(out);
+            sink.append(HEADERS[FILMS]).append('\n');
+            for (int i = 0; i < repository.getFilmCount(); i++) {
+                Film f = repository.getFilm(i);
+                sink.cell(f.getTitle()).cell(f.getDirector()).cell(f.getYear()).cell(f.getGenre()).cell(f.getDuration()).append('\n');
+            }
+            sink.append('\n').append(HEADERS[SESSIONS]).append('\n');
+            for (int i = 0; i < repository.getSessionCount(); i++) {
+                Session s = repository.getSession(i);
+                sink.cell(s.getFilm()).cell(s.getDate()).cell(s.getTime()).cell(s.getHall()).cell(s.getPrice()).append('\n');
+            }
+            sink.append('\n').append(HEADERS[TICKETS]).append('\n');
+            for (int i = 0; i < repository.getTicketCount(); i++) {
+                Ticket t = repository.getTicket(i);
+                sink.cell(t.getSession()).cell(t.getSeat()).cell(t.getStatus()).cell(t.getSaleTime()).append('\n');
+            }
+            sink.flush();
+        }
+    }
+
+    /** Буфер символов поверх Writer: запись блоками по 64K. */
+    private static final class CharSink {
+        private final Writer out;
+        private final char[] buf = new char[1 << 16];
+        private int length;
+
+        CharSink(Writer out) { this.out = out; }
+
+        CharSink append(char c) throws IOException {
+            if (length == buf.length) flush();
+            buf[length++] = c;
+            return this;
+        }
+
+        CharSink append(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) append(s.charAt(i));
+            return this;
+        }
+
+        // Значение с экранированием и разделитель после него
+        CharSink cell(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '|': append('\\').append('|'); break;
+                    case '\\': append('\\').append('\\'); break;
+                    case '\n': append('\\').append('n'); break;
+                    case '\r': append('\\').append('r'); break;
+                    default: append(c);
+                }
+            }
+            return append('|');
+        }
+
+        void flush() throws IOException {
+            out.write(buf, 0, length);
+            length = 0;
+        }
+    }
+}
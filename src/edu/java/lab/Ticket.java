@@ -0,0 +1,33 @@
+package edu.java.lab2;
+
+import java.util.Objects;
+
+/** Билет (место) на сеанс. Сеанс задается ключом {@link Session#getKey()}. */
+public final class Ticket {
+    public static final String STATUS_FREE = "Свободно";
+    public static final String STATUS_RESERVED = "Забронирован";
+    public static final String STATUS_SOLD = "Продан";
+
+    private final String session;
+    private final String seat;
+    private final String status;
+    private final String saleTime;
+
+    public Ticket(String session, String seat, String status, String saleTime) {
+        this.session = Objects.requireNonNull(session, "session");
+        this.seat = seat;
+        this.status = status;
+        this.saleTime = saleTime;
+    }
+
+    public String getSession() { return session; }
+    public String getSeat() { return seat; }
+    public String getStatus() { return status; }
+    public String getSaleTime() { return saleTime; }
+
+    public Ticket withStatus(String newStatus, String newSaleTime) {
+        return new Ticket(session, seat, newStatus, newSaleTime);
+    }
+
+    @Override public String toString() { return session + " " + seat; }
+}
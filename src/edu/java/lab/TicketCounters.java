@@ -0,0 +1,78 @@
+package edu.java.lab2;
+
+import java.util.*;
+
+/**
+ * Счетчики билетов по статусам "Свободно" / "Забронирован" / "Продан":
+ * общие и по каждому сеансу. Обновляются репозиторием при каждой вставке,
+ * изменении и удалении билета, поэтому отчеты читают их за O(1).
+ */
+public final class TicketCounters {
+    static final int FREE = 0;
+    static final int RESERVED = 1;
+    static final int SOLD = 2;
+    private static final int STATUS_COUNT = 3;
+
+    private final int[] total = new int[STATUS_COUNT];
+    private final Map<String, int[]> bySession = new HashMap<>();
+
+    /** Номер счетчика для статуса или -1, если статус нестандартный. */
+    static int statusIndex(String status) {
+        if (Ticket.STATUS_FREE.equals(status)) return FREE;
+        if (Ticket.STATUS_RESERVED.equals(status)) return RESERVED;
+        if (Ticket.STATUS_SOLD.equals(status)) return SOLD;
+        return -1;
+    }
+
+    void add(Ticket ticket) { apply(ticket, 1); }
+    void remove(Ticket ticket) { apply(ticket, -1); }
+
+    private void apply(Ticket ticket, int delta) {
+        int index = statusIndex(ticket.getStatus());
+        if (index < 0) return;
+        total[index] += delta;
+        int[] counts = bySession.computeIfAbsent(ticket.getSession(), k -> new int[STATUS_COUNT]);
+        counts[index] += delta;
+        if (counts[FREE] == 0 && counts[RESERVED] == 0 && counts[SOLD] == 0) bySession.remove(ticket.getSession());
+    }
+
+    void clear() {
+        Arrays.fill(total, 0);
+        bySession.clear();
+    }
+
+    public int count(String status) {
+        int index = statusIndex(status);
+        return index < 0 ? 0 : total[index];
+    }
+
+    public int count(String sessionKey, String status) {
+        int index = statusIndex(status);
+        int[] counts = bySession.get(sessionKey);
+        return index < 0 || counts == null ? 0 : counts[index];
+    }
+
+    /**
+     * Сверка с полным пересчетом. Возвращает список расхождений
+     * (пустой, если счетчики верны).
+     */
+    public List<String> verify(Iterable<Ticket> tickets) {
+        TicketCounters recount = new TicketCounters();
+        for (Ticket t : tickets) recount.add(t);
+        List<String> problems = new ArrayList<>();
+        String[] names = {Ticket.STATUS_FREE, Ticket.STATUS_RESERVED, Ticket.STATUS_SOLD};
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            if (total[i] != recount.total[i]) problems.add("Всего '" + names[i] + "': " + total[i] + " вместо " + recount.total[i]);
+        }
+        Set<String> keys = new HashSet<>(bySession.keySet());
+        keys.addAll(recount.bySession.keySet());
+        for (String key : keys) {
+            int[] actual = bySession.getOrDefault(key, new int[STATUS_COUNT]);
+            int[] expected = recount.bySession.getOrDefault(key, new int[STATUS_COUNT]);
+            if (!Arrays.equals(actual, expected)) {
+                problems.add("Сеанс '" + key + "': " + Arrays.toString(actual) + " вместо " + Arrays.toString(expected));
+            }
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.java.lab2;
+
+import javax.swing.UIManager;
+
+/**
+ * Таблица "Билеты"; ячейки редактируются, изменение заменяет билет в репозитории.
+ * Смена статуса места, входящего в схему зала, идет через {@link BookingService},
+ * как у любой другой кассы, - поэтому правка в таблице не перетрет чужую продажу.
+ */
+@SuppressWarnings("serial")
+public class TicketTableModel extends RepositoryTableModel {
+    public static final String[] COLUMNS = {"Сеанс", "Место", "Статус", "Время продажи"};
+
+    private BookingService bookingService;
+
+    public TicketTableModel(CinemaRepository repository) {
+        super(repository, CinemaRepository.Entity.TICKET, COLUMNS);
+    }
+
+    public void setBookingService(BookingService bookingService) { this.bookingService = bookingService; }
+
+    @Override public int getRowCount() { return repository.getTicketCount(); }
+    @Override public boolean isCellEditable(int row, int column) { return true; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return value(repository.getTicket(row), column);
+    }
+
+    static Object value(Ticket t, int column) {
+        switch (column) {
+            case 0: return t.getSession();
+            case 1: return t.getSeat();
+            case 2: return t.getStatus();
+            case 3: return t.getSaleTime();
+            default: throw new IndexOutOfBoundsException("column " + column);
+        }
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        Ticket t = repository.getTicket(row);
+        String v = String.valueOf(value);
+        int state = TicketCounters.statusIndex(v);
+        if (column == 2 && state >= 0 && bookingService != null && bookingService.isManaged(t.getSession(), t.getSeat())) {
+            // Сам билет обновит слушатель сервиса; отказ - место уже занято другой кассой
+            if (!bookingService.changeState(t.getSession(), t.getSeat(), state)) {
+                UIManager.getLookAndFeel().provideErrorFeedback(null);
+            }
+            return;
+        }
+        repository.updateTicket(row, new Ticket(
+                column == 0 ? v : t.getSession(),
+                column == 1 ? v : t.getSeat(),
+                column == 2 ? v : t.getStatus(),
+                column == 3 ? v : t.getSaleTime()));
+    }
+}
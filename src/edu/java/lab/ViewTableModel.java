@@ -0,0 +1,36 @@
+package edu.java.lab2;
+
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Таблица только для чтения над неизменяемым списком сущностей
+ * ({@link CinemaRepository.View}): с ней работают отчеты и выгрузки
+ * в фоновых заданиях, не затрагивая репозиторий.
+ */
+@SuppressWarnings("serial")
+public class ViewTableModel<T> extends AbstractTableModel {
+
+    /** Значение ячейки сущности - те же столбцы, что у табличной модели. */
+    public interface Cell<T> {
+        Object value(T row, int column);
+    }
+
+    private final String[] columns;
+    private final List<T> rows;
+    private final Cell<T> cell;
+
+    public ViewTableModel(String[] columns, List<T> rows, Cell<T> cell) {
+        this.columns = columns.clone();
+        this.rows = rows;
+        this.cell = cell;
+    }
+
+    public T getRow(int row) { return rows.get(row); }
+
+    @Override public int getRowCount() { return rows.size(); }
+    @Override public int getColumnCount() { return columns.length; }
+    @Override public String getColumnName(int column) { return columns[column]; }
+    @Override public Class<?> getColumnClass(int column) { return String.class; }
+    @Override public Object getValueAt(int row, int column) { return cell.value(rows.get(row), column); }
+}
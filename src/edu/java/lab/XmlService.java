@@ -0,0 +1,355 @@
+package edu.java.lab2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.table.TableModel;
+import javax.xml.stream.*;
+
+/**
+ * СЛОЙ СЕРВИСОВ: потоковая (StAX) работа с XML-файлами кинотеатра.
+ * Файл читается элемент за элементом, дерево DOM не строится,
+ * поэтому расход памяти не зависит от размера films.xml / sessions.xml / tickets.xml.
+ * Запись тоже потоковая: строки модели сразу уходят в буферизованный канал
+ * временного файла, который затем атомарно переименовывается в целевой.
+ */
+public final class XmlService {
+
+    static final String[] FILM_ATTRIBUTES = {"title", "director", "year", "genre", "duration"};
+    static final String[] SESSION_ATTRIBUTES = {"film", "date", "time", "hall", "price"};
+    static final String[] TICKET_ATTRIBUTES = {"session", "seat", "status", "saleTime"};
+
+    // Как часто (в записях) сообщать о ходе загрузки
+    static final int PROGRESS_STEP = 10_000;
+
+    // Обертка участка файла при параллельном чтении
+    private static final byte[] CHUNK_HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><chunk>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CHUNK_TAIL = "</chunk>".getBytes(StandardCharsets.UTF_8);
+
+    // Формат совпадает с прежним выводом Transformer (INDENT=yes, indent-amount=4)
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+    private static final String INDENT = "    ";
+
+    /** Получатель очередной прочитанной строки (значения в порядке столбцов таблицы). */
+    public interface RowHandler {
+        void row(String[] values);
+    }
+
+    /** Ход загрузки: прочитано байт из общего размера файла и число записей. */
+    public interface ProgressListener {
+        void progress(long bytesRead, long totalBytes, int rows);
+    }
+
+    private XmlService() {}
+
+    public static int readFilms(File file, RowHandler handler, ProgressListener progress) throws IOException, XMLStreamException {
+        return readRows(file, "film", FILM_ATTRIBUTES, handler, progress);
+    }
+
+    public static int readSessions(File file, RowHandler handler, ProgressListener progress) throws IOException, XMLStreamException {
+        return readRows(file, "session", SESSION_ATTRIBUTES, handler, progress);
+    }
+
+    public static int readTickets(File file, RowHandler handler, ProgressListener progress) throws IOException, XMLStreamException {
+        return readRows(file, "ticket", TICKET_ATTRIBUTES, handler, progress);
+    }
+
+    /**
+     * Читает билеты из участка файла [from; to), найденного {@link #splitTickets}.
+     * Участок оборачивается синтетическим корневым элементом и разбирается
+     * независимо от остальных - так файл читается в несколько потоков.
+     */
+    public static int readTicketsRange(File file, long from, long to, RowHandler handler, ProgressListener progress)
+            throws IOException, XMLStreamException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel.position(from);
+            InputStream body = new LimitedInputStream(Channels.newInputStream(channel), to - from);
+            InputStream in = new SequenceInputStream(new SequenceInputStream(
+                    new ByteArrayInputStream(CHUNK_HEAD), new BufferedInputStream(body, 1 << 16)),
+                    new ByteArrayInputStream(CHUNK_TAIL));
+            return readRows(in, to - from, "ticket", TICKET_ATTRIBUTES, handler, progress);
+        }
+    }
+
+    /** Границы не более чем {@code parts} участков tickets.xml для {@link #readTicketsRange}. */
+    public static long[] splitTickets(File file, int parts) throws IOException {
+        return splitElements(file, "tickets", "ticket", parts);
+    }
+
+    /**
+     * Делит файл на участки по началу элементов {@code <element}: возвращает
+     * начала участков и в конце - позицию закрывающего тега контейнера.
+     * Пустой массив - элементов нет или разметка неожиданная (читать целиком).
+     * Рассчитано на файлы, записанные {@link #writeRows}: UTF-8, без комментариев
+     * и CDATA, а символ '<' внутри значений всегда экранирован.
+     */
+    static long[] splitElements(File file, String container, String element, int parts) throws IOException {
+        byte[] tag = ("<" + element).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long first = findElement(channel, 0, tag);
+            long end = findLast(channel, ("</" + container + ">").getBytes(StandardCharsets.UTF_8));
+            if (first < 0 || end < first) return new long[0];
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(first);
+            for (int k = 1; k < parts; k++) {
+                long b = findElement(channel, first + (end - first) * k / parts, tag);
+                if (b < 0 || b >= end) break;
+                if (b > bounds.get(bounds.size() - 1)) bounds.add(b);
+            }
+            bounds.add(end);
+            long[] result = new long[bounds.size()];
+            for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+            return result;
+        }
+    }
+
+    // Первое вхождение "<element" (за ним пробел, '/' или '>') начиная с позиции from
+    private static long findElement(FileChannel channel, long from, byte[] tag) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        long pos = from;
+        long size = channel.size();
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= tag.length) return -1;
+            for (int i = 0; i + tag.length < n; i++) {
+                if (regionEquals(buf, i, tag) && isNameEnd(buf.get(i + tag.length))) return pos + i;
+            }
+            if (pos + n >= size) return -1;
+            pos += n - tag.length;
+        }
+        return -1;
+    }
+
+    // Последнее вхождение закрывающего тега: после него в файле только "</cinema>"
+    private static long findLast(FileChannel channel, byte[] tag) throws IOException {
+        long size = channel.size();
+        int window = (int) Math.min(size, 4096);
+        ByteBuffer buf = ByteBuffer.allocate(window);
+        channel.read(buf, size - window);
+        for (int i = window - tag.length; i >= 0; i--) {
+            if (regionEquals(buf, i, tag)) return size - window + i;
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(ByteBuffer buf, int offset, byte[] tag) {
+        for (int j = 0; j < tag.length; j++) {
+            if (buf.get(offset + j) != tag[j]) return false;
+        }
+        return true;
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return b == ' ' || b == '/' || b == '>' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Читает все элементы {@code element} и передает их атрибуты обработчику.
+     * Отсутствующий атрибут дает пустую строку (как Element.getAttribute в DOM).
+     */
+    static int readRows(File file, String element, String[] attributes, RowHandler handler, ProgressListener progress)
+            throws IOException, XMLStreamException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            return readRows(in, file.length(), element, attributes, handler, progress);
+        }
+    }
+
+    private static int readRows(InputStream source, long total, String element, String[] attributes,
+                                RowHandler handler, ProgressListener progress) throws XMLStreamException {
+        CountingInputStream in = new CountingInputStream(source);
+        XMLStreamReader reader = newInputFactory().createXMLStreamReader(in);
+        int count = 0;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT || !element.equals(reader.getLocalName())) continue;
+                String[] values = new String[attributes.length];
+                for (int i = 0; i < attributes.length; i++) {
+                    String v = reader.getAttributeValue(null, attributes[i]);
+                    values[i] = v == null ? "" : v;
+                }
+                handler.row(values);
+                count++;
+                if (progress != null && count % PROGRESS_STEP == 0) progress.progress(Math.min(in.getCount(), total), total, count);
+            }
+        } finally {
+            reader.close();
+        }
+        if (progress != null) progress.progress(total, total, count);
+        return count;
+    }
+
+    public static void writeFilms(File file, TableModel model) throws IOException {
+        writeRows(file, "films", "film", FILM_ATTRIBUTES, model);
+    }
+
+    public static void writeSessions(File file, TableModel model) throws IOException {
+        writeRows(file, "sessions", "session", SESSION_ATTRIBUTES, model);
+    }
+
+    public static void writeTickets(File file, TableModel model) throws IOException {
+        writeRows(file, "tickets", "ticket", TICKET_ATTRIBUTES, model);
+    }
+
+    /**
+     * Пишет строки модели как {@code <cinema><container><element .../>...}.
+     * Атрибуты идут в алфавитном порядке, как их сериализовал DOM, поэтому
+     * результат побайтно совпадает с файлами, сохраненными прежней версией.
+     * Разметка фиксированная, поэтому пишется напрямую, а не через XMLStreamWriter:
+     * тот всегда сам экранирует атрибуты и не кодирует в них переводы строк.
+     */
+    static void writeRows(File file, String container, String element, String[] attributes, TableModel model)
+            throws IOException {
+        Integer[] order = new Integer[attributes.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> attributes[a].compareTo(attributes[b]));
+
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer out = new OutputStreamWriter(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), StandardCharsets.UTF_8)) {
+                String nl = System.lineSeparator();
+                out.write(XML_DECLARATION);
+                out.write(nl);
+                out.write("<cinema>");
+                out.write(nl);
+                int rows = model.getRowCount();
+                if (rows == 0) {
+                    out.write(INDENT + "<" + container + "/>" + nl);
+                } else {
+                    out.write(INDENT + "<" + container + ">" + nl);
+                    for (int i = 0; i < rows; i++) {
+                        out.write(INDENT + INDENT + "<" + element);
+                        for (int c : order) {
+                            out.write(' ');
+                            out.write(attributes[c]);
+                            out.write("=\"");
+                            writeEscaped(out, String.valueOf(model.getValueAt(i, c)));
+                            out.write('"');
+                        }
+                        out.write("/>");
+                        out.write(nl);
+                    }
+                    out.write(INDENT + "</" + container + ">" + nl);
+                }
+                out.write("</cinema>");
+                out.write(nl);
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Экранирует значение атрибута так же, как Transformer: спецсимволы разметки,
+     * переводы строк и табуляции, а символы вне BMP - ссылкой на код символа.
+     * Значение без таких символов пишется целиком, без посимвольного копирования.
+     */
+    static void writeEscaped(Writer out, String s) throws IOException {
+        int last = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            String rep;
+            switch (ch) {
+                case '&': rep = "&amp;"; break;
+                case '<': rep = "&lt;"; break;
+                case '>': rep = "&gt;"; break;
+                case '"': rep = "&quot;"; break;
+                case '\n': rep = "&#10;"; break;
+                case '\r': rep = "&#13;"; break;
+                case '\t': rep = "&#9;"; break;
+                default:
+                    rep = Character.isHighSurrogate(ch) && i + 1 < s.length() ? "&#" + s.codePointAt(i) + ";" : null;
+            }
+            if (rep == null) continue;
+            out.write(s, last, i - last);
+            out.write(rep);
+            if (Character.isHighSurrogate(ch)) i++;
+            last = i + 1;
+        }
+        out.write(s, last, s.length() - last);
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Внешние сущности и DTD в наших файлах не используются
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /** Поток, отдающий не больше limit байт - участок файла. */
+    static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            remaining = limit;
+        }
+
+        @Override public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+
+    /** Поток, считающий прочитанные байты - для отображения прогресса. */
+    static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        long getCount() { return count; }
+
+        @Override public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
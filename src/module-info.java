@@ -6,4 +6,5 @@
  */
 module Lab2_CinemaAdmin {
 	requires java.desktop;
+	requires jdk.jfr;
 }
\ No newline at end of file